@@ -0,0 +1,214 @@
+package com.yunqi.starter.common.json;
+
+import org.nutz.json.impl.JsonRenderImpl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 限制长度的 Json 序列化
+ * <p>
+ * 序列化结果直接写入有上限的缓冲区, 达到上限后立即停止, 开销与输出长度成正比, 与对象本身的大小无关;
+ * 指定的字段(忽略大小写)输出为掩码。达到上限时返回截断后的内容。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class BoundedJson {
+
+    /** 掩码 */
+    public static final String MASK = "******";
+
+    /**
+     * 序列化(紧凑格式)
+     *
+     * @param obj           对象
+     * @param maxLength     最大长度, 小于等于 0 时不限制
+     * @param maskFields    输出为掩码的字段名, 通过 {@link #fields} 创建时忽略大小写, 可以为 null
+     * @return              Json 字符串, 超过最大长度时截断
+     */
+    public static String toJson(Object obj, int maxLength, Set<String> maskFields) {
+        return toJson(obj, maxLength, maskFields, org.nutz.json.JsonFormat.compact());
+    }
+
+    /**
+     * 序列化
+     *
+     * @param obj           对象
+     * @param maxLength     最大长度, 小于等于 0 时不限制
+     * @param maskFields    输出为掩码的字段名, 可以为 null
+     * @param format        格式
+     * @return              Json 字符串, 超过最大长度时截断
+     */
+    public static String toJson(Object obj, int maxLength, Set<String> maskFields, org.nutz.json.JsonFormat format) {
+        BoundedWriter writer = new BoundedWriter(maxLength);
+        try {
+            new MaskingRender(writer, format, maskFields == null ? Collections.emptySet() : maskFields).render(obj);
+        } catch (LimitReached e) {
+            // 已达到上限, 返回截断后的内容
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * 字段名集合(忽略大小写)
+     *
+     * @param names 字段名
+     * @return      忽略大小写的集合
+     */
+    public static Set<String> fields(Collection<String> names) {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        if (names != null) {
+            set.addAll(names);
+        }
+        return set;
+    }
+
+    /**
+     * 达到上限, 不记录调用栈
+     */
+    private static class LimitReached extends RuntimeException {
+
+        private static final LimitReached INSTANCE = new LimitReached();
+
+        private LimitReached() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 有上限的缓冲区
+     */
+    private static class BoundedWriter extends Writer {
+
+        private final StringBuilder sb;
+
+        private final int limit;
+
+        BoundedWriter(int limit) {
+            this.limit = limit > 0 ? limit : Integer.MAX_VALUE;
+            this.sb = new StringBuilder(limit > 0 ? Math.min(limit, 256) : 256);
+        }
+
+        @Override
+        public void write(int c) {
+            if (sb.length() >= limit) {
+                throw LimitReached.INSTANCE;
+            }
+            sb.append((char) c);
+        }
+
+        @Override
+        public void write(char[] buf, int off, int len) {
+            append(new String(buf, off, len));
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            append(str.substring(off, off + len));
+        }
+
+        @Override
+        public Writer append(CharSequence csq) {
+            String s = String.valueOf(csq);
+            int remain = limit - sb.length();
+            if (s.length() > remain) {
+                sb.append(s, 0, remain);
+                throw LimitReached.INSTANCE;
+            }
+            sb.append(s);
+            return this;
+        }
+
+        @Override
+        public Writer append(char c) {
+            write(c);
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /** 剩余可写入的长度 */
+        int remaining() {
+            return limit - sb.length();
+        }
+
+        @Override
+        public String toString() {
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 输出时把指定字段替换为掩码
+     */
+    private static class MaskingRender extends JsonRenderImpl {
+
+        private static final Field MEMO = memoField();
+
+        private final BoundedWriter writer;
+
+        private final Set<String> maskFields;
+
+        MaskingRender(BoundedWriter writer, org.nutz.json.JsonFormat format, Set<String> maskFields) {
+            super(writer, format);
+            this.writer = writer;
+            this.maskFields = maskFields;
+            identityMemo();
+        }
+
+        /**
+         * 循环引用检查改为按对象identity比较。
+         * 默认的 HashSet 会调用对象的 hashCode, 大集合或 Lombok 生成的 hashCode 需要遍历全部元素, 开销与对象大小成正比
+         */
+        private void identityMemo() {
+            if (MEMO != null) {
+                try {
+                    MEMO.set(this, Collections.newSetFromMap(new IdentityHashMap<>()));
+                } catch (IllegalAccessException e) {
+                    // 保持默认
+                }
+            }
+        }
+
+        @Override
+        public void string2Json(String s) throws IOException {
+            // 转义只会变长, 先截掉超出剩余长度的部分, 避免转义很长的字符串
+            int remaining = writer.remaining();
+            if (s != null && s.length() > remaining) {
+                s = s.substring(0, remaining + 1);
+            }
+            super.string2Json(s);
+        }
+
+        private static Field memoField() {
+            try {
+                Field field = JsonRenderImpl.class.getDeclaredField("memo");
+                field.setAccessible(true);
+                return field;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void appendPair(boolean needPairEnd, String name, Object value) throws IOException {
+            if (value != null && !maskFields.isEmpty() && maskFields.contains(name)) {
+                value = MASK;
+            }
+            super.appendPair(needPairEnd, name, value);
+        }
+    }
+}
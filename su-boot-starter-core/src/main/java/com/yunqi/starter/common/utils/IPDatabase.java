@@ -0,0 +1,354 @@
+package com.yunqi.starter.common.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地 IP 归属地库
+ * <p>
+ * 启动时把 IPv4 地址段读入按起始地址排序的 int 数组, 查询时二分查找, 不访问网络。
+ * 数据文件每行一个地址段, 支持两种格式:
+ * <pre>
+ * 1.0.1.0|1.0.3.255|中国|0|福建省|福州市|电信     (ip2region 原始数据格式, 0 表示空)
+ * 1.0.1.0,1.0.3.255,福建省福州市 电信             (起始地址,结束地址,归属地)
+ * </pre>
+ * 地址也可以是无符号整数, # 开头的行忽略。文件修改后可自动重新加载。
+ * 查询结果保存在无锁的缓存中, 数量达到上限后不再加入新的地址; 每次加载的数据使用独立的缓存, 与地址段一起替换。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class IPDatabase implements Closeable {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    private final String path;
+
+    private final int cacheSize;
+
+    private volatile Dataset dataset;
+
+    private volatile long lastModified;
+
+    private ScheduledExecutorService watcher;
+
+    /**
+     * @param path      数据文件路径, classpath: 开头时从类路径读取
+     * @param cacheSize 缓存大小, 小于等于 0 时不缓存
+     */
+    public IPDatabase(String path, int cacheSize) {
+        this.path = path;
+        this.cacheSize = cacheSize;
+        this.dataset = new Dataset(Ranges.EMPTY, cacheSize);
+    }
+
+    /**
+     * 加载数据文件
+     *
+     * @return  this
+     */
+    public IPDatabase load() throws IOException {
+        long beginTime = System.currentTimeMillis();
+        File file = file();
+        long modified = file == null ? 0 : file.lastModified();
+        Ranges loaded;
+        try (InputStream in = open(file)) {
+            loaded = Ranges.parse(in);
+        }
+        this.dataset = new Dataset(loaded, cacheSize);
+        this.lastModified = modified;
+        log.info("IP归属地库 -> 加载 {} 个地址段, {} 个归属地, 耗时 {}ms", loaded.size(), loaded.locations.length,
+                System.currentTimeMillis() - beginTime);
+        return this;
+    }
+
+    /**
+     * 文件修改后重新加载
+     *
+     * @return  true 已重新加载
+     */
+    public boolean reloadIfModified() {
+        File file = file();
+        if (file == null || !file.exists() || file.lastModified() == lastModified) {
+            return false;
+        }
+        try {
+            load();
+            return true;
+        } catch (Exception e) {
+            log.warn("IP归属地库 -> 重新加载失败, 继续使用已加载的数据: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 定期检查文件是否修改
+     *
+     * @param interval  检查间隔, 单位毫秒
+     * @return          this
+     */
+    public synchronized IPDatabase watch(long interval) {
+        if (interval > 0 && watcher == null && file() != null) {
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "su-ip-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, interval, interval, TimeUnit.MILLISECONDS);
+        }
+        return this;
+    }
+
+    /**
+     * 查询归属地
+     *
+     * @param ip    IPv4 地址
+     * @return      归属地, 未找到或不是 IPv4 地址时为空字符串
+     */
+    public String lookup(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return "";
+        }
+        // 同一次查询只读取一次, 重新加载后旧数据的结果不会写入新缓存
+        Dataset current = this.dataset;
+        if (current.cache != null) {
+            String location = current.cache.get(ip);
+            if (location != null) {
+                return location;
+            }
+        }
+        long value = parseIPv4(ip);
+        String location = value < 0 ? "" : current.ranges.find((int) value);
+        if (current.cache != null && current.cache.size() < cacheSize) {
+            current.cache.putIfAbsent(ip, location);
+        }
+        return location;
+    }
+
+    /** 已加载的地址段数量 */
+    public int size() {
+        return dataset.ranges.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    /**
+     * 数据文件, 类路径中的文件不在 jar 内时也可以重新加载
+     */
+    private File file() {
+        if (path.startsWith(CLASSPATH_PREFIX)) {
+            java.net.URL url = IPDatabase.class.getClassLoader().getResource(path.substring(CLASSPATH_PREFIX.length()).replaceFirst("^/", ""));
+            if (url == null || !"file".equals(url.getProtocol())) {
+                return null;
+            }
+            try {
+                return new File(url.toURI());
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return new File(path);
+    }
+
+    private InputStream open(File file) throws IOException {
+        if (file != null) {
+            return new FileInputStream(file);
+        }
+        InputStream in = IPDatabase.class.getClassLoader().getResourceAsStream(path.substring(CLASSPATH_PREFIX.length()).replaceFirst("^/", ""));
+        if (in == null) {
+            throw new FileNotFoundException(path);
+        }
+        return in;
+    }
+
+    /**
+     * 解析 IPv4 地址或无符号整数
+     *
+     * @param ip    地址
+     * @return      0 ~ 0xFFFFFFFF, 无法解析时为 -1
+     */
+    static long parseIPv4(String ip) {
+        if (ip.indexOf('.') < 0) {
+            // 无符号整数形式
+            try {
+                long number = Long.parseLong(ip);
+                return number >= 0 && number <= 0xFFFFFFFFL ? number : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        long value = 0;
+        int part = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                part = (part < 0 ? 0 : part * 10) + (c - '0');
+                if (part > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && part >= 0 && dots < 3) {
+                value = (value << 8) | part;
+                part = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        return dots == 3 && part >= 0 ? (value << 8) | part : -1;
+    }
+
+    /**
+     * 一次加载的地址段及其查询缓存
+     */
+    private static class Dataset {
+
+        private final Ranges ranges;
+
+        private final Map<String, String> cache;
+
+        Dataset(Ranges ranges, int cacheSize) {
+            this.ranges = ranges;
+            this.cache = cacheSize > 0 ? new ConcurrentHashMap<>() : null;
+        }
+    }
+
+    /**
+     * 按起始地址排序的地址段
+     * <p>
+     * 地址与 Integer.MIN_VALUE 异或后按有符号 int 比较, 与无符号地址的顺序一致
+     */
+    private static class Ranges {
+
+        static final Ranges EMPTY = new Ranges(new int[0], new int[0], new int[0], new String[0]);
+
+        private final int[] starts;
+
+        private final int[] ends;
+
+        /** 地址段对应的归属地下标 */
+        private final int[] indexes;
+
+        /** 去重后的归属地 */
+        private final String[] locations;
+
+        Ranges(int[] starts, int[] ends, int[] indexes, String[] locations) {
+            this.starts = starts;
+            this.ends = ends;
+            this.indexes = indexes;
+            this.locations = locations;
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        String find(int ip) {
+            int key = ip ^ Integer.MIN_VALUE;
+            int low = 0;
+            int high = starts.length - 1;
+            // 最后一个起始地址 <= ip 的地址段
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high >= 0 && key <= ends[high] ? locations[indexes[high]] : "";
+        }
+
+        static Ranges parse(InputStream in) throws IOException {
+            int capacity = 1 << 16;
+            int[] starts = new int[capacity];
+            int[] ends = new int[capacity];
+            int[] indexes = new int[capacity];
+            Map<String, Integer> locations = new HashMap<>();
+            List<String> locationList = new ArrayList<>();
+            int count = 0;
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                boolean pipe = line.indexOf('|') >= 0;
+                String[] fields = pipe ? line.split("\\|") : line.split(",", 3);
+                long start = fields.length > 1 ? parseIPv4(fields[0].trim()) : -1;
+                long end = fields.length > 1 ? parseIPv4(fields[1].trim()) : -1;
+                if (start < 0 || end < start) {
+                    log.warn("IP归属地库 -> 第 {} 行格式错误: {}", lineNumber, line);
+                    continue;
+                }
+                String location = location(fields, pipe);
+                Integer index = locations.get(location);
+                if (index == null) {
+                    index = locationList.size();
+                    locations.put(location, index);
+                    locationList.add(location);
+                }
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count << 1);
+                    ends = Arrays.copyOf(ends, count << 1);
+                    indexes = Arrays.copyOf(indexes, count << 1);
+                }
+                starts[count] = (int) start ^ Integer.MIN_VALUE;
+                ends[count] = (int) end ^ Integer.MIN_VALUE;
+                indexes[count] = index;
+                count++;
+            }
+
+            // 按起始地址排序: 高 32 位为起始地址, 低 32 位为原下标
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = ((long) starts[i] << 32) | i;
+            }
+            Arrays.sort(order);
+            int[] sortedStarts = new int[count];
+            int[] sortedEnds = new int[count];
+            int[] sortedIndexes = new int[count];
+            for (int i = 0; i < count; i++) {
+                int origin = (int) order[i];
+                sortedStarts[i] = starts[origin];
+                sortedEnds[i] = ends[origin];
+                sortedIndexes[i] = indexes[origin];
+            }
+            return new Ranges(sortedStarts, sortedEnds, sortedIndexes, locationList.toArray(new String[0]));
+        }
+
+        private static String location(String[] fields, boolean pipe) {
+            if (!pipe) {
+                return fields.length > 2 ? fields[2].trim() : "";
+            }
+            StringBuilder sb = new StringBuilder();
+            for (int i = 2; i < fields.length; i++) {
+                String field = fields[i].trim();
+                if (field.isEmpty() || "0".equals(field)) {
+                    continue;
+                }
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(field);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -10,6 +10,8 @@ import org.nutz.mvc.Mvcs;
 
 /**
  * 获取IP归属地工具类
+ * <p>
+ * 设置了本地 IP 归属地库时只查询本地库, 否则按 ONLINE 决定是否调用第三方接口
  * Created by @author CHQ on 2022/1/22
  */
 public class IPUtil {
@@ -19,6 +21,27 @@ public class IPUtil {
      */
     public static final String IP_WHOIS_URL = "https://whois.pconline.com.cn/ipJson.jsp?ip=%s&json=true";
 
+    /** 内网地址的归属地 */
+    public static final String INTRANET = "内网IP";
+
+    /** 没有本地库时是否调用第三方接口 */
+    public static boolean ONLINE = true;
+
+    /** 本地 IP 归属地库 */
+    private static volatile IPDatabase DATABASE;
+
+    /**
+     * 设置本地 IP 归属地库
+     * @param database 本地库, 为 null 时取消
+     */
+    public static void setDatabase(IPDatabase database) {
+        DATABASE = database;
+    }
+
+    public static IPDatabase getDatabase() {
+        return DATABASE;
+    }
+
     public static String getIPAddress(String ip){
         return getString(ip);
     }
@@ -29,12 +52,47 @@ public class IPUtil {
     }
 
     private static String getString(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return "";
+        }
+        if (isIntranet(ip)) {
+            return INTRANET;
+        }
+        IPDatabase database = DATABASE;
+        if (database != null) {
+            return database.lookup(ip);
+        }
+        if (!ONLINE) {
+            return "";
+        }
         // 第三方IP地址库有可能不稳定造成异常, 返回空值
-        Response resp = Http.get(String.format(IP_WHOIS_URL, ip));
-        if (resp.isOK()) {
-            NutMap map= Json.fromJson(NutMap.class, resp.getContent(Encoding.GBK));
-            return map.getString("addr");
+        try {
+            Response resp = Http.get(String.format(IP_WHOIS_URL, ip));
+            if (resp.isOK()) {
+                NutMap map= Json.fromJson(NutMap.class, resp.getContent(Encoding.GBK));
+                return map.getString("addr");
+            }
+        } catch (Exception e) {
+            return "";
         }
         return "";
     }
+
+    /**
+     * 是否内网地址(含本机地址)
+     * @param ip IP 地址
+     * @return true 内网地址
+     */
+    public static boolean isIntranet(String ip) {
+        if ("0:0:0:0:0:0:0:1".equals(ip) || "::1".equals(ip)) {
+            return true;
+        }
+        long value = IPDatabase.parseIPv4(ip);
+        if (value < 0 || ip.indexOf('.') < 0) {
+            return false;
+        }
+        int a = (int) (value >>> 24);
+        int b = (int) (value >>> 16) & 0xFF;
+        return a == 10 || a == 127 || (a == 172 && b >= 16 && b <= 31) || (a == 192 && b == 168);
+    }
 }
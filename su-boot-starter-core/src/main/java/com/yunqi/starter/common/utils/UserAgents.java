@@ -0,0 +1,115 @@
+package com.yunqi.starter.common.utils;
+
+import cn.hutool.http.useragent.UserAgent;
+import cn.hutool.http.useragent.UserAgentUtil;
+import lombok.Getter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * User-Agent 解析缓存
+ * <p>
+ * UserAgentUtil.parse 需要逐个匹配正则, 而实际请求中不同的 User-Agent 通常只有几百个,
+ * 因此按原始字符串缓存解析出的浏览器和操作系统。缓存数量达到上限后不再加入新的 User-Agent,
+ * 已缓存的常见 User-Agent 不会被偶发的异常值挤出。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class UserAgents {
+
+    /** 最多缓存的 User-Agent 数量 */
+    public static int MAX_SIZE = 2048;
+
+    /** 超过该长度的 User-Agent 不缓存 */
+    public static int MAX_LENGTH = 512;
+
+    private static final Terminal UNKNOWN = new Terminal("", "", false);
+
+    private static final ConcurrentHashMap<String, Terminal> CACHE = new ConcurrentHashMap<>();
+
+    private static final LongAdder HITS = new LongAdder();
+
+    private static final LongAdder MISSES = new LongAdder();
+
+    /**
+     * 解析 User-Agent
+     *
+     * @param userAgent User-Agent 字符串
+     * @return          终端信息, User-Agent 为空时各项为空字符串
+     */
+    public static Terminal parse(String userAgent) {
+        if (userAgent == null || userAgent.trim().isEmpty()) {
+            return UNKNOWN;
+        }
+        Terminal terminal = CACHE.get(userAgent);
+        if (terminal != null) {
+            HITS.increment();
+            return terminal;
+        }
+        MISSES.increment();
+        terminal = Terminal.of(UserAgentUtil.parse(userAgent));
+        if (userAgent.length() <= MAX_LENGTH && CACHE.size() < MAX_SIZE) {
+            CACHE.putIfAbsent(userAgent, terminal);
+        }
+        return terminal;
+    }
+
+    /** 命中次数 */
+    public static long hits() {
+        return HITS.sum();
+    }
+
+    /** 未命中次数 */
+    public static long misses() {
+        return MISSES.sum();
+    }
+
+    /** 命中率 */
+    public static double hitRate() {
+        long hits = hits();
+        long total = hits + misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /** 已缓存的 User-Agent 数量 */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * 终端信息
+     */
+    @Getter
+    public static class Terminal {
+
+        /** 浏览器, 格式: 名称_版本 */
+        private final String browser;
+
+        /** 操作系统, 格式: 名称_版本 */
+        private final String os;
+
+        /** 是否移动端 */
+        private final boolean mobile;
+
+        Terminal(String browser, String os, boolean mobile) {
+            this.browser = browser;
+            this.os = os;
+            this.mobile = mobile;
+        }
+
+        static Terminal of(UserAgent ua) {
+            if (ua == null) {
+                return UNKNOWN;
+            }
+            return new Terminal(ua.getBrowser().getName() + "_" + ua.getVersion(),
+                    ua.getPlatform().getName() + "_" + ua.getOsVersion(), ua.isMobile());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.yunqi.starter.common.json;
+
+import org.junit.jupiter.api.Test;
+import org.nutz.json.Json;
+import org.nutz.json.JsonFormat;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 限长序列化与 Nutz 输出一致、截断位置准确、达到上限后不再遍历对象以及字段掩码
+ * Created by @author CHQ on 2026/10/19
+ */
+class BoundedJsonTest {
+
+    @Test
+    void sameAsNutzWithinLimit() {
+        Map<String, Object> obj = sample();
+        String expected = Json.toJson(obj, JsonFormat.compact());
+        assertEquals(expected, BoundedJson.toJson(obj, 0, null));
+        assertEquals(expected, BoundedJson.toJson(obj, expected.length(), null));
+    }
+
+    @Test
+    void truncatesToPrefixOfFullOutput() {
+        Map<String, Object> obj = sample();
+        String expected = Json.toJson(obj, JsonFormat.compact());
+        for (int limit = 1; limit < expected.length(); limit++) {
+            assertEquals(expected.substring(0, limit), BoundedJson.toJson(obj, limit, null), "limit " + limit);
+        }
+    }
+
+    @Test
+    void stopsIteratingWhenLimitReached() {
+        int[] visited = {0};
+        List<Integer> huge = new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                visited[0]++;
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return 10_000_000;
+            }
+        };
+        String json = BoundedJson.toJson(huge, 64, null);
+        assertEquals(64, json.length());
+        assertTrue(visited[0] < 100, "visited " + visited[0]);
+    }
+
+    @Test
+    void truncatesLongStringBeforeEscaping() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            sb.append("\"\n");
+        }
+        String json = BoundedJson.toJson(Collections.singletonMap("text", sb.toString()), 32, null);
+        assertEquals(32, json.length());
+        assertTrue(json.startsWith("{\"text\":\"\\\"\\n"), json);
+    }
+
+    @Test
+    void masksFieldsIgnoringCase() {
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("Token", "abc");
+        nested.put("name", "n");
+        Map<String, Object> obj = new LinkedHashMap<>();
+        obj.put("password", "secret");
+        obj.put("user", nested);
+        obj.put("empty", null);
+        String json = BoundedJson.toJson(obj, 0, BoundedJson.fields(Arrays.asList("PASSWORD", "token", "empty")));
+        assertEquals("{\"password\":\"" + BoundedJson.MASK + "\",\"user\":{\"Token\":\"" + BoundedJson.MASK
+                + "\",\"name\":\"n\"}}", json);
+    }
+
+    @Test
+    void doesNotCallHashCodeOfRenderedObjects() {
+        // 循环引用检查按 identity 比较, 不调用对象的 hashCode
+        Bean bean = new Bean();
+        bean.name = "bean";
+        String json = BoundedJson.toJson(Arrays.asList(bean, bean), 0, null);
+        assertEquals(2, json.split("\"bean\"", -1).length - 1, json);
+    }
+
+    private static Map<String, Object> sample() {
+        Map<String, Object> obj = new LinkedHashMap<>();
+        obj.put("id", 42);
+        obj.put("name", "名称 \"quoted\"\n");
+        obj.put("tags", Arrays.asList("a", "b", "c"));
+        obj.put("ratio", 0.5);
+        obj.put("enabled", true);
+        obj.put("child", Collections.singletonMap("key", "value"));
+        return obj;
+    }
+
+    public static class Bean {
+
+        public String name;
+
+        @Override
+        public int hashCode() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.yunqi.starter.common.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 地址段解析、二分查找的边界以及高位地址的无符号比较
+ * Created by @author CHQ on 2026/10/19
+ */
+class IPDatabaseTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesAddressesAndUnsignedIntegers() {
+        assertEquals(0L, IPDatabase.parseIPv4("0.0.0.0"));
+        assertEquals(0x01000100L, IPDatabase.parseIPv4("1.0.1.0"));
+        assertEquals(0xFFFFFFFFL, IPDatabase.parseIPv4("255.255.255.255"));
+        assertEquals(0xFFFFFFFFL, IPDatabase.parseIPv4("4294967295"));
+        assertEquals(-1, IPDatabase.parseIPv4("4294967296"));
+        assertEquals(-1, IPDatabase.parseIPv4("256.0.0.1"));
+        assertEquals(-1, IPDatabase.parseIPv4("1.2.3"));
+        assertEquals(-1, IPDatabase.parseIPv4("1.2.3.4.5"));
+        assertEquals(-1, IPDatabase.parseIPv4("1..2.3"));
+        assertEquals(-1, IPDatabase.parseIPv4("::1"));
+    }
+
+    @Test
+    void findsRangeBoundariesInBothFormats() throws IOException {
+        IPDatabase db = load(
+                "# 注释行",
+                "1.0.1.0|1.0.3.255|中国|0|福建省|福州市|电信",
+                "10.0.0.0,10.255.255.255,内网IP",
+                "16843008,16843263,澳大利亚",
+                "bad line");
+        assertEquals(3, db.size());
+        assertEquals("中国 福建省 福州市 电信", db.lookup("1.0.1.0"));
+        assertEquals("中国 福建省 福州市 电信", db.lookup("1.0.3.255"));
+        assertEquals("", db.lookup("1.0.0.255"));
+        assertEquals("", db.lookup("1.0.4.0"));
+        assertEquals("澳大利亚", db.lookup("1.1.1.1"));
+        assertEquals("内网IP", db.lookup("10.1.2.3"));
+        assertEquals("", db.lookup("0.0.0.0"));
+        assertEquals("", db.lookup("localhost"));
+        assertEquals("", db.lookup(null));
+    }
+
+    @Test
+    void comparesHighAddressesAsUnsigned() throws IOException {
+        // 乱序写入, 128.0.0.0 以上的地址按有符号 int 比较会排在前面
+        IPDatabase db = load(
+                "224.0.0.0,239.255.255.255,组播",
+                "1.0.0.0,1.255.255.255,低位",
+                "127.0.0.0,127.255.255.255,回环",
+                "128.0.0.0,128.0.0.255,高位",
+                "255.255.255.0,255.255.255.255,末段");
+        assertEquals("低位", db.lookup("1.2.3.4"));
+        assertEquals("回环", db.lookup("127.255.255.255"));
+        assertEquals("高位", db.lookup("128.0.0.0"));
+        assertEquals("", db.lookup("128.0.1.0"));
+        assertEquals("组播", db.lookup("239.1.1.1"));
+        assertEquals("末段", db.lookup("255.255.255.255"));
+        assertEquals("", db.lookup("255.255.254.255"));
+    }
+
+    @Test
+    void matchesLinearScan() throws IOException {
+        String[] lines = new String[2000];
+        long[][] ranges = new long[lines.length][];
+        for (int i = 0; i < lines.length; i++) {
+            // 每段 1024 个地址, 段之间留出 1024 个地址的空隙, 跨过 128.0.0.0
+            long start = 0x7FF00000L + (long) i * 2048;
+            long end = start + 1023;
+            ranges[i] = new long[]{start, end, i % 7};
+            lines[i] = start + "," + end + ",地区" + (i % 7);
+        }
+        IPDatabase db = load(lines);
+        assertEquals(lines.length, db.size());
+        for (long ip = 0x7FF00000L - 10; ip < 0x7FF00000L + lines.length * 2048L + 10; ip += 97) {
+            String expected = "";
+            for (long[] range : ranges) {
+                if (ip >= range[0] && ip <= range[1]) {
+                    expected = "地区" + range[2];
+                    break;
+                }
+            }
+            assertEquals(expected, db.lookup(Long.toString(ip)), "ip " + ip);
+        }
+    }
+
+    @Test
+    void reloadsModifiedFileAndClearsCache() throws IOException {
+        Path file = dir.resolve("ip.txt");
+        Files.write(file, Arrays.asList("1.0.0.0,1.0.0.255,旧"), StandardCharsets.UTF_8);
+        IPDatabase db = new IPDatabase(file.toString(), 16).load();
+        assertEquals("旧", db.lookup("1.0.0.1"));
+        assertFalse(db.reloadIfModified());
+
+        Files.write(file, Arrays.asList("1.0.0.0,1.0.0.255,新"), StandardCharsets.UTF_8);
+        assertTrue(file.toFile().setLastModified(file.toFile().lastModified() + 2000));
+        assertTrue(db.reloadIfModified());
+        assertEquals("新", db.lookup("1.0.0.1"));
+    }
+
+    @Test
+    void answersBeyondCacheSize() throws IOException {
+        Path file = dir.resolve("cached.txt");
+        Files.write(file, Arrays.asList("1.0.0.0,1.0.0.255,甲", "2.0.0.0,2.0.0.255,乙"), StandardCharsets.UTF_8);
+        IPDatabase db = new IPDatabase(file.toString(), 2).load();
+        // 缓存已满后的地址不再缓存, 仍然查询地址段
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 10; i++) {
+                assertEquals("甲", db.lookup("1.0.0." + i));
+                assertEquals("乙", db.lookup("2.0.0." + i));
+                assertEquals("", db.lookup("3.0.0." + i));
+            }
+        }
+    }
+
+    private IPDatabase load(String... lines) throws IOException {
+        Path file = Files.createTempFile(dir, "ip", ".txt");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return new IPDatabase(file.toString(), 0).load();
+    }
+}
@@ -0,0 +1,31 @@
+package com.yunqi.starter.database.archive;
+
+import java.lang.annotation.*;
+
+/**
+ * 伪删除数据归档实体
+ * <p>
+ * 标记后由 {@link SoftDeleteArchiver} 定期把 delFlag=true 且超过保留期的行移到归档表或直接删除,
+ * 未设置的属性使用 su.database.archive 下的全局配置。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Archive {
+
+    /**
+     * 保留天数, 小于 0 时使用全局配置
+     */
+    int retentionDays() default -1;
+
+    /**
+     * 处理方式
+     */
+    ArchiveMode mode() default ArchiveMode.DEFAULT;
+
+    /**
+     * 归档表名, 为空时使用 表名 + 全局后缀
+     */
+    String table() default "";
+}
@@ -0,0 +1,17 @@
+package com.yunqi.starter.database.archive;
+
+/**
+ * 伪删除数据的处理方式
+ * Created by @author CHQ on 2026/10/19
+ */
+public enum ArchiveMode {
+
+    /** 使用全局配置 */
+    DEFAULT,
+
+    /** 移到归档表 */
+    ARCHIVE,
+
+    /** 直接删除 */
+    DELETE
+}
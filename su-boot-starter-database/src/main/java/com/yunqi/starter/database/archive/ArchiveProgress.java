@@ -0,0 +1,88 @@
+package com.yunqi.starter.database.archive;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单个实体的归档进度
+ * Created by @author CHQ on 2026/10/19
+ */
+@Getter
+public class ArchiveProgress {
+
+    /** 实体类名 */
+    private final String entityClass;
+
+    /** 表名 */
+    private final String tableName;
+
+    /** 归档表名, 直接删除时为 null */
+    private final String archiveTable;
+
+    /** 处理方式 */
+    private final ArchiveMode mode;
+
+    /** 保留天数 */
+    private final int retentionDays;
+
+    /** 累计处理行数 */
+    private final AtomicLong totalRows = new AtomicLong();
+
+    /** 累计处理块数 */
+    private final AtomicLong totalChunks = new AtomicLong();
+
+    /** 累计失败次数 */
+    private final AtomicLong failures = new AtomicLong();
+
+    /** 是否正在执行 */
+    private volatile boolean running;
+
+    /** 本次(或最近一次)已处理行数 */
+    private volatile long rows;
+
+    /** 本次(或最近一次)已处理到的主键 */
+    private volatile Object position;
+
+    /** 最近一次开始时间 */
+    private volatile long lastStartAt;
+
+    /** 最近一次耗时(毫秒) */
+    private volatile long lastCost;
+
+    /** 最近一次错误信息 */
+    private volatile String lastError;
+
+    ArchiveProgress(String entityClass, String tableName, String archiveTable, ArchiveMode mode, int retentionDays) {
+        this.entityClass = entityClass;
+        this.tableName = tableName;
+        this.archiveTable = archiveTable;
+        this.mode = mode;
+        this.retentionDays = retentionDays;
+    }
+
+    void start() {
+        this.running = true;
+        this.rows = 0;
+        this.position = null;
+        this.lastError = null;
+        this.lastStartAt = System.currentTimeMillis();
+    }
+
+    void chunk(int rows, Object position) {
+        this.rows += rows;
+        this.position = position;
+        this.totalRows.addAndGet(rows);
+        this.totalChunks.incrementAndGet();
+    }
+
+    void fail(Throwable e) {
+        this.failures.incrementAndGet();
+        this.lastError = e.toString();
+    }
+
+    void finish() {
+        this.lastCost = System.currentTimeMillis() - lastStartAt;
+        this.running = false;
+    }
+}
@@ -0,0 +1,378 @@
+package com.yunqi.starter.database.archive;
+
+import com.yunqi.starter.common.lang.Strings;
+import com.yunqi.starter.database.configuration.DataBaseProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.nutz.dao.Cnd;
+import org.nutz.dao.Dao;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.entity.MappingField;
+import org.nutz.dao.sql.Sql;
+import org.nutz.resource.Scans;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 伪删除数据归档
+ * <p>
+ * 按主键顺序以小块方式处理 delFlag=true 且删除时间早于保留期的行: 先写入归档表再从原表删除(或直接删除),
+ * 每块在独立的短事务中执行, 块与块之间暂停一段时间, 避免长时间持有锁和占满数据库资源。
+ * 删除时间以 timeField(默认 updatedAt)为准, 开启归档后伪删除时会同时更新该字段, 字段类型可以是 Long、Date、Timestamp、LocalDateTime 或 Instant。
+ * 归档时按实体映射的字段逐列复制, 原表新增字段后归档表会自动补充对应的列。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class SoftDeleteArchiver {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /** 伪删除时记录删除时间的字段, 未开启归档时为 null */
+    public static String TIME_FIELD;
+
+    private final Dao dao;
+
+    private final DataBaseProperties.Archive config;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Class<?>, ArchiveProgress> entities = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile boolean stopped;
+
+    /**
+     * @param dao                   Dao
+     * @param config                归档配置
+     * @param transactionManager    事务管理器, 为 null 时每块以自动提交执行
+     */
+    public SoftDeleteArchiver(Dao dao, DataBaseProperties.Archive config, PlatformTransactionManager transactionManager) {
+        this.dao = dao;
+        this.config = config;
+        if (transactionManager != null) {
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+            this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } else {
+            this.transactionTemplate = null;
+        }
+    }
+
+    /**
+     * 扫描实体包, 注册带有 @Archive 注解的实体
+     *
+     * @param packages 实体包名
+     */
+    public void scan(String... packages) {
+        if (packages == null) {
+            return;
+        }
+        for (String pkg : packages) {
+            for (Class<?> klass : Scans.me().scanPackage(pkg)) {
+                if (klass.getAnnotation(Archive.class) != null) {
+                    register(klass);
+                }
+            }
+        }
+    }
+
+    /**
+     * 注册需要归档的实体
+     *
+     * @param klass 实体类
+     * @return      是否注册成功(实体缺少主键、delFlag 或删除时间字段, 删除时间字段类型不支持, 以及动态表名的实体不能归档)
+     */
+    public boolean register(Class<?> klass) {
+        Entity<?> en = dao.getEntity(klass);
+        MappingField timeField = en.getField(config.getTimeField());
+        if (primaryKey(en) == null || en.getField("delFlag") == null || timeField == null
+                || timeValue(timeField.getTypeClass(), 0) == null || en.getTableName().contains("$")) {
+            log.warn("伪删除数据归档 -> 实体 {} 缺少单一主键、delFlag 或 {} 字段(类型需为 Long、Date、Timestamp、LocalDateTime 或 Instant), 或者表名是动态的, 忽略",
+                    klass.getName(), config.getTimeField());
+            return false;
+        }
+
+        Archive archive = klass.getAnnotation(Archive.class);
+        int retentionDays = archive != null && archive.retentionDays() >= 0 ? archive.retentionDays() : config.getRetentionDays();
+        ArchiveMode mode = archive != null && archive.mode() != ArchiveMode.DEFAULT ? archive.mode() : config.getMode();
+        if (mode == null || mode == ArchiveMode.DEFAULT) {
+            mode = ArchiveMode.ARCHIVE;
+        }
+        String archiveTable = null;
+        if (mode == ArchiveMode.ARCHIVE) {
+            archiveTable = archive != null && Strings.isNotBlank(archive.table()) ? archive.table() : en.getTableName() + config.getSuffix();
+        }
+        entities.put(klass, new ArchiveProgress(klass.getName(), en.getTableName(), archiveTable, mode, retentionDays));
+        return true;
+    }
+
+    /**
+     * 处理所有已注册的实体, 上一次执行未结束时直接返回
+     *
+     * @return 各实体的进度
+     */
+    public List<ArchiveProgress> run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("伪删除数据归档 -> 上一次执行尚未结束, 跳过");
+            return Collections.emptyList();
+        }
+        try {
+            List<ArchiveProgress> result = new ArrayList<>(entities.size());
+            for (Class<?> klass : entities.keySet()) {
+                if (stopped) {
+                    break;
+                }
+                result.add(archive(klass));
+            }
+            return result;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 处理单个实体
+     *
+     * @param klass 实体类
+     * @return      进度
+     */
+    public ArchiveProgress archive(Class<?> klass) {
+        if (!entities.containsKey(klass) && !register(klass)) {
+            throw new IllegalArgumentException("实体 " + klass.getName() + " 不能归档");
+        }
+        ArchiveProgress progress = entities.get(klass);
+
+        Entity<?> en = dao.getEntity(klass);
+        MappingField pk = primaryKey(en);
+        Object before = timeValue(en.getField(config.getTimeField()).getTypeClass(),
+                System.currentTimeMillis() - progress.getRetentionDays() * DAY);
+        int chunkSize = Math.max(1, config.getChunkSize());
+
+        progress.start();
+        try {
+            String columns = progress.getMode() == ArchiveMode.ARCHIVE ? prepareArchiveTable(en, pk, progress.getArchiveTable()) : null;
+            Object last = null;
+            while (!stopped) {
+                List<Object> ids = nextChunk(en, pk, before, last, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                int rows = inTransaction(() -> process(en, pk, ids, before, progress, columns));
+                last = ids.get(ids.size() - 1);
+                progress.chunk(rows, last);
+                if (ids.size() < chunkSize || !pause()) {
+                    break;
+                }
+            }
+            if (progress.getRows() > 0) {
+                log.info("伪删除数据归档 -> {} {} {} 行", progress.getTableName(),
+                        progress.getMode() == ArchiveMode.ARCHIVE ? "归档到 " + progress.getArchiveTable() : "删除", progress.getRows());
+            }
+        } catch (Exception e) {
+            progress.fail(e);
+            log.warn("伪删除数据归档 -> {} 处理失败, 已处理 {} 行", progress.getTableName(), progress.getRows(), e);
+        } finally {
+            progress.finish();
+        }
+        return progress;
+    }
+
+    /**
+     * 各实体的进度
+     *
+     * @return 进度列表
+     */
+    public Collection<ArchiveProgress> progress() {
+        return Collections.unmodifiableCollection(entities.values());
+    }
+
+    /**
+     * 是否正在执行
+     *
+     * @return true 正在执行
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 停止, 正在处理的块完成后退出
+     */
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * 按主键顺序读取下一块待处理行的主键
+     */
+    private List<Object> nextChunk(Entity<?> en, MappingField pk, Object before, Object last, int chunkSize) {
+        Cnd cnd = Cnd.where("delFlag", "=", true).and(config.getTimeField(), "<", before);
+        if (last != null) {
+            cnd.and(pk.getName(), ">", last);
+        }
+        cnd.asc(pk.getName());
+        Sql sql = Sqls.create("SELECT " + pk.getColumnNameInSql() + " FROM " + en.getTableName() + " $condition");
+        sql.setCondition(cnd);
+        sql.setEntity(en);
+        sql.setPager(dao.createPager(1, chunkSize));
+        sql.setCallback((conn, rs, s) -> {
+            List<Object> ids = new ArrayList<>(chunkSize);
+            while (rs.next() && ids.size() < chunkSize) {
+                ids.add(rs.getObject(1));
+            }
+            return ids;
+        });
+        dao.execute(sql);
+        return sql.getList(Object.class);
+    }
+
+    /**
+     * 处理一块: 写入归档表后删除原表数据, 两者行数不一致(期间有行被恢复)时回滚
+     */
+    private int process(Entity<?> en, MappingField pk, List<Object> ids, Object before, ArchiveProgress progress, String columns) {
+        Cnd cnd = Cnd.where(pk.getName(), "in", ids).and("delFlag", "=", true).and(config.getTimeField(), "<", before);
+        if (progress.getMode() == ArchiveMode.DELETE) {
+            return dao.clear(en.getType(), cnd);
+        }
+        Sql sql = Sqls.create("INSERT INTO " + progress.getArchiveTable() + " (" + columns + ") SELECT " + columns + " FROM " + en.getTableName() + " $condition");
+        sql.setCondition(cnd);
+        sql.setEntity(en);
+        dao.execute(sql);
+        int archived = sql.getUpdateCount();
+        int deleted = dao.clear(en.getType(), cnd);
+        if (archived != deleted) {
+            throw new IllegalStateException("归档 " + archived + " 行, 删除 " + deleted + " 行, 数据在处理期间发生变化");
+        }
+        return deleted;
+    }
+
+    /**
+     * 准备归档表: 不存在时按原表结构创建, 原表新增的字段在归档表中补充对应的列
+     *
+     * @return 需要复制的列, 即实体映射且原表中存在的字段
+     */
+    private String prepareArchiveTable(Entity<?> en, MappingField pk, String archiveTable) {
+        String table = en.getTableName();
+        Set<String> sourceColumns = columns(table);
+        List<MappingField> fields = new ArrayList<>();
+        for (MappingField mf : en.getMappingFields()) {
+            if (sourceColumns.contains(mf.getColumnName().toLowerCase(Locale.ROOT))) {
+                fields.add(mf);
+            }
+        }
+
+        if (!dao.exists(archiveTable)) {
+            if (dao.meta().isMySql()) {
+                dao.execute(Sqls.create("CREATE TABLE " + archiveTable + " LIKE " + table));
+            } else {
+                // 按实体字段建表并保留主键, CREATE TABLE ... AS SELECT 不会复制主键
+                StringBuilder sb = new StringBuilder("CREATE TABLE ").append(archiveTable).append(" (");
+                for (MappingField mf : fields) {
+                    sb.append(mf.getColumnNameInSql()).append(" ").append(dao.getJdbcExpert().evalFieldType(mf));
+                    sb.append(mf == pk ? " NOT NULL, " : ", ");
+                }
+                sb.append("PRIMARY KEY (").append(pk.getColumnNameInSql()).append("))");
+                dao.execute(Sqls.create(sb.toString()));
+            }
+            log.info("伪删除数据归档 -> 创建归档表 {}", archiveTable);
+        }
+
+        Set<String> archiveColumns = columns(archiveTable);
+        StringBuilder columns = new StringBuilder();
+        for (MappingField mf : fields) {
+            if (!archiveColumns.contains(mf.getColumnName().toLowerCase(Locale.ROOT))) {
+                // 归档表的新增列允许为空, 已归档的行没有该字段的值
+                dao.execute(Sqls.create("ALTER TABLE " + archiveTable + " ADD " + mf.getColumnNameInSql() + " " + dao.getJdbcExpert().evalFieldType(mf)));
+                log.info("伪删除数据归档 -> 归档表 {} 新增列 {}", archiveTable, mf.getColumnName());
+            }
+            if (columns.length() > 0) {
+                columns.append(", ");
+            }
+            columns.append(mf.getColumnNameInSql());
+        }
+        return columns.toString();
+    }
+
+    /**
+     * 读取表的列名(小写)
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> columns(String table) {
+        Sql sql = Sqls.create("SELECT * FROM " + table + " WHERE 1 != 1");
+        sql.setCallback((conn, rs, s) -> {
+            ResultSetMetaData meta = rs.getMetaData();
+            Set<String> names = new HashSet<>();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                names.add(meta.getColumnName(i).toLowerCase(Locale.ROOT));
+            }
+            return names;
+        });
+        dao.execute(sql);
+        return (Set<String>) sql.getResult();
+    }
+
+    private int inTransaction(Supplier<Integer> supplier) {
+        if (transactionTemplate == null) {
+            return supplier.get();
+        }
+        Integer rows = transactionTemplate.execute(status -> supplier.get());
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * 块与块之间暂停, 线程被中断时返回 false
+     */
+    private boolean pause() {
+        if (config.getPause() <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(config.getPause());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 按字段类型转换删除时间
+     *
+     * @param type      字段类型
+     * @param millis    时间戳
+     * @return          字段值, 类型不支持时为 null
+     */
+    public static Object timeValue(Class<?> type, long millis) {
+        if (type == Long.class || type == long.class) {
+            return millis;
+        }
+        if (type == Timestamp.class) {
+            return new Timestamp(millis);
+        }
+        if (type == Date.class) {
+            return new Date(millis);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+        }
+        if (type == Instant.class) {
+            return Instant.ofEpochMilli(millis);
+        }
+        return null;
+    }
+
+    private static MappingField primaryKey(Entity<?> en) {
+        return en.getIdField() != null ? en.getIdField() : en.getNameField();
+    }
+}
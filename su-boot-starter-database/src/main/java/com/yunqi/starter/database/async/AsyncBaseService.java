@@ -0,0 +1,129 @@
+package com.yunqi.starter.database.async;
+
+import com.yunqi.starter.common.page.Pagination;
+import com.yunqi.starter.database.service.BaseService;
+import org.nutz.dao.Condition;
+import org.nutz.dao.pager.Pager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * BaseService 的异步版本
+ * <p>
+ * 用于聚合接口中多个相互独立的查询并行执行, 例如:
+ * <pre>
+ *     CompletableFuture&lt;Integer&gt; count = userService.async().count(cnd);
+ *     CompletableFuture&lt;List&lt;Role&gt;&gt; roles = roleService.async().query(roleCnd);
+ *     CompletableFuture.allOf(count, roles).join();
+ * </pre>
+ * 每个查询使用独立的连接执行, 不参与调用线程的事务。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class AsyncBaseService<T> {
+
+    private final BaseService<T> service;
+
+    private final AsyncDaoExecutor executor;
+
+    public AsyncBaseService(BaseService<T> service, AsyncDaoExecutor executor) {
+        this.service = service;
+        this.executor = executor;
+    }
+
+    /**
+     * 根据ID查询
+     *
+     * @param id    ID
+     * @return      对象
+     */
+    public CompletableFuture<T> fetch(long id) {
+        return executor.supply(() -> service.fetch(id));
+    }
+
+    /**
+     * 根据ID查询
+     *
+     * @param id    ID
+     * @return      对象
+     */
+    public CompletableFuture<T> fetch(String id) {
+        return executor.supply(() -> service.fetch(id));
+    }
+
+    /**
+     * 根据条件查询单个对象
+     *
+     * @param cnd   查询条件
+     * @return      对象
+     */
+    public CompletableFuture<T> fetch(Condition cnd) {
+        return executor.supply(() -> service.fetch(cnd));
+    }
+
+    /**
+     * 查询一组对象
+     *
+     * @param cnd   查询条件
+     * @return      对象列表
+     */
+    public CompletableFuture<List<T>> query(Condition cnd) {
+        return executor.supply(() -> service.query(cnd));
+    }
+
+    /**
+     * 分页查询
+     *
+     * @param cnd   查询条件
+     * @param pager 分页对象
+     * @return      对象列表
+     */
+    public CompletableFuture<List<T>> query(Condition cnd, Pager pager) {
+        return executor.supply(() -> service.query(cnd, pager));
+    }
+
+    /**
+     * 统计对象表条数
+     *
+     * @return      数量
+     */
+    public CompletableFuture<Integer> count() {
+        return executor.supply(service::count);
+    }
+
+    /**
+     * 统计符合条件的对象表条数
+     *
+     * @param cnd   查询条件
+     * @return      数量
+     */
+    public CompletableFuture<Integer> count(Condition cnd) {
+        return executor.supply(() -> service.count(cnd));
+    }
+
+    /**
+     * 分页查询, 列表与总数并行查询
+     *
+     * @param page      页码
+     * @param pageSize  页面大小
+     * @param cnd       查询条件
+     * @return          分页对象列表
+     */
+    public CompletableFuture<Pagination<T>> listPage(int page, int pageSize, Condition cnd) {
+        CompletableFuture<List<T>> list = this.query(cnd, new Pager(page, pageSize));
+        CompletableFuture<Integer> total = this.count(cnd);
+        return list.thenCombine(total, (l, t) -> Pagination.<T> build(page, pageSize).list(l).totalCount(t));
+    }
+
+    /**
+     * 异步执行任意查询
+     *
+     * @param function  查询
+     * @param <R>       结果类型
+     * @return          结果
+     */
+    public <R> CompletableFuture<R> supply(Function<BaseService<T>, R> function) {
+        return executor.supply(() -> function.apply(service));
+    }
+}
@@ -0,0 +1,166 @@
+package com.yunqi.starter.database.async;
+
+import com.yunqi.starter.common.utils.TraceIdUtil;
+import com.yunqi.starter.database.audit.AuditContext;
+import com.yunqi.starter.database.audit.AuditUser;
+import com.yunqi.starter.jdbc.dynamic.DataSourceContextHolder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 异步查询执行器
+ * <p>
+ * 有界线程池(或 JDK 21 的虚拟线程 + 并发信号量), 并发数与连接池大小一致, 队列满时由调用线程执行。
+ * 提交任务时复制 MDC(链路ID)、请求上下文(Sa-Token 登录信息)、操作用户作用域和当前数据源, 任务结束后清理。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class AsyncDaoExecutor implements Executor {
+
+    private static final boolean WEB_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.context.request.RequestContextHolder", AsyncDaoExecutor.class.getClassLoader());
+
+    private final ExecutorService executor;
+
+    /** 虚拟线程时用于限制并发数 */
+    private final Semaphore permits;
+
+    /**
+     * @param threads       最大并发数
+     * @param queueCapacity 队列容量(虚拟线程时无效)
+     * @param virtual       是否使用虚拟线程(需要 JDK 21, 不支持时退回到线程池)
+     */
+    public AsyncDaoExecutor(int threads, int queueCapacity, boolean virtual) {
+        threads = Math.max(1, threads);
+        ExecutorService virtualExecutor = virtual ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.permits = new Semaphore(threads);
+        } else {
+            AtomicInteger index = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                    r -> {
+                        Thread thread = new Thread(r, "su-db-async-" + index.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.allowCoreThreadTimeOut(true);
+            this.executor = pool;
+            this.permits = null;
+        }
+    }
+
+    /**
+     * 异步执行
+     *
+     * @param supplier  任务
+     * @param <R>       结果类型
+     * @return          结果
+     */
+    public <R> CompletableFuture<R> supply(Supplier<R> supplier) {
+        return CompletableFuture.supplyAsync(supplier, this);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Runnable task = wrap(command);
+        if (permits == null) {
+            executor.execute(task);
+            return;
+        }
+        executor.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    /**
+     * 关闭执行器
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 复制调用线程的上下文
+     */
+    private static Runnable wrap(Runnable runnable) {
+        Map<String, String> context = TraceIdUtil.getCopyOfContextMap();
+        Object attributes = WEB_PRESENT ? RequestContexts.get() : null;
+        AuditUser auditUser = AuditContext.scoped();
+        String dataSourceName = DataSourceContextHolder.peek();
+        Thread caller = Thread.currentThread();
+        return () -> {
+            // 队列满时由调用线程执行, 上下文本来就在, 不需要复制和清理
+            if (Thread.currentThread() == caller) {
+                runnable.run();
+                return;
+            }
+            if (context != null) {
+                TraceIdUtil.setContextMap(context);
+            }
+            if (attributes != null) {
+                RequestContexts.set(attributes);
+            }
+            AuditContext.set(auditUser);
+            if (dataSourceName != null) {
+                DataSourceContextHolder.push(dataSourceName);
+            }
+            try {
+                runnable.run();
+            } finally {
+                TraceIdUtil.clear();
+                AuditContext.set(null);
+                DataSourceContextHolder.clear();
+                if (attributes != null) {
+                    RequestContexts.set(null);
+                }
+            }
+        };
+    }
+
+    /**
+     * JDK 21 的虚拟线程执行器, 通过反射创建以兼容低版本 JDK
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            log.warn("当前 JDK 不支持虚拟线程, 使用普通线程池");
+            return null;
+        }
+    }
+
+    /**
+     * 请求上下文, 单独成类以免在没有 spring-web 时加载失败
+     */
+    private static class RequestContexts {
+
+        static Object get() {
+            return RequestContextHolder.getRequestAttributes();
+        }
+
+        static void set(Object attributes) {
+            if (attributes == null) {
+                RequestContextHolder.resetRequestAttributes();
+            } else {
+                RequestContextHolder.setRequestAttributes((RequestAttributes) attributes);
+            }
+        }
+    }
+}
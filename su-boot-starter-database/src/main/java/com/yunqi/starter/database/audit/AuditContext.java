@@ -0,0 +1,168 @@
+package com.yunqi.starter.database.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * 操作用户上下文
+ * <p>
+ * 优先使用当前线程显式打开的作用域(定时任务、消息消费等非 Web 场景);
+ * Web 请求中由 {@link AuditProvider} 获取一次后缓存在请求属性中, 同一请求的后续写操作直接读取;
+ * 两者都没有时返回 null, 不访问会话。
+ * <pre>
+ * try (AuditContext.Scope scope = AuditContext.open("0", "定时任务")) {
+ *     userService.insert(user);
+ * }
+ * </pre>
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public final class AuditContext {
+
+    private static final boolean WEB_PRESENT = ClassUtils.isPresent(
+            "org.springframework.web.context.request.RequestContextHolder", AuditContext.class.getClassLoader());
+
+    private static final String REQUEST_ATTRIBUTE = AuditContext.class.getName();
+
+    private static final ThreadLocal<AuditUser> SCOPED = new ThreadLocal<>();
+
+    /** 操作用户获取方式 */
+    public static AuditProvider PROVIDER = new SecurityAuditProvider();
+
+    private AuditContext() {
+    }
+
+    /**
+     * 获取当前操作用户
+     *
+     * @return 操作用户, 不在作用域内也不在已登录的请求中时返回 null
+     */
+    public static AuditUser current() {
+        AuditUser user = SCOPED.get();
+        if (user != null) {
+            return user;
+        }
+        return WEB_PRESENT ? Requests.current() : null;
+    }
+
+    /**
+     * 打开操作用户作用域, 作用域关闭后恢复之前的操作用户
+     *
+     * @param userId    用户ID
+     * @param nickname  用户昵称
+     * @return          作用域
+     */
+    public static Scope open(String userId, String nickname) {
+        return open(AuditUser.of(userId, nickname));
+    }
+
+    /**
+     * 打开操作用户作用域, 作用域关闭后恢复之前的操作用户
+     *
+     * @param user  操作用户, 为 null 时作用域内没有操作用户
+     * @return      作用域
+     */
+    public static Scope open(AuditUser user) {
+        Scope scope = new Scope(SCOPED.get());
+        set(user);
+        return scope;
+    }
+
+    /**
+     * 以指定的操作用户执行
+     *
+     * @param user      操作用户
+     * @param supplier  执行内容
+     * @param <T>       返回值类型
+     * @return          返回值
+     */
+    public static <T> T call(AuditUser user, Supplier<T> supplier) {
+        try (Scope ignored = open(user)) {
+            return supplier.get();
+        }
+    }
+
+    /**
+     * 以指定的操作用户执行
+     *
+     * @param user      操作用户
+     * @param runnable  执行内容
+     */
+    public static void run(AuditUser user, Runnable runnable) {
+        try (Scope ignored = open(user)) {
+            runnable.run();
+        }
+    }
+
+    /**
+     * 当前线程显式设置的操作用户(用于复制到异步线程)
+     *
+     * @return 操作用户
+     */
+    public static AuditUser scoped() {
+        return SCOPED.get();
+    }
+
+    /**
+     * 设置当前线程的操作用户, 一般使用 {@link #open(AuditUser)}
+     *
+     * @param user 操作用户, 为 null 时清除
+     */
+    public static void set(AuditUser user) {
+        if (user == null) {
+            SCOPED.remove();
+        } else {
+            SCOPED.set(user);
+        }
+    }
+
+    /**
+     * 操作用户作用域
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final AuditUser previous;
+
+        private Scope(AuditUser previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            set(previous);
+        }
+    }
+
+    /**
+     * 请求中的操作用户, 单独成类以免在没有 spring-web 时加载失败
+     */
+    private static class Requests {
+
+        static AuditUser current() {
+            RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+            if (attributes == null) {
+                return null;
+            }
+            Object cached = attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached != null) {
+                return (AuditUser) cached;
+            }
+            AuditUser user;
+            try {
+                user = PROVIDER.resolve();
+            } catch (RuntimeException e) {
+                log.debug("获取操作用户失败", e);
+                return null;
+            }
+            // 未登录时不缓存, 同一请求中登录后可以获取到
+            if (user != null) {
+                attributes.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+            }
+            return user;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.yunqi.starter.database.audit;
+
+/**
+ * 获取当前请求的操作用户, 每个请求只调用一次(结果缓存在请求中)
+ * <p>
+ * 默认使用 {@link SecurityAuditProvider}, 声明为 Bean 即可替换
+ * Created by @author CHQ on 2026/10/19
+ */
+public interface AuditProvider {
+
+    /**
+     * 获取当前请求的操作用户
+     *
+     * @return 操作用户, 未登录时返回 null
+     */
+    AuditUser resolve();
+}
@@ -0,0 +1,30 @@
+package com.yunqi.starter.database.audit;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * 操作用户(写入 BaseModel 的创建人、修改人字段)
+ * Created by @author CHQ on 2026/10/19
+ */
+@Getter
+public class AuditUser implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 用户ID */
+    private final String userId;
+
+    /** 用户昵称 */
+    private final String nickname;
+
+    public AuditUser(String userId, String nickname) {
+        this.userId = userId == null ? "" : userId;
+        this.nickname = nickname == null ? "" : nickname;
+    }
+
+    public static AuditUser of(String userId, String nickname) {
+        return new AuditUser(userId, nickname);
+    }
+}
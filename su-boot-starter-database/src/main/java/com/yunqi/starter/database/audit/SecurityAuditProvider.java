@@ -0,0 +1,20 @@
+package com.yunqi.starter.database.audit;
+
+import com.yunqi.starter.security.spi.SecurityUtil;
+import com.yunqi.starter.security.utils.SecuritySessionUtil;
+
+/**
+ * 从 Sa-Token 会话中获取操作用户
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SecurityAuditProvider implements AuditProvider {
+
+    @Override
+    public AuditUser resolve() {
+        // 先判断是否登录, 未登录时不读取会话, 避免抛出异常
+        if (!SecurityUtil.isLogin()) {
+            return null;
+        }
+        return AuditUser.of(SecuritySessionUtil.getUserId(), SecuritySessionUtil.getUserNickname());
+    }
+}
@@ -0,0 +1,53 @@
+package com.yunqi.starter.database.bulk;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分块批量操作结果
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+public class BulkResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 影响的总行数 */
+    private int affected;
+
+    /** 分块个数 */
+    private int chunks;
+
+    /** 失败的分块 */
+    private List<ChunkFailure> failures = new ArrayList<>();
+
+    /**
+     * 是否全部成功
+     *
+     * @return true 全部成功
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+
+    /**
+     * 失败的分块
+     */
+    @Data
+    public static class ChunkFailure implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** 分块序号(从 0 开始) */
+        private int index;
+
+        /** 分块内的ID */
+        private List<?> ids;
+
+        /** 异常信息 */
+        private String error;
+    }
+}
@@ -0,0 +1,116 @@
+package com.yunqi.starter.database.bulk;
+
+import com.yunqi.starter.database.async.AsyncDaoExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * 分块执行批量操作
+ * <p>
+ * 将ID集合按块切分, 每块在独立的短事务中执行(REQUIRES_NEW, 不加入调用方的事务),
+ * 并发数大于 1 时在异步执行器上并行执行, 同时进行中的分块不超过并发数。
+ * 某一块失败不影响其他块, 失败信息汇总在结果中。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class ChunkedExecutor {
+
+    /** 默认分块大小 */
+    public static int CHUNK_SIZE = 1000;
+
+    /** 默认并发数 */
+    public static int PARALLELISM = 1;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AsyncDaoExecutor executor;
+
+    /**
+     * @param transactionManager    事务管理器, 为 null 时每块以自动提交执行
+     * @param executor              异步执行器, 为 null 时串行执行
+     */
+    public ChunkedExecutor(PlatformTransactionManager transactionManager, AsyncDaoExecutor executor) {
+        if (transactionManager != null) {
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+            this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } else {
+            this.transactionTemplate = null;
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * 分块执行
+     *
+     * @param ids           ID集合
+     * @param chunkSize     分块大小
+     * @param parallelism   并发数
+     * @param operation     单块操作, 返回影响的行数
+     * @param <ID>          ID类型
+     * @return              执行结果
+     */
+    public <ID> BulkResult execute(List<ID> ids, int chunkSize, int parallelism, Function<List<ID>, Integer> operation) {
+        BulkResult result = new BulkResult();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        chunkSize = Math.max(1, chunkSize);
+        List<List<ID>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += chunkSize) {
+            chunks.add(new ArrayList<>(ids.subList(i, Math.min(ids.size(), i + chunkSize))));
+        }
+        result.setChunks(chunks.size());
+
+        int[] affected = new int[chunks.size()];
+        BulkResult.ChunkFailure[] failures = new BulkResult.ChunkFailure[chunks.size()];
+        if (parallelism <= 1 || executor == null || chunks.size() == 1) {
+            for (int i = 0; i < chunks.size(); i++) {
+                runChunk(i, chunks.get(i), operation, affected, failures);
+            }
+        } else {
+            Semaphore permits = new Semaphore(parallelism);
+            List<CompletableFuture<Void>> futures = new ArrayList<>(chunks.size());
+            for (int i = 0; i < chunks.size(); i++) {
+                int index = i;
+                permits.acquireUninterruptibly();
+                futures.add(CompletableFuture.runAsync(() -> runChunk(index, chunks.get(index), operation, affected, failures), executor)
+                        .whenComplete((v, e) -> permits.release()));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        }
+
+        int total = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            total += affected[i];
+            if (failures[i] != null) {
+                result.getFailures().add(failures[i]);
+            }
+        }
+        result.setAffected(total);
+        return result;
+    }
+
+    private <ID> void runChunk(int index, List<ID> chunk, Function<List<ID>, Integer> operation,
+                               int[] affected, BulkResult.ChunkFailure[] failures) {
+        try {
+            Integer count = transactionTemplate == null ? operation.apply(chunk)
+                    : transactionTemplate.execute(status -> operation.apply(chunk));
+            affected[index] = count == null ? 0 : count;
+        } catch (Exception e) {
+            log.warn("批量操作 -> 第 {} 块执行失败, 共 {} 条", index, chunk.size(), e);
+            BulkResult.ChunkFailure failure = new BulkResult.ChunkFailure();
+            failure.setIndex(index);
+            failure.setIds(chunk);
+            failure.setError(e.getMessage());
+            failures[index] = failure;
+        }
+    }
+}
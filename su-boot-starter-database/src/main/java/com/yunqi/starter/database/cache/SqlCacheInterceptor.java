@@ -0,0 +1,55 @@
+package com.yunqi.starter.database.cache;
+
+import org.nutz.dao.DaoException;
+import org.nutz.dao.DaoInterceptor;
+import org.nutz.dao.DaoInterceptorChain;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.sql.DaoStatement;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 查询结果缓存失效拦截器
+ * <p>
+ * 非查询语句执行后使涉及的表对应的缓存失效, 处于事务中时提交后再失效一次,
+ * 避免事务提交前被其他线程读到旧数据并写入缓存。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SqlCacheInterceptor implements DaoInterceptor {
+
+    @Override
+    public void filter(DaoInterceptorChain chain) throws DaoException {
+        try {
+            chain.doChain();
+        } finally {
+            DaoStatement st = chain.getDaoStatement();
+            if (!st.isSelect()) {
+                invalidate(tables(st));
+            }
+        }
+    }
+
+    private static Set<String> tables(DaoStatement st) {
+        Set<String> tables = new HashSet<>(SqlTables.parse(st.toPreparedStatement()));
+        Entity<?> en = st.getEntity();
+        if (en != null && en.getType() != null && !en.getType().getName().startsWith("org.nutz.")) {
+            tables.add(SqlTables.normalize(en.getTableName()));
+        }
+        return tables;
+    }
+
+    private static void invalidate(Set<String> tables) {
+        tables.forEach(SqlResultCache::invalidate);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    tables.forEach(SqlResultCache::invalidate);
+                }
+            });
+        }
+    }
+}
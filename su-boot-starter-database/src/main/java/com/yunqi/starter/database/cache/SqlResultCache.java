@@ -0,0 +1,192 @@
+package com.yunqi.starter.database.cache;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.yunqi.starter.common.page.Pagination;
+import com.yunqi.starter.jdbc.dynamic.DataSourceContextHolder;
+import org.nutz.dao.sql.Sql;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * SQL 查询结果缓存
+ * <p>
+ * 以 规范化 SQL + 绑定参数 + 分页 为键缓存查询结果, 每个缓存项记录所依赖表的版本号,
+ * 任何写操作都会使对应表的版本号递增, 读取时版本号不一致即视为失效。
+ * 缓存时间小于表的允许延迟时长时不检查该表的版本号, 供允许短暂不一致的报表使用, 延迟时长可以按表设置。
+ * 每次读取返回新的分页对象和列表, 列表中的记录(Record/Map)仍为缓存中的对象, 不要修改。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SqlResultCache {
+
+    /** 是否启用(默认关闭, 由 su.database.cache.enabled 开启) */
+    public static boolean ENABLED = false;
+
+    /** 未单独设置的表允许忽略失效的最大时长(毫秒), 0 表示严格失效 */
+    public static long MAX_STALENESS = 0;
+
+    /** 表名 -> 允许忽略失效的最大时长(毫秒) */
+    private static volatile Map<String, Long> STALENESS = Collections.emptyMap();
+
+    private static volatile LRUCache<String, CacheEntry> CACHE = CacheUtil.newLRUCache(1000, 60 * 1000L);
+
+    private static final ConcurrentHashMap<String, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+    /**
+     * 重新设置缓存容量和有效期
+     *
+     * @param maxSize   最大缓存项个数
+     * @param ttl       有效期(毫秒)
+     */
+    public static void configure(int maxSize, long ttl) {
+        CACHE = CacheUtil.newLRUCache(maxSize, ttl);
+    }
+
+    /**
+     * 按表设置允许忽略失效的最大时长
+     *
+     * @param staleness 表名 -> 最大时长(毫秒)
+     */
+    public static void staleness(Map<String, Long> staleness) {
+        Map<String, Long> map = new HashMap<>();
+        if (staleness != null) {
+            staleness.forEach((table, value) -> map.put(SqlTables.normalize(table), value));
+        }
+        STALENESS = map;
+    }
+
+    /**
+     * 生成缓存键
+     *
+     * @param type      结果类型
+     * @param page      页码
+     * @param pageSize  页面大小
+     * @param sqls      查询语句(及统计语句)
+     * @return          缓存键
+     */
+    public static String key(String type, int page, int pageSize, Sql... sqls) {
+        // 多数据源时不同数据源的结果分开缓存
+        StringBuilder sb = new StringBuilder(type).append('|').append(DataSourceContextHolder.peek())
+                .append('|').append(page).append('|').append(pageSize);
+        for (Sql sql : sqls) {
+            sb.append('|').append(normalize(sql.toPreparedStatement()))
+                    .append('|').append(Arrays.deepToString(sql.getParamMatrix()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 读取缓存, 不存在或已失效时执行查询并写入缓存
+     *
+     * @param key       缓存键
+     * @param sql       查询语句, 用于解析依赖的表
+     * @param loader    查询
+     * @param <R>       结果类型
+     * @return          结果, 分页对象和列表为副本
+     */
+    @SuppressWarnings("unchecked")
+    public static <R> R get(String key, Sql sql, Supplier<R> loader) {
+        LRUCache<String, CacheEntry> cache = CACHE;
+        CacheEntry entry = cache.get(key, false);
+        if (entry != null && entry.isValid()) {
+            return (R) copy(entry.value);
+        }
+        // 先取版本号再查询, 查询期间发生的写操作会使本次结果在下次读取时失效
+        Set<String> tables = SqlTables.parse(sql.toPreparedStatement());
+        String[] names = tables.toArray(new String[0]);
+        long[] versions = new long[names.length];
+        long[] staleness = new long[names.length];
+        Map<String, Long> settings = STALENESS;
+        for (int i = 0; i < names.length; i++) {
+            versions[i] = version(names[i]).get();
+            staleness[i] = settings.getOrDefault(names[i], MAX_STALENESS);
+        }
+        R value = loader.get();
+        cache.put(key, new CacheEntry(value, names, versions, staleness));
+        return (R) copy(value);
+    }
+
+    /**
+     * 表发生写操作, 使依赖该表的缓存失效
+     *
+     * @param table 表名
+     */
+    public static void invalidate(String table) {
+        version(SqlTables.normalize(table)).incrementAndGet();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    private static AtomicLong version(String table) {
+        return VERSIONS.computeIfAbsent(table, k -> new AtomicLong());
+    }
+
+    /**
+     * 复制分页对象和列表, 调用方排序、过滤或修改分页信息不影响缓存
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object copy(Object value) {
+        if (value instanceof Pagination) {
+            Pagination<?> pagination = (Pagination<?>) value;
+            List<?> list = pagination.getList();
+            return Pagination.build(pagination.getPage(), pagination.getPageSize())
+                    .list(list == null ? null : new ArrayList(list))
+                    .totalCount(pagination.getTotalCount());
+        }
+        if (value instanceof List) {
+            return new ArrayList<>((List<?>) value);
+        }
+        return value;
+    }
+
+    /**
+     * 规范化 SQL: 合并空白字符
+     */
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * 缓存项
+     */
+    private static class CacheEntry {
+
+        private final Object value;
+
+        /** 依赖的表 */
+        private final String[] tables;
+
+        /** 查询前表的版本号 */
+        private final long[] versions;
+
+        /** 表允许忽略失效的最大时长 */
+        private final long[] staleness;
+
+        private final long createdAt = System.currentTimeMillis();
+
+        CacheEntry(Object value, String[] tables, long[] versions, long[] staleness) {
+            this.value = value;
+            this.tables = tables;
+            this.versions = versions;
+            this.staleness = staleness;
+        }
+
+        boolean isValid() {
+            long age = System.currentTimeMillis() - createdAt;
+            for (int i = 0; i < tables.length; i++) {
+                if (age >= staleness[i] && version(tables[i]).get() != versions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.yunqi.starter.database.cache;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从 SQL 中解析涉及的表名
+ * <p>
+ * 识别 FROM / JOIN / UPDATE / INTO 之后的表以及 FROM 后逗号分隔的多个表,
+ * 表名统一转为小写并去掉库名前缀和引号。子查询中的表同样会被识别。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SqlTables {
+
+    private static final String NAME = "[`\"\\[]?[\\w$]+[`\"\\]]?(?:\\.[`\"\\[]?[\\w$]+[`\"\\]]?)?";
+
+    private static final Pattern TABLE = Pattern.compile(
+            "\\b(?:from|join|update|into)\\s+(" + NAME + ")", Pattern.CASE_INSENSITIVE);
+
+    /** FROM 后逗号分隔的表: , table [as] [alias] */
+    private static final Pattern NEXT = Pattern.compile(
+            "\\G(?:\\s+(?:as\\s+)?(?!where\\b|join\\b|left\\b|right\\b|inner\\b|on\\b|group\\b|order\\b|limit\\b|union\\b)\\w+)?\\s*,\\s*(" + NAME + ")",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 解析表名
+     *
+     * @param sql   SQL 语句
+     * @return      表名集合(小写)
+     */
+    public static Set<String> parse(String sql) {
+        Set<String> tables = new LinkedHashSet<>();
+        Matcher m = TABLE.matcher(sql);
+        while (m.find()) {
+            tables.add(normalize(m.group(1)));
+            Matcher next = NEXT.matcher(sql);
+            int end = m.end();
+            while (next.find(end) && next.start() == end) {
+                tables.add(normalize(next.group(1)));
+                end = next.end();
+            }
+        }
+        return tables;
+    }
+
+    /**
+     * 规范化表名: 去掉库名、引号并转为小写
+     *
+     * @param table 表名
+     * @return      规范化后的表名
+     */
+    public static String normalize(String table) {
+        int i = table.lastIndexOf('.');
+        if (i >= 0) {
+            table = table.substring(i + 1);
+        }
+        return table.replaceAll("[`\"\\[\\]]", "").toLowerCase();
+    }
+}
@@ -1,7 +1,24 @@
 package com.yunqi.starter.database.configuration;
 
+import com.alibaba.druid.pool.DruidDataSource;
 import com.yunqi.starter.common.json.Json;
+import com.yunqi.starter.database.archive.ArchiveProgress;
+import com.yunqi.starter.database.archive.SoftDeleteArchiver;
+import com.yunqi.starter.database.async.AsyncDaoExecutor;
+import com.yunqi.starter.database.connection.ConnectionScopeInterceptor;
+import com.yunqi.starter.database.connection.PinConnection;
+import com.yunqi.starter.database.cache.SqlCacheInterceptor;
+import com.yunqi.starter.database.interceptor.SlowSqlRecorder;
+import com.yunqi.starter.database.interceptor.SqlMetricsInterceptor;
+import com.yunqi.starter.database.sql.CompiledSqlCache;
 import com.yunqi.starter.jdbc.configuration.DruidDataSourceAutoConfigure;
+import com.yunqi.starter.jdbc.dynamic.DynamicRoutingDataSource;
+import com.yunqi.starter.jdbc.readiness.ReadinessGate;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
 import org.nutz.dao.Dao;
 import org.nutz.dao.DaoInterceptor;
@@ -9,16 +26,27 @@ import org.nutz.dao.impl.DaoRunner;
 import org.nutz.dao.impl.NutDao;
 import org.nutz.filepool.FilePool;
 import org.nutz.filepool.NutFilePool;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
 import java.util.Map;
@@ -78,6 +106,31 @@ public class DataBaseAutoConfiguration {
         return new SpringDaoRunner();
     }
 
+    /**
+     * 启动预热的就绪控制(未启用 Druid 数据源时)
+     * @param publisher 事件发布
+     * @return 就绪控制
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReadinessGate readinessGate(ApplicationEventPublisher publisher) {
+        return new ReadinessGate(publisher);
+    }
+
+    /**
+     * {@link PinConnection} 切面
+     * @param dao Dao
+     * @return 切面
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnMissingBean(name = "connectionScopeAdvisor")
+    public static Advisor connectionScopeAdvisor(ObjectProvider<Dao> dao) {
+        Pointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(PinConnection.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(PinConnection.class));
+        return new DefaultPointcutAdvisor(pointcut, new ConnectionScopeInterceptor(dao));
+    }
+
     /**
      * Nutz资源定位
      * @return 扫描资源路径
@@ -99,4 +152,156 @@ public class DataBaseAutoConfiguration {
         return new NutFilePool(".temp", 0);
     }
 
+    /**
+     * 异步查询执行器
+     * @param dataSource 数据源
+     * @param properties 配置信息
+     * @return 异步查询执行器
+     */
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnMissingBean
+    public AsyncDaoExecutor asyncDaoExecutor(DataSource dataSource, DataBaseProperties properties) {
+        DataBaseProperties.Async async = properties.getAsync();
+        int threads = async.getThreads();
+        if (threads <= 0) {
+            if (dataSource instanceof DynamicRoutingDataSource) {
+                threads = ((DynamicRoutingDataSource) dataSource).getRegistry().primary().getMaxActive();
+            } else {
+                threads = dataSource instanceof DruidDataSource ? ((DruidDataSource) dataSource).getMaxActive() : 8;
+            }
+        }
+        return new AsyncDaoExecutor(threads, async.getQueueCapacity(), async.isVirtual());
+    }
+
+    /**
+     * 查询结果缓存失效拦截器
+     * @return 查询结果缓存失效拦截器
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression("${su.database.cache.enabled:false}")
+    public SqlCacheInterceptor sqlCacheInterceptor() {
+        return new SqlCacheInterceptor();
+    }
+
+    /**
+     * 伪删除数据归档
+     * @param dao                   Dao
+     * @param properties            配置信息
+     * @param transactionManager    事务管理器
+     * @return 伪删除数据归档
+     */
+    @Bean(destroyMethod = "stop")
+    @ConditionalOnMissingBean
+    @ConditionalOnExpression("${su.database.archive.enabled:false}")
+    public SoftDeleteArchiver softDeleteArchiver(Dao dao, DataBaseProperties properties,
+                                                 ObjectProvider<PlatformTransactionManager> transactionManager) {
+        SoftDeleteArchiver archiver = new SoftDeleteArchiver(dao, properties.getArchive(), transactionManager.getIfUnique());
+        archiver.scan(properties.getRuntime().getBasepackage());
+        if (properties.getArchive().getEntities() != null) {
+            for (String className : properties.getArchive().getEntities()) {
+                try {
+                    archiver.register(Class.forName(className));
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalArgumentException("su.database.archive.entities 中的实体类不存在: " + className, e);
+                }
+            }
+        }
+        return archiver;
+    }
+
+    /**
+     * 伪删除数据归档指标
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnExpression("${su.database.archive.enabled:false}")
+    static class ArchiveMetricsConfiguration {
+
+        /**
+         * 各实体的累计处理行数、块数、失败次数以及是否正在执行
+         * @param archiver 伪删除数据归档
+         * @return 指标绑定
+         */
+        @Bean
+        public MeterBinder softDeleteArchiverMetrics(SoftDeleteArchiver archiver) {
+            return registry -> {
+                for (ArchiveProgress progress : archiver.progress()) {
+                    Tags tags = Tags.of("table", progress.getTableName(), "mode", progress.getMode().name().toLowerCase());
+                    FunctionCounter.builder("su.database.archive.rows", progress, p -> p.getTotalRows().get())
+                            .tags(tags).description("伪删除数据累计归档或删除的行数").register(registry);
+                    FunctionCounter.builder("su.database.archive.chunks", progress, p -> p.getTotalChunks().get())
+                            .tags(tags).description("伪删除数据累计处理的块数").register(registry);
+                    FunctionCounter.builder("su.database.archive.failures", progress, p -> p.getFailures().get())
+                            .tags(tags).description("伪删除数据归档失败次数").register(registry);
+                    Gauge.builder("su.database.archive.running", progress, p -> p.isRunning() ? 1 : 0)
+                            .tags(tags).description("是否正在归档").register(registry);
+                    Gauge.builder("su.database.archive.last.rows", progress, ArchiveProgress::getRows)
+                            .tags(tags).description("本次(或最近一次)已处理的行数").register(registry);
+                }
+            };
+        }
+    }
+
+    /**
+     * SQL 指标
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnExpression("${su.database.interceptor.metrics:false}")
+    static class SqlMetricsConfiguration {
+
+        /**
+         * 慢 SQL 缓冲区
+         * @param properties 配置信息
+         * @return 慢 SQL 缓冲区
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public SlowSqlRecorder slowSqlRecorder(DataBaseProperties properties) {
+            return new SlowSqlRecorder(properties.getInterceptor().getSlowCapacity());
+        }
+
+        /**
+         * SQL 指标拦截器
+         * @param registry   指标注册中心
+         * @param properties 配置信息
+         * @param recorder   慢 SQL 缓冲区
+         * @return SQL 指标拦截器
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public SqlMetricsInterceptor sqlMetricsInterceptor(ObjectProvider<MeterRegistry> registry, DataBaseProperties properties,
+                                                           SlowSqlRecorder recorder) {
+            return new SqlMetricsInterceptor(registry, properties.getInterceptor(), recorder);
+        }
+    }
+
+    /**
+     * 查询语句缓存指标
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(prefix = DataBaseProperties.PREFIX, name = "global.compiled-sql", havingValue = "true")
+    static class CompiledSqlMetricsConfiguration {
+
+        /**
+         * 查询语句缓存指标(命中、未命中次数和命中率)
+         * @return 指标绑定
+         */
+        @Bean
+        public MeterBinder compiledSqlCacheMetrics() {
+            return registry -> {
+                FunctionCounter.builder("su.database.sql.template.hits", CompiledSqlCache.class, c -> CompiledSqlCache.hits())
+                        .description("查询语句缓存命中次数").register(registry);
+                FunctionCounter.builder("su.database.sql.template.misses", CompiledSqlCache.class, c -> CompiledSqlCache.misses())
+                        .description("查询语句缓存未命中次数").register(registry);
+                Gauge.builder("su.database.sql.template.hit.rate", CompiledSqlCache::hitRate)
+                        .description("查询语句缓存命中率").register(registry);
+                Gauge.builder("su.database.sql.template.size", CompiledSqlCache::size)
+                        .description("缓存的条件结构个数").register(registry);
+            };
+        }
+    }
+
 }
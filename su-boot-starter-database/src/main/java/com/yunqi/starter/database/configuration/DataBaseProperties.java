@@ -1,9 +1,13 @@
 package com.yunqi.starter.database.configuration;
 
+import com.yunqi.starter.database.archive.ArchiveMode;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Created by @author CHQ on 2022/1/29
  */
@@ -45,6 +49,21 @@ public class DataBaseProperties {
      */
     private Global global = new Global();
 
+    /**
+     * 异步查询配置
+     */
+    private Async async = new Async();
+
+    /**
+     * 查询结果缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 伪删除数据归档配置
+     */
+    private Archive archive = new Archive();
+
     @Getter
     @Setter
     public static class Global {
@@ -61,6 +80,33 @@ public class DataBaseProperties {
 
         /** varchar 字段的默认字段长度 */
         private int defaultVarcharWidth = 128;
+
+        /** 批量关联查询时单条 IN 语句的最大参数个数 */
+        private int linkBatchSize = 500;
+
+        /** 是否使用预编译行映射代替 Nutz 的反射映射(query/listEntity/listPage) */
+        private boolean compiledMapper = false;
+
+        /** 是否按条件结构缓存实体查询语句(query), 相同结构的条件不再重复渲染 */
+        private boolean compiledSql = false;
+
+        /** 缓存的条件结构最大个数 */
+        private int compiledSqlMaxSize = 2000;
+
+        /** 流式查询(stream)的 fetchSize, 0 表示自动(MySql 逐行读取, 其他数据库 1000) */
+        private int streamFetchSize = 0;
+
+        /** sql 分页统计时是否改写统计语句(去掉排序、查询列和不影响行数的 LEFT JOIN) */
+        private boolean countRewrite = true;
+
+        /** 改写统计语句时, 被关联表的唯一键列名 */
+        private String countUniqueKey = "id";
+
+        /** 分块批量删除(bulkDelete/bulkVDelete)的默认分块大小 */
+        private int bulkChunkSize = 1000;
+
+        /** 分块批量删除的默认并发数 */
+        private int bulkParallelism = 1;
     }
 
     @Getter
@@ -83,6 +129,90 @@ public class DataBaseProperties {
     public static class Interceptor {
         /**  sql 记时 */
         boolean time = true;
+
+        /** sql 指标统计(耗时直方图、行数、异常次数), 需要引入 micrometer */
+        boolean metrics = false;
+
+        /** 是否输出耗时直方图 */
+        boolean histogram = false;
+
+        /** 是否在指标中按调用的业务方法区分(每条 sql 都需要遍历调用栈), 关闭时只有慢 sql 记录调用方法 */
+        boolean caller = false;
+
+        /** sql 模板标签的最大个数, 超出后合并为 OTHER */
+        int maxTemplates = 500;
+
+        /** 指标标签组合(模板 x 表 x 类型 x 调用方法)的最大个数, 超出后合并为 OTHER */
+        int maxMeters = 2000;
+
+        /** 慢 sql 阈值(毫秒) */
+        long slowThreshold = 1000;
+
+        /** 慢 sql 缓冲区容量 */
+        int slowCapacity = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Async {
+        /** 最大并发数, 0 表示与 Druid 连接池的 maxActive 一致 */
+        private int threads = 0;
+
+        /** 等待队列容量, 队列满时由调用线程执行 */
+        private int queueCapacity = 1000;
+
+        /** 是否使用虚拟线程(需要 JDK 21) */
+        private boolean virtual = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+        /** 是否开启 sql 分页查询(listPage/listPageMap)结果缓存 */
+        private boolean enabled = false;
+
+        /** 最大缓存项个数 */
+        private int maxSize = 1000;
+
+        /** 缓存有效期(毫秒) */
+        private long ttl = 60 * 1000L;
+
+        /** 允许忽略写操作失效的最大时长(毫秒), 0 表示写操作后立即失效, 作为未在 staleness 中设置的表的默认值 */
+        private long maxStaleness = 0;
+
+        /** 按表设置允许忽略写操作失效的最大时长(毫秒), 表名 -> 时长 */
+        private Map<String, Long> staleness = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Archive {
+        /** 是否开启伪删除数据归档 */
+        private boolean enabled = false;
+
+        /** 伪删除数据的保留天数, 超过后归档或删除 */
+        private int retentionDays = 30;
+
+        /** 处理方式 */
+        private ArchiveMode mode = ArchiveMode.ARCHIVE;
+
+        /** 归档表名后缀 */
+        private String suffix = "_archive";
+
+        /** 判断删除时间的字段名 */
+        private String timeField = "updatedAt";
+
+        /** 每块处理的行数 */
+        private int chunkSize = 500;
+
+        /** 两块之间的间隔(毫秒) */
+        private long pause = 200;
+
+        /** 需要归档的实体类名(@Archive 注解的实体会自动加入) */
+        private String[] entities;
+
+        /** 定时执行的 cron 表达式, 为空时不注册定时任务(需要 quartz 组件) */
+        private String cron;
     }
 
     @Getter
@@ -122,5 +252,20 @@ public class DataBaseProperties {
 
         /** 检查索引 */
         private boolean checkIndex = false;
+
+        /** 是否根据实体结构指纹跳过未变更实体的建表与变更 */
+        private boolean fingerprint = true;
+
+        /** 建表与变更的并行线程数 */
+        private int threads = 4;
+
+        /** 启动时是否预先构建实体元数据(注解、EL、字段映射), 避免首次请求时构建 */
+        private boolean warmup = true;
+
+        /** 是否在后台预热, 不阻塞启动 */
+        private boolean warmupAsync = true;
+
+        /** 后台预热未完成时是否暂缓就绪(ReadinessState) */
+        private boolean warmupReadiness = true;
     }
 }
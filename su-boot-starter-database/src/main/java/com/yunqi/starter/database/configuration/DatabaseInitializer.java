@@ -1,8 +1,25 @@
 package com.yunqi.starter.database.configuration;
 
+import com.yunqi.starter.database.archive.SoftDeleteArchiver;
+import com.yunqi.starter.database.audit.AuditContext;
+import com.yunqi.starter.database.audit.AuditProvider;
+import com.yunqi.starter.database.bulk.ChunkedExecutor;
+import com.yunqi.starter.database.cache.SqlResultCache;
+import com.yunqi.starter.database.link.BatchLinkLoader;
+import com.yunqi.starter.database.mapper.EntityRowMappers;
+import com.yunqi.starter.database.model.SchemaFingerprint;
+import com.yunqi.starter.database.partition.Partition;
+import com.yunqi.starter.database.sql.CompiledSqlCache;
+import com.yunqi.starter.database.sql.CountSqlRewriter;
+import com.yunqi.starter.jdbc.readiness.ReadinessGate;
+import lombok.extern.slf4j.Slf4j;
 import org.nutz.dao.Dao;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.entity.annotation.Table;
 import org.nutz.dao.util.Daos;
+import org.nutz.lang.Mirror;
 import org.nutz.resource.Scans;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
@@ -11,12 +28,15 @@ import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 初始化Nutz
  * Created by @author CHQ on 2022/2/1
  */
+@Slf4j
 @Configuration
 @ConditionalOnBean({Dao.class})
 @ConditionalOnExpression("${su.database.enabled:true}")
@@ -24,6 +44,8 @@ import java.util.Arrays;
 @AutoConfigureAfter({DataBaseAutoConfiguration.class})
 public class DatabaseInitializer {
 
+    private static final String WARMUP = "实体元数据预热";
+
     @Resource
     private Dao dao;
 
@@ -33,6 +55,12 @@ public class DatabaseInitializer {
     @Resource
     private DataBaseProperties properties;
 
+    @Resource
+    private ObjectProvider<AuditProvider> auditProvider;
+
+    @Resource
+    private ObjectProvider<ReadinessGate> readinessGate;
+
     /**
      * 初始化Nutz
      */
@@ -43,20 +71,310 @@ public class DatabaseInitializer {
         Daos.FORCE_UPPER_COLUMN_NAME = properties.getGlobal().isForceUpperColumnName();
         Daos.FORCE_WRAP_COLUMN_NAME = properties.getGlobal().isForceWrapColumnName();
         Daos.DEFAULT_VARCHAR_WIDTH = properties.getGlobal().getDefaultVarcharWidth();
-        boolean create = properties.getRuntime().isCreate();
-        boolean migration = properties.getRuntime().isMigration();
-        // 考虑使用并行流（parallel stream）来提高性能
-        Arrays.stream(properties.getRuntime().getBasepackage()).parallel().forEach(pkg -> {
-            if (create) {
-                Daos.createTablesInPackage(dao, pkg, properties.getRuntime().isFoceCreate());
-            }
-            if (migration) {
-                Daos.migration(dao, pkg, properties.getRuntime().isAddColumn(),
-                        properties.getRuntime().isDeleteColumn(), properties.getRuntime().isCheckIndex());
-            }
-        });
+        BatchLinkLoader.BATCH_SIZE = properties.getGlobal().getLinkBatchSize();
+        EntityRowMappers.ENABLED = properties.getGlobal().isCompiledMapper();
+        EntityRowMappers.STREAM_FETCH_SIZE = properties.getGlobal().getStreamFetchSize();
+        CompiledSqlCache.ENABLED = properties.getGlobal().isCompiledSql();
+        CompiledSqlCache.MAX_SIZE = properties.getGlobal().getCompiledSqlMaxSize();
+        CountSqlRewriter.ENABLED = properties.getGlobal().isCountRewrite();
+        CountSqlRewriter.UNIQUE_KEY = properties.getGlobal().getCountUniqueKey();
+        ChunkedExecutor.CHUNK_SIZE = properties.getGlobal().getBulkChunkSize();
+        ChunkedExecutor.PARALLELISM = properties.getGlobal().getBulkParallelism();
+        SqlResultCache.ENABLED = properties.getCache().isEnabled();
+        SqlResultCache.MAX_STALENESS = properties.getCache().getMaxStaleness();
+        SqlResultCache.staleness(properties.getCache().getStaleness());
+        SqlResultCache.configure(properties.getCache().getMaxSize(), properties.getCache().getTtl());
+        SoftDeleteArchiver.TIME_FIELD = properties.getArchive().isEnabled() ? properties.getArchive().getTimeField() : null;
+        auditProvider.ifAvailable(provider -> AuditContext.PROVIDER = provider);
+
+        DataBaseProperties.Runtime runtime = properties.getRuntime();
+        if (runtime.getBasepackage() != null && (runtime.isCreate() || runtime.isMigration())) {
+            initTables(runtime);
+        }
+        if (runtime.getBasepackage() != null && runtime.isWarmup()) {
+            warmup(runtime);
+        }
 
         // 扫描资源
         Scans.me().addResourceLocation(springResourceLoaction);
     }
+
+    /**
+     * 建表与变更
+     * <p>
+     * 以实体为单位在有界线程池中并行执行, 开启指纹时跳过结构未变化且表已存在的实体
+     * @param runtime 运行期配置
+     */
+    private void initTables(DataBaseProperties.Runtime runtime) {
+        long beginTime = System.currentTimeMillis();
+        List<Class<?>> classes = scanEntities(runtime.getBasepackage(), false);
+        if (classes.isEmpty()) {
+            return;
+        }
+
+        // 强制创建时每次都需要删表重建, 指纹没有意义
+        boolean useFingerprint = runtime.isFingerprint() && !runtime.isFoceCreate();
+        Map<String, String> fingerprints = useFingerprint ? loadFingerprints() : Collections.emptyMap();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(runtime.getThreads(), classes.size())),
+                r -> new Thread(r, "su-db-init-" + threadIndex.incrementAndGet()));
+        List<TableReport> reports = new ArrayList<>(classes.size());
+        try {
+            List<Callable<TableReport>> tasks = new ArrayList<>(classes.size());
+            for (Class<?> klass : classes) {
+                tasks.add(() -> initTable(klass, runtime, useFingerprint, fingerprints.get(klass.getName())));
+            }
+            for (Future<TableReport> future : executor.invokeAll(tasks)) {
+                reports.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("数据库初始化被中断", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("数据库初始化失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        report(reports, System.currentTimeMillis() - beginTime);
+
+        // 与逐个建表时一致, 任一实体失败都终止启动
+        RuntimeException failure = null;
+        for (TableReport report : reports) {
+            if (report.error != null) {
+                if (failure == null) {
+                    failure = new RuntimeException("数据库初始化失败: " + report.entityClass, report.error);
+                } else {
+                    failure.addSuppressed(report.error);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * 单个实体建表与变更
+     */
+    private TableReport initTable(Class<?> klass, DataBaseProperties.Runtime runtime, boolean useFingerprint, String oldFingerprint) {
+        long beginTime = System.currentTimeMillis();
+        TableReport report = new TableReport(klass.getName());
+        try {
+            Entity<?> en = dao.getEntity(klass);
+            String fingerprint = SchemaFingerprints.of(en, runtime);
+            if (useFingerprint && fingerprint.equals(oldFingerprint) && dao.exists(en.getTableName())) {
+                report.skipped = true;
+                return report;
+            }
+
+            if (runtime.isCreate()) {
+                dao.create(klass, runtime.isFoceCreate());
+            }
+            if (runtime.isMigration()) {
+                Daos.migration(dao, klass, runtime.isAddColumn(), runtime.isDeleteColumn(), runtime.isCheckIndex(), null);
+            }
+
+            // 建表与变更都成功后才保存指纹, 失败的实体下次启动时重新执行
+            if (useFingerprint) {
+                saveFingerprint(klass, en, fingerprint);
+            }
+        } catch (Exception e) {
+            report.failed = true;
+            report.error = e;
+            log.error("数据库初始化 -> 实体 {} 建表或变更失败", klass.getName(), e);
+        } finally {
+            report.cost = System.currentTimeMillis() - beginTime;
+        }
+        return report;
+    }
+
+    /**
+     * 保存实体指纹, 保存失败只影响下次启动时能否跳过该实体
+     */
+    private void saveFingerprint(Class<?> klass, Entity<?> en, String fingerprint) {
+        try {
+            SchemaFingerprint record = new SchemaFingerprint();
+            record.setEntityClass(klass.getName());
+            record.setTableName(en.getTableName());
+            record.setFingerprint(fingerprint);
+            record.setUpdatedAt(System.currentTimeMillis());
+            dao.insertOrUpdate(record);
+        } catch (Exception e) {
+            log.warn("数据库初始化 -> 实体 {} 保存指纹失败", klass.getName(), e);
+        }
+    }
+
+    /**
+     * 预热实体元数据
+     * <p>
+     * 以实体为单位并行构建 Nutz 实体(注解解析、EL 编译、字段映射和数据库列信息),
+     * 后台预热时登记到 {@link ReadinessGate}, 完成前暂缓就绪
+     * @param runtime 运行期配置
+     */
+    private void warmup(DataBaseProperties.Runtime runtime) {
+        if (!runtime.isWarmupAsync()) {
+            doWarmup(runtime);
+            return;
+        }
+        ReadinessGate gate = runtime.isWarmupReadiness() ? readinessGate.getIfAvailable() : null;
+        if (gate != null) {
+            gate.hold(WARMUP);
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                doWarmup(runtime);
+            } finally {
+                if (gate != null) {
+                    gate.release(WARMUP);
+                }
+            }
+        }, "su-db-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void doWarmup(DataBaseProperties.Runtime runtime) {
+        long beginTime = System.currentTimeMillis();
+        List<Class<?>> classes = scanEntities(runtime.getBasepackage(), true);
+        if (classes.isEmpty()) {
+            return;
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(runtime.getThreads(), classes.size())),
+                r -> new Thread(r, "su-db-warmup-" + threadIndex.incrementAndGet()));
+        List<TableReport> reports = new ArrayList<>(classes.size());
+        try {
+            List<Callable<TableReport>> tasks = new ArrayList<>(classes.size());
+            for (Class<?> klass : classes) {
+                tasks.add(() -> warmupEntity(klass));
+            }
+            for (Future<TableReport> future : executor.invokeAll(tasks)) {
+                reports.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            log.warn("实体元数据预热失败", e.getCause());
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int failed = 0;
+        for (TableReport report : reports) {
+            if (report.failed) {
+                failed++;
+            }
+        }
+        log.info("实体元数据预热 -> 实体 {} 个, 失败 {} 个, 耗时 {}ms{}", reports.size(), failed,
+                System.currentTimeMillis() - beginTime, runtime.isWarmupAsync() ? "(后台)" : "");
+        if (properties.getLog()) {
+            reports.sort((a, b) -> Long.compare(b.cost, a.cost));
+            for (TableReport report : reports) {
+                log.info("实体元数据预热 -> {} {} {}ms", report.entityClass, report.failed ? "失败" : "完成", report.cost);
+            }
+        }
+    }
+
+    /**
+     * 单个实体预热
+     */
+    private TableReport warmupEntity(Class<?> klass) {
+        long beginTime = System.currentTimeMillis();
+        TableReport report = new TableReport(klass.getName());
+        try {
+            dao.getEntity(klass);
+        } catch (Exception e) {
+            report.failed = true;
+            log.warn("实体元数据预热 -> 实体 {} 构建失败", klass.getName(), e);
+        } finally {
+            report.cost = System.currentTimeMillis() - beginTime;
+        }
+        return report;
+    }
+
+    /**
+     * 扫描实体包, 获取带有 @Table 注解的实体
+     * @param packages          实体包名
+     * @param withPartition     是否包括分表实体
+     */
+    private List<Class<?>> scanEntities(String[] packages, boolean withPartition) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (String pkg : packages) {
+            for (Class<?> klass : Scans.me().scanPackage(pkg)) {
+                // 分表实体的表名是动态的, 建表时跳过, 在写入时按分区创建
+                if (Mirror.me(klass).getAnnotation(Table.class) != null && (withPartition || klass.getAnnotation(Partition.class) == null)) {
+                    classes.add(klass);
+                }
+            }
+        }
+        return new ArrayList<>(classes);
+    }
+
+    /**
+     * 读取已保存的实体指纹
+     */
+    private Map<String, String> loadFingerprints() {
+        Map<String, String> fingerprints = new HashMap<>();
+        try {
+            dao.create(SchemaFingerprint.class, false);
+            for (SchemaFingerprint record : dao.query(SchemaFingerprint.class, null)) {
+                fingerprints.put(record.getEntityClass(), record.getFingerprint());
+            }
+        } catch (Exception e) {
+            // 指纹表不可用时退回到全量建表与变更
+            log.warn("数据库初始化 -> 读取实体指纹失败, 将执行全量建表与变更", e);
+        }
+        return fingerprints;
+    }
+
+    /**
+     * 打印耗时报告
+     */
+    private void report(List<TableReport> reports, long cost) {
+        int skipped = 0;
+        int failed = 0;
+        for (TableReport report : reports) {
+            if (report.skipped) {
+                skipped++;
+            } else if (report.failed) {
+                failed++;
+            }
+        }
+        log.info("数据库初始化 -> 实体 {} 个, 跳过 {} 个, 建表/变更 {} 个, 失败 {} 个, 耗时 {}ms",
+                reports.size(), skipped, reports.size() - skipped - failed, failed, cost);
+
+        if (properties.getLog()) {
+            reports.sort((a, b) -> Long.compare(b.cost, a.cost));
+            for (TableReport report : reports) {
+                log.info("数据库初始化 -> {} {} {}ms", report.entityClass,
+                        report.failed ? "失败" : (report.skipped ? "跳过" : "建表/变更"), report.cost);
+            }
+        }
+    }
+
+    /**
+     * 单个实体的初始化结果
+     */
+    private static class TableReport {
+
+        private final String entityClass;
+
+        private boolean skipped;
+
+        private boolean failed;
+
+        /** 建表或变更的异常 */
+        private Exception error;
+
+        private long cost;
+
+        TableReport(String entityClass) {
+            this.entityClass = entityClass;
+        }
+    }
 }
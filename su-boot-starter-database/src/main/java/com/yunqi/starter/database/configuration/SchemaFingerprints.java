@@ -0,0 +1,70 @@
+package com.yunqi.starter.database.configuration;
+
+import com.yunqi.starter.common.lang.Lang;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.entity.EntityField;
+import org.nutz.dao.entity.EntityIndex;
+import org.nutz.dao.entity.MappingField;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 计算实体映射结构的指纹
+ * <p>
+ * 指纹覆盖表名、字段定义、索引、表元数据以及自动变更的相关配置,
+ * 任意一项发生变化都会得到不同的指纹, 从而触发建表或变更。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SchemaFingerprints {
+
+    /**
+     * 计算实体指纹
+     *
+     * @param en        实体
+     * @param runtime   运行期配置
+     * @return          指纹(sha1)
+     */
+    public static String of(Entity<?> en, DataBaseProperties.Runtime runtime) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("table:").append(en.getTableName())
+                .append(";view:").append(en.getViewName())
+                .append(";comment:").append(en.getTableComment())
+                .append('\n');
+
+        for (MappingField mf : en.getMappingFields()) {
+            sb.append("field:").append(mf.getName())
+                    .append('|').append(mf.getColumnName())
+                    .append('|').append(mf.getColumnType())
+                    .append('|').append(mf.getCustomDbType())
+                    .append('|').append(mf.getWidth())
+                    .append('|').append(mf.getPrecision())
+                    .append('|').append(mf.isNotNull())
+                    .append('|').append(mf.isUnsigned())
+                    .append('|').append(mf.isPk())
+                    .append('|').append(mf.isAutoIncreasement())
+                    .append('|').append(mf.hasDefaultValue())
+                    .append('|').append(mf.getColumnComment())
+                    .append('\n');
+        }
+
+        for (EntityIndex index : en.getIndexes()) {
+            sb.append("index:").append(index.getName(en)).append('|').append(index.isUnique());
+            for (EntityField field : index.getFields()) {
+                sb.append('|').append(field.getName());
+            }
+            sb.append('\n');
+        }
+
+        Map<String, Object> metas = new TreeMap<>();
+        if (en.getMetas() != null) {
+            metas.putAll(en.getMetas());
+        }
+        sb.append("metas:").append(metas).append('\n');
+
+        sb.append("options:").append(runtime.isAddColumn())
+                .append('|').append(runtime.isDeleteColumn())
+                .append('|').append(runtime.isCheckIndex());
+        return Lang.sha1(sb);
+    }
+}
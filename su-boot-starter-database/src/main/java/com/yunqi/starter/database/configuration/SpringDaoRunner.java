@@ -1,9 +1,11 @@
 package com.yunqi.starter.database.configuration;
 
 import com.yunqi.starter.common.lang.Lang;
+import com.yunqi.starter.database.connection.ConnectionScope;
 import org.nutz.dao.ConnCallback;
 import org.nutz.dao.impl.sql.run.NutDaoRunner;
 import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -16,6 +18,16 @@ public class SpringDaoRunner extends NutDaoRunner {
 
     @Override
     public void _run(DataSource dataSource, ConnCallback callback) {
+        // 连接作用域内且没有事务时使用作用域的连接
+        if (ConnectionScope.isActive(dataSource) && !TransactionSynchronizationManager.hasResource(dataSource)) {
+            try {
+                callback.invoke(ConnectionScope.connection(dataSource));
+            }
+            catch (Exception e) {
+                throw Lang.wrapThrow(e);
+            }
+            return;
+        }
 
         Connection con = DataSourceUtils.getConnection(dataSource);
         try {
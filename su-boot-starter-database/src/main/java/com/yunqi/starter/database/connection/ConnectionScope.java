@@ -0,0 +1,172 @@
+package com.yunqi.starter.database.connection;
+
+import com.yunqi.starter.common.lang.Lang;
+import com.yunqi.starter.jdbc.dynamic.DataSourceContextHolder;
+import com.yunqi.starter.jdbc.dynamic.DynamicRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.nutz.dao.Dao;
+import org.nutz.dao.impl.DaoSupport;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 连接作用域
+ * <p>
+ * 在作用域内, 事务之外的 Dao 操作共用同一个连接(第一次使用时从连接池获取, 关闭作用域时归还),
+ * 不再每次操作都从连接池借还连接。事务内的操作仍然使用事务绑定的连接。
+ * 作用域与线程绑定, 必须在打开它的线程中关闭, 同一数据源的嵌套作用域共用外层的连接。
+ * 数据源是 {@link DynamicRoutingDataSource} 时按当前数据源名称({@link DataSourceContextHolder})分别保存连接,
+ * 作用域内切换数据源不会使用其他数据源的连接。
+ * <pre>
+ * try (ConnectionScope scope = ConnectionScope.open(dao)) {
+ *     long total = userService.count(cnd);
+ *     List&lt;User&gt; list = userService.query(cnd, pager);
+ * }
+ * </pre>
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public final class ConnectionScope implements AutoCloseable {
+
+    private static final ThreadLocal<ConnectionScope> CURRENT = new ThreadLocal<>();
+
+    private final DataSource dataSource;
+
+    private final ConnectionScope previous;
+
+    private final Thread thread;
+
+    /** 按数据源名称保存的连接, 不是动态数据源时只有 null 一个键 */
+    private final Map<String, Connection> connections = new HashMap<>(4);
+
+    private final boolean routing;
+
+    private int depth = 1;
+
+    private int uses;
+
+    private ConnectionScope(DataSource dataSource, ConnectionScope previous) {
+        this.dataSource = dataSource;
+        this.previous = previous;
+        this.thread = Thread.currentThread();
+        this.routing = dataSource instanceof DynamicRoutingDataSource;
+    }
+
+    /**
+     * 打开连接作用域
+     *
+     * @param dataSource    数据源
+     * @return              连接作用域
+     */
+    public static ConnectionScope open(DataSource dataSource) {
+        ConnectionScope scope = find(dataSource);
+        if (scope != null) {
+            scope.depth++;
+            return scope;
+        }
+        scope = new ConnectionScope(dataSource, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * 打开连接作用域
+     *
+     * @param dao   Dao
+     * @return      连接作用域
+     */
+    public static ConnectionScope open(Dao dao) {
+        if (!(dao instanceof DaoSupport)) {
+            throw new IllegalArgumentException("不支持的 Dao 类型: " + dao.getClass().getName());
+        }
+        return open(((DaoSupport) dao).getDataSource());
+    }
+
+    /**
+     * 获取当前线程作用域内的连接
+     *
+     * @param dataSource    数据源
+     * @return              连接, 不在作用域内时返回 null
+     */
+    public static Connection connection(DataSource dataSource) {
+        ConnectionScope scope = find(dataSource);
+        return scope == null ? null : scope.borrow();
+    }
+
+    /**
+     * 当前线程是否在数据源的连接作用域内
+     *
+     * @param dataSource    数据源
+     * @return              true 在作用域内
+     */
+    public static boolean isActive(DataSource dataSource) {
+        return find(dataSource) != null;
+    }
+
+    /**
+     * 作用域内的连接被使用的次数
+     *
+     * @return 次数
+     */
+    public int getUses() {
+        return uses;
+    }
+
+    @Override
+    public void close() {
+        if (Thread.currentThread() != thread) {
+            throw new IllegalStateException("连接作用域必须在打开它的线程中关闭");
+        }
+        if (--depth > 0) {
+            return;
+        }
+        if (CURRENT.get() == this) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+        release();
+    }
+
+    private static ConnectionScope find(DataSource dataSource) {
+        for (ConnectionScope scope = CURRENT.get(); scope != null; scope = scope.previous) {
+            if (scope.dataSource == dataSource && scope.depth > 0) {
+                return scope;
+            }
+        }
+        return null;
+    }
+
+    private Connection borrow() {
+        String name = routing ? DataSourceContextHolder.peek() : null;
+        try {
+            Connection connection = connections.get(name);
+            // 连接出错被连接池废弃后重新获取
+            if (connection == null || connection.isClosed()) {
+                connection = dataSource.getConnection();
+                connections.put(name, connection);
+            }
+            uses++;
+            return connection;
+        } catch (SQLException e) {
+            throw Lang.wrapThrow(e);
+        }
+    }
+
+    private void release() {
+        for (Connection connection : connections.values()) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("连接作用域 -> 归还连接失败", e);
+            }
+        }
+        connections.clear();
+    }
+}
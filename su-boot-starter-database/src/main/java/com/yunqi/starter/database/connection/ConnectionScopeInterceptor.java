@@ -0,0 +1,26 @@
+package com.yunqi.starter.database.connection;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.nutz.dao.Dao;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * {@link PinConnection} 拦截器
+ * Created by @author CHQ on 2026/10/19
+ */
+public class ConnectionScopeInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<Dao> dao;
+
+    public ConnectionScopeInterceptor(ObjectProvider<Dao> dao) {
+        this.dao = dao;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        try (ConnectionScope ignored = ConnectionScope.open(dao.getObject())) {
+            return invocation.proceed();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.yunqi.starter.database.connection;
+
+import java.lang.annotation.*;
+
+/**
+ * 方法执行期间打开连接作用域, 事务之外的 Dao 操作共用同一个连接
+ * <p>
+ * 标注在类上时对类中所有公共方法生效, 详见 {@link ConnectionScope}
+ * Created by @author CHQ on 2026/10/19
+ */
+@Documented
+@Inherited
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PinConnection {
+}
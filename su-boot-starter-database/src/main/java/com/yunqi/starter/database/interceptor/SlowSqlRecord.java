@@ -0,0 +1,47 @@
+package com.yunqi.starter.database.interceptor;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * 慢 SQL 记录
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+@Accessors(chain = true)
+public class SlowSqlRecord implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** SQL 模板(预编译语句) */
+    private String sql;
+
+    /** 绑定参数 */
+    private String params;
+
+    /** 表名 */
+    private String table;
+
+    /** SQL 类型 */
+    private String type;
+
+    /** 调用的业务方法 */
+    private String caller;
+
+    /** 链路ID */
+    private String traceId;
+
+    /** 耗时(毫秒) */
+    private long cost;
+
+    /** 影响或返回的行数 */
+    private long rows;
+
+    /** 异常信息 */
+    private String error;
+
+    /** 执行时间 */
+    private long time;
+}
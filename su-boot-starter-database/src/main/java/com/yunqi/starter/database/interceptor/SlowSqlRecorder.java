@@ -0,0 +1,79 @@
+package com.yunqi.starter.database.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 慢 SQL 环形缓冲区
+ * <p>
+ * 容量固定, 写满后覆盖最早的记录, 写入无锁。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SlowSqlRecorder {
+
+    private final AtomicReferenceArray<SlowSqlRecord> buffer;
+
+    private final AtomicLong index = new AtomicLong();
+
+    public SlowSqlRecorder(int capacity) {
+        this.buffer = new AtomicReferenceArray<>(Math.max(1, capacity));
+    }
+
+    /**
+     * 写入一条记录
+     *
+     * @param record 慢 SQL 记录
+     */
+    public void add(SlowSqlRecord record) {
+        long i = index.getAndIncrement();
+        buffer.set((int) (i % buffer.length()), record);
+    }
+
+    /**
+     * 获取当前缓冲区内的记录, 按时间倒序
+     *
+     * @return 记录列表
+     */
+    public List<SlowSqlRecord> list() {
+        return list(buffer.length());
+    }
+
+    /**
+     * 获取最近的若干条记录, 按时间倒序
+     *
+     * @param limit 最大条数
+     * @return      记录列表
+     */
+    public List<SlowSqlRecord> list(int limit) {
+        long end = index.get();
+        long begin = Math.max(0, end - Math.min(limit, buffer.length()));
+        List<SlowSqlRecord> list = new ArrayList<>((int) (end - begin));
+        for (long i = end - 1; i >= begin; i--) {
+            SlowSqlRecord record = buffer.get((int) (i % buffer.length()));
+            if (record != null) {
+                list.add(record);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 累计写入的慢 SQL 条数
+     *
+     * @return 条数
+     */
+    public long total() {
+        return index.get();
+    }
+
+    /**
+     * 清空缓冲区
+     */
+    public void clear() {
+        for (int i = 0; i < buffer.length(); i++) {
+            buffer.set(i, null);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.yunqi.starter.database.interceptor;
+
+import com.yunqi.starter.common.utils.TraceIdUtil;
+import com.yunqi.starter.database.configuration.DataBaseProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.nutz.dao.DaoException;
+import org.nutz.dao.DaoInterceptor;
+import org.nutz.dao.DaoInterceptorChain;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.sql.DaoStatement;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 指标拦截器
+ * <p>
+ * 按 SQL 模板 + 表 + 调用方法 统计耗时、行数和异常次数并导出到 Micrometer, 标签组合的总数有上限,
+ * 超过阈值的慢 SQL 连同绑定参数、调用方法和链路ID写入 {@link SlowSqlRecorder}。
+ * 遍历调用栈查找调用方法的开销较大, 默认只对慢 SQL 执行。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class SqlMetricsInterceptor implements DaoInterceptor {
+
+    public static final String METER_NAME = "su.database.sql";
+
+    /** 模板或标签组合个数超过上限后统一使用的标签值 */
+    private static final String OTHER = "OTHER";
+
+    /** 查找调用方法时跳过的包 */
+    private static final String[] SKIP_PACKAGES = {
+            "java.", "javax.", "sun.", "jdk.", "com.sun.", "org.nutz.", "org.springframework.",
+            "com.alibaba.druid.", "com.yunqi.starter.database."
+    };
+
+    /** 单个参数值的最大长度 */
+    private static final int MAX_PARAM_LENGTH = 200;
+
+    /** 最多记录的参数行数(批量语句) */
+    private static final int MAX_PARAM_ROWS = 10;
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+
+    private final DataBaseProperties.Interceptor properties;
+
+    private final SlowSqlRecorder recorder;
+
+    private final ConcurrentHashMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Boolean> templates = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    public SqlMetricsInterceptor(ObjectProvider<MeterRegistry> registryProvider, DataBaseProperties.Interceptor properties,
+                                 SlowSqlRecorder recorder) {
+        this.registryProvider = registryProvider;
+        this.properties = properties;
+        this.recorder = recorder;
+    }
+
+    @Override
+    public void filter(DaoInterceptorChain chain) throws DaoException {
+        long beginTime = System.nanoTime();
+        Throwable error = null;
+        try {
+            chain.doChain();
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            long cost = System.nanoTime() - beginTime;
+            try {
+                record(chain.getDaoStatement(), cost, error);
+            } catch (Exception e) {
+                log.warn("SQL 指标记录失败", e);
+            }
+        }
+    }
+
+    /**
+     * 记录一次执行
+     */
+    private void record(DaoStatement st, long cost, Throwable error) {
+        String sql = st.toPreparedStatement();
+        String table = table(st);
+        String type = String.valueOf(st.getSqlType());
+        String caller = properties.isCaller() ? caller() : null;
+        long rows = error == null ? rows(st) : 0;
+
+        MeterRegistry registry = registry();
+        if (registry != null) {
+            Meters m = meters(registry, template(sql), table, type, caller == null ? "" : caller);
+            m.timer.record(cost, TimeUnit.NANOSECONDS);
+            m.rows.record(rows);
+            if (error != null) {
+                m.errors.increment();
+            }
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(cost);
+        if (millis >= properties.getSlowThreshold()) {
+            recorder.add(new SlowSqlRecord()
+                    .setSql(sql)
+                    .setParams(params(st))
+                    .setTable(table)
+                    .setType(type)
+                    .setCaller(caller == null ? caller() : caller)
+                    .setTraceId(TraceIdUtil.getTraceId())
+                    .setCost(millis)
+                    .setRows(rows)
+                    .setError(error == null ? null : error.getMessage())
+                    .setTime(System.currentTimeMillis()));
+        }
+    }
+
+    private MeterRegistry registry() {
+        if (registry == null) {
+            registry = registryProvider.getIfAvailable();
+        }
+        return registry;
+    }
+
+    /**
+     * 标签组合对应的指标, 组合个数超过上限后新的组合除类型外都合并为 OTHER
+     */
+    private Meters meters(MeterRegistry registry, String sql, String table, String type, String caller) {
+        String key = sql + '\u0001' + table + '\u0001' + type + '\u0001' + caller;
+        Meters m = meters.get(key);
+        if (m == null) {
+            if (meters.size() >= properties.getMaxMeters()) {
+                key = OTHER + '\u0001' + OTHER + '\u0001' + type + '\u0001' + OTHER;
+                m = meters.get(key);
+                if (m == null) {
+                    m = meters.computeIfAbsent(key, k -> new Meters(registry, OTHER, OTHER, type, OTHER, properties.isHistogram()));
+                }
+                return m;
+            }
+            m = meters.computeIfAbsent(key, k -> new Meters(registry, sql, table, type, caller, properties.isHistogram()));
+        }
+        return m;
+    }
+
+    /**
+     * SQL 模板标签, 超过上限的模板合并为 OTHER, 避免标签无限增长
+     */
+    private String template(String sql) {
+        if (templates.containsKey(sql)) {
+            return sql;
+        }
+        if (templates.size() >= properties.getMaxTemplates()) {
+            return OTHER;
+        }
+        templates.putIfAbsent(sql, Boolean.TRUE);
+        return sql;
+    }
+
+    private static String table(DaoStatement st) {
+        Entity<?> en = st.getEntity();
+        if (en == null || en.getType() == null || en.getType().getName().startsWith("org.nutz.")) {
+            return "";
+        }
+        return en.getTableName();
+    }
+
+    /**
+     * 返回或影响的行数
+     */
+    private static long rows(DaoStatement st) {
+        if (!st.isSelect()) {
+            return st.getUpdateCount();
+        }
+        Object result = st.getResult();
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return result == null ? 0 : 1;
+    }
+
+    /**
+     * 调用方法, 取调用栈上第一个非框架的方法
+     */
+    private static String caller() {
+        StackTraceElement[] stack = Thread.currentThread().getStackTrace();
+        for (StackTraceElement e : stack) {
+            String className = e.getClassName();
+            if (!skip(className)) {
+                return className + "." + e.getMethodName();
+            }
+        }
+        return "";
+    }
+
+    private static boolean skip(String className) {
+        if (className.contains("$$")) {
+            return true;
+        }
+        for (String pkg : SKIP_PACKAGES) {
+            if (className.startsWith(pkg)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 绑定参数
+     */
+    private static String params(DaoStatement st) {
+        Object[][] matrix = st.getParamMatrix();
+        if (matrix == null || matrix.length == 0) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < matrix.length && i < MAX_PARAM_ROWS; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append('[');
+            Object[] row = matrix[i];
+            for (int j = 0; row != null && j < row.length; j++) {
+                if (j > 0) {
+                    sb.append(", ");
+                }
+                String value = String.valueOf(row[j]);
+                sb.append(value.length() > MAX_PARAM_LENGTH ? value.substring(0, MAX_PARAM_LENGTH) + "..." : value);
+            }
+            sb.append(']');
+        }
+        if (matrix.length > MAX_PARAM_ROWS) {
+            sb.append("\n... ").append(matrix.length - MAX_PARAM_ROWS).append(" more");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 单个标签组合的指标
+     */
+    private static class Meters {
+
+        private final Timer timer;
+
+        private final DistributionSummary rows;
+
+        private final Counter errors;
+
+        Meters(MeterRegistry registry, String sql, String table, String type, String caller, boolean histogram) {
+            this.timer = Timer.builder(METER_NAME)
+                    .description("SQL 执行耗时")
+                    .tag("sql", sql).tag("table", table).tag("type", type).tag("caller", caller)
+                    .publishPercentileHistogram(histogram)
+                    .register(registry);
+            this.rows = DistributionSummary.builder(METER_NAME + ".rows")
+                    .description("SQL 返回或影响的行数")
+                    .tag("sql", sql).tag("table", table).tag("type", type).tag("caller", caller)
+                    .register(registry);
+            this.errors = Counter.builder(METER_NAME + ".errors")
+                    .description("SQL 执行异常次数")
+                    .tag("sql", sql).tag("table", table).tag("type", type).tag("caller", caller)
+                    .register(registry);
+        }
+    }
+}
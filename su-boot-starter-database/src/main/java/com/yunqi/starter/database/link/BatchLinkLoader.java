@@ -0,0 +1,160 @@
+package com.yunqi.starter.database.link;
+
+import org.nutz.dao.Cnd;
+import org.nutz.dao.Condition;
+import org.nutz.dao.Dao;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.entity.LinkField;
+import org.nutz.dao.entity.LinkType;
+import org.nutz.dao.entity.MappingField;
+import org.nutz.dao.util.cri.SqlExpressionGroup;
+
+import java.util.*;
+
+/**
+ * 批量关联查询
+ * <p>
+ * Nutz 的 fetchLinks 对集合中的每个对象单独发起一次关联查询(N+1),
+ * 这里先收集整个列表的关联键, 按 IN (...) 分批查询子表, 再在内存中回填到各个对象上。
+ * 无法安全合并的情况(多对多、带分页的关联条件、非 Cnd 条件等)仍退回到 Nutz 的逐条查询。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class BatchLinkLoader {
+
+    /** 单条 IN 语句中最多的参数个数 */
+    public static int BATCH_SIZE = 500;
+
+    /**
+     * 批量查询关联字段
+     *
+     * @param dao       dao实例
+     * @param entity    主表实体
+     * @param list      主表数据
+     * @param regex     关联字段,为null查询全部,支持通配符 ^(a|b)$
+     * @param linkCnd   关联字段的过滤条件,可以为null
+     * @param <T>       实体类型
+     * @return          传入的数据列表
+     */
+    public static <T> List<T> fetchLinks(Dao dao, Entity<T> entity, List<T> list, String regex, Condition linkCnd) {
+        if (list == null || list.isEmpty()) {
+            return list;
+        }
+        for (LinkField lnk : entity.getLinkFields(regex)) {
+            if (!canBatch(lnk, linkCnd)) {
+                dao.fetchLinks(list, "^" + lnk.getName() + "$", linkCnd);
+                continue;
+            }
+            if (lnk.getLinkType() == LinkType.ONE) {
+                fetchOne(dao, list, lnk);
+            } else {
+                fetchMany(dao, list, lnk, (Cnd) linkCnd);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 判断关联字段能否批量查询
+     */
+    private static boolean canBatch(LinkField lnk, Condition linkCnd) {
+        if (lnk.getHostField() == null || lnk.getLinkedField() == null) {
+            return false;
+        }
+        // 与 Nutz 保持一致: @One 不使用关联条件
+        if (lnk.getLinkType() == LinkType.ONE) {
+            return true;
+        }
+        if (lnk.getLinkType() != LinkType.MANY) {
+            return false;
+        }
+        if (linkCnd == null) {
+            return true;
+        }
+        // 关联条件中的分页是针对每个主对象的, 无法合并
+        return linkCnd instanceof Cnd && ((Cnd) linkCnd).getPager() == null;
+    }
+
+    /**
+     * 一对一
+     */
+    private static <T> void fetchOne(Dao dao, List<T> list, LinkField lnk) {
+        MappingField hostField = lnk.getHostField();
+        MappingField linkedField = lnk.getLinkedField();
+
+        Map<String, Object> children = new HashMap<>();
+        for (List<Object> keys : collectKeys(list, hostField)) {
+            for (Object child : dao.query(lnk.getLinkedEntity().getType(), Cnd.where(linkedField.getName(), "in", keys))) {
+                children.putIfAbsent(keyOf(linkedField.getValue(child)), child);
+            }
+        }
+        for (T obj : list) {
+            Object key = hostField.getValue(obj);
+            lnk.setValue(obj, key == null ? null : children.get(keyOf(key)));
+        }
+    }
+
+    /**
+     * 一对多
+     */
+    private static <T> void fetchMany(Dao dao, List<T> list, LinkField lnk, Cnd linkCnd) {
+        MappingField hostField = lnk.getHostField();
+        MappingField linkedField = lnk.getLinkedField();
+
+        Map<String, List<Object>> children = new HashMap<>();
+        for (List<Object> keys : collectKeys(list, hostField)) {
+            for (Object child : dao.query(lnk.getLinkedEntity().getType(), mergeCondition(linkedField.getName(), keys, linkCnd))) {
+                children.computeIfAbsent(keyOf(linkedField.getValue(child)), k -> new ArrayList<>()).add(child);
+            }
+        }
+        for (T obj : list) {
+            Object key = hostField.getValue(obj);
+            List<Object> value = key == null ? null : children.get(keyOf(key));
+            lnk.setValue(obj, value == null ? new ArrayList<>() : value);
+        }
+    }
+
+    /**
+     * 收集去重后的关联键并按 BATCH_SIZE 分组
+     */
+    private static <T> List<List<Object>> collectKeys(List<T> list, MappingField hostField) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (T obj : list) {
+            Object key = hostField.getValue(obj);
+            if (key != null) {
+                keys.putIfAbsent(keyOf(key), key);
+            }
+        }
+        List<Object> all = new ArrayList<>(keys.values());
+        List<List<Object>> chunks = new ArrayList<>();
+        int size = Math.max(1, BATCH_SIZE);
+        for (int i = 0; i < all.size(); i += size) {
+            chunks.add(all.subList(i, Math.min(i + size, all.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * 合并 IN 条件与关联条件: WHERE key IN (...) AND (关联条件), 排序保持不变
+     */
+    private static Condition mergeCondition(String fieldName, List<Object> keys, Cnd linkCnd) {
+        if (linkCnd == null) {
+            return Cnd.where(fieldName, "in", keys);
+        }
+        Cnd cnd = linkCnd.clone();
+        SqlExpressionGroup where = cnd.where();
+        SqlExpressionGroup origin = where.clone();
+        where.getExps().clear();
+        where.and(Cnd.exp(fieldName, "in", keys));
+        if (!origin.isEmpty()) {
+            where.and(origin);
+        }
+        return cnd;
+    }
+
+    /**
+     * 统一关联键, 避免 Integer/Long 等类型不一致导致匹配不上
+     */
+    private static String keyOf(Object key) {
+        return String.valueOf(key);
+    }
+}
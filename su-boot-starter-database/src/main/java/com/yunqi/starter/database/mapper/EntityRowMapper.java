@@ -0,0 +1,249 @@
+package com.yunqi.starter.database.mapper;
+
+import com.yunqi.starter.common.lang.Lang;
+import org.nutz.dao.entity.Entity;
+import org.nutz.castor.Castors;
+import org.nutz.dao.entity.MappingField;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 针对某个实体和某组结果集列预先编译好的行映射器
+ * <p>
+ * 构建时一次性确定每一列对应的字段、读取方式和赋值的 MethodHandle,
+ * 映射时按列下标读取并直接赋值, 不再逐行按列名查找和反射注入。
+ * 常见类型按下标直接读取, 其余类型仍使用字段上的 ValueAdaptor。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class EntityRowMapper<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final MethodHandle constructor;
+
+    private final ColumnMapping[] mappings;
+
+    EntityRowMapper(Entity<T> en, ResultSetMetaData meta) throws SQLException {
+        try {
+            Constructor<T> ctor = en.getType().getDeclaredConstructor();
+            ctor.setAccessible(true);
+            this.constructor = LOOKUP.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw Lang.wrapThrow(e);
+        }
+
+        // 结果集列名(忽略大小写) -> 列下标
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            columns.putIfAbsent(meta.getColumnLabel(i).toLowerCase(), i);
+        }
+
+        List<ColumnMapping> list = new ArrayList<>();
+        for (MappingField mf : en.getMappingFields()) {
+            Integer index = columns.get(mf.getColumnName().toLowerCase());
+            if (index != null) {
+                list.add(new ColumnMapping(mf, index, setter(en, mf)));
+            }
+        }
+        this.mappings = list.toArray(new ColumnMapping[0]);
+    }
+
+    /**
+     * 映射当前行
+     *
+     * @param rs    结果集
+     * @return      实体对象
+     */
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet rs) throws SQLException {
+        try {
+            Object obj = constructor.invokeExact();
+            for (ColumnMapping mapping : mappings) {
+                Object value = mapping.read(rs);
+                // 基本类型字段遇到 NULL 保持默认值
+                if (value != null || !mapping.primitive) {
+                    mapping.setter.invokeExact(obj, value);
+                }
+            }
+            return (T) obj;
+        } catch (SQLException | RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw Lang.wrapThrow(e);
+        }
+    }
+
+    /**
+     * 获取字段赋值句柄, 与 Nutz 一致优先使用 setter
+     */
+    private static MethodHandle setter(Entity<?> en, MappingField mf) {
+        try {
+            Field field = en.getMirror().getField(mf.getName());
+            MethodHandle handle;
+            try {
+                Method method = en.getMirror().getSetter(field);
+                method.setAccessible(true);
+                handle = LOOKUP.unreflect(method);
+            } catch (NoSuchMethodException e) {
+                field.setAccessible(true);
+                handle = LOOKUP.unreflectSetter(field);
+            }
+            // 统一成 (Object, Object)void, 丢弃 setter 可能的返回值
+            handle = handle.asType(handle.type().changeReturnType(void.class));
+            return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw Lang.wrapThrow(e);
+        }
+    }
+
+    /**
+     * 单列映射
+     */
+    private static class ColumnMapping {
+
+        private final MappingField field;
+
+        private final int index;
+
+        /** 按下标读取的方式, 为 null 时使用字段的 ValueAdaptor */
+        private final Reader reader;
+
+        private final MethodHandle setter;
+
+        private final boolean primitive;
+
+        ColumnMapping(MappingField field, int index, MethodHandle setter) {
+            this.field = field;
+            this.index = index;
+            this.setter = setter;
+            // 自定义 ValueAdaptor 的字段保持原有读取方式
+            boolean custom = field.getAdaptor() != null && !field.getAdaptor().getClass().getName().startsWith("org.nutz.");
+            this.reader = custom ? null : Reader.of(field.getTypeClass());
+            this.primitive = field.getTypeClass().isPrimitive();
+        }
+
+        Object read(ResultSet rs) throws SQLException {
+            if (reader == null) {
+                // 与 Nutz 注入时一致, 把 ValueAdaptor 的结果转换为字段类型(如枚举)
+                Object value = field.getAdaptor().get(rs, field.getColumnName());
+                return value == null ? null : Castors.me().castTo(value, field.getTypeClass());
+            }
+            return reader.read(rs, index);
+        }
+    }
+
+    /**
+     * 按下标读取列值
+     */
+    private enum Reader {
+        STRING {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                return rs.getString(i);
+            }
+        },
+        INT {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                return rs.getInt(i);
+            }
+        },
+        INTEGER {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                int v = rs.getInt(i);
+                return rs.wasNull() ? null : v;
+            }
+        },
+        LONG {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                return rs.getLong(i);
+            }
+        },
+        LONG_OBJ {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                long v = rs.getLong(i);
+                return rs.wasNull() ? null : v;
+            }
+        },
+        DOUBLE {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                return rs.getDouble(i);
+            }
+        },
+        DOUBLE_OBJ {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                double v = rs.getDouble(i);
+                return rs.wasNull() ? null : v;
+            }
+        },
+        BOOLEAN {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                return rs.getBoolean(i);
+            }
+        },
+        BOOLEAN_OBJ {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                boolean v = rs.getBoolean(i);
+                return rs.wasNull() ? null : v;
+            }
+        },
+        BIG_DECIMAL {
+            @Override
+            Object read(ResultSet rs, int i) throws SQLException {
+                return rs.getBigDecimal(i);
+            }
+        };
+
+        abstract Object read(ResultSet rs, int i) throws SQLException;
+
+        /**
+         * 按字段类型选择读取方式
+         * @param type  字段类型
+         * @return      读取方式, 其余类型返回 null
+         */
+        static Reader of(Class<?> type) {
+            if (type == String.class) {
+                return STRING;
+            } else if (type == int.class) {
+                return INT;
+            } else if (type == Integer.class) {
+                return INTEGER;
+            } else if (type == long.class) {
+                return LONG;
+            } else if (type == Long.class) {
+                return LONG_OBJ;
+            } else if (type == double.class) {
+                return DOUBLE;
+            } else if (type == Double.class) {
+                return DOUBLE_OBJ;
+            } else if (type == boolean.class) {
+                return BOOLEAN;
+            } else if (type == Boolean.class) {
+                return BOOLEAN_OBJ;
+            } else if (type == BigDecimal.class) {
+                return BIG_DECIMAL;
+            }
+            return null;
+        }
+    }
+}
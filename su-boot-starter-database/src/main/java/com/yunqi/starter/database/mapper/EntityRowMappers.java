@@ -0,0 +1,116 @@
+package com.yunqi.starter.database.mapper;
+
+import com.yunqi.starter.common.lang.Lang;
+import org.nutz.dao.FieldFilter;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.pager.ResultSetLooping;
+import org.nutz.dao.sql.SqlCallback;
+import org.nutz.dao.sql.SqlContext;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 行映射器缓存
+ * <p>
+ * 以 实体类型 + 结果集列 为键缓存 {@link EntityRowMapper}, 并提供可直接用于 Sql 的回调。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class EntityRowMappers {
+
+    /** 是否启用预编译行映射(默认关闭, 由 su.database.global.compiled-mapper 开启) */
+    public static boolean ENABLED = false;
+
+    /** 流式查询的 fetchSize, 0 表示自动(MySql 逐行读取, 其他数据库 1000) */
+    public static int STREAM_FETCH_SIZE = 0;
+
+    private static final ConcurrentHashMap<String, EntityRowMapper<?>> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 获取行映射器
+     *
+     * @param en    实体
+     * @param meta  结果集元数据
+     * @param <T>   实体类型
+     * @return      行映射器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityRowMapper<T> get(Entity<T> en, ResultSetMetaData meta) throws SQLException {
+        StringBuilder key = new StringBuilder(en.getType().getName());
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            key.append(',').append(meta.getColumnLabel(i));
+        }
+        EntityRowMapper<?> mapper = CACHE.get(key.toString());
+        if (mapper == null) {
+            mapper = new EntityRowMapper<>(en, meta);
+            EntityRowMapper<?> old = CACHE.putIfAbsent(key.toString(), mapper);
+            if (old != null) {
+                mapper = old;
+            }
+        }
+        return (EntityRowMapper<T>) mapper;
+    }
+
+    /**
+     * 实体列表回调, 与 Sqls.callback.entities() 的结果一致
+     * <p>
+     * 实体设置了字段过滤或需要通过 ResultSet 构造时, 退回到 Nutz 的映射方式
+     *
+     * @return  回调
+     */
+    public static SqlCallback entities() {
+        return (conn, rs, sql) -> {
+            Entity<?> en = sql.getEntity();
+            if (!supports(en) || sql.getContext().getFieldMatcher() != null) {
+                return Sqls.callback.entities().invoke(conn, rs, sql);
+            }
+            EntityRowMapper<?> mapper = get(en, rs.getMetaData());
+            ResultSetLooping ing = new ResultSetLooping() {
+                @Override
+                protected boolean createObject(int index, ResultSet rs, SqlContext context, int rowCount) {
+                    try {
+                        this.list.add(mapper.map(rs));
+                    } catch (SQLException e) {
+                        throw Lang.wrapThrow(e);
+                    }
+                    return true;
+                }
+            };
+            ing.doLoop(rs, sql.getContext());
+            return ing.getList();
+        };
+    }
+
+    /**
+     * 实体能否使用预编译行映射
+     *
+     * @param en    实体
+     * @return      true 可以
+     */
+    public static boolean supports(Entity<?> en) {
+        if (en == null || FieldFilter.get(en.getType()) != null) {
+            return false;
+        }
+        try {
+            en.getType().getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+        try {
+            en.getType().getDeclaredConstructor(ResultSet.class);
+            return false;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+}
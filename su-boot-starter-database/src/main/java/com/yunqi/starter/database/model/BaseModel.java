@@ -1,7 +1,8 @@
 package com.yunqi.starter.database.model;
 
 import com.yunqi.starter.common.lang.Strings;
-import com.yunqi.starter.security.utils.SecuritySessionUtil;
+import com.yunqi.starter.database.audit.AuditContext;
+import com.yunqi.starter.database.audit.AuditUser;
 import lombok.Data;
 import org.nutz.dao.entity.annotation.*;
 import org.nutz.dao.interceptor.annotation.PrevInsert;
@@ -105,14 +106,13 @@ public abstract class BaseModel implements Serializable {
      * @return          用户ID
      */
     private String getUidString(String uid) {
-        // 获取Session中的用户ID
-        try {
-            // fix: 防止在非Web上下文无法获取Request
-            return SecuritySessionUtil.getUserId();
-        } catch (Exception ignored) {
+        // 获取当前操作用户(作用域或已登录请求)的用户ID
+        AuditUser user = AuditContext.current();
+        if (user != null) {
+            return user.getUserId();
         }
 
-        // 如果Session中的用户ID不存在,则验证记录是否存在用户ID
+        // 如果当前没有操作用户,则验证记录是否存在用户ID
         if (Strings.isNotBlank(uid)) {
             return uid;
         }
@@ -125,13 +125,13 @@ public abstract class BaseModel implements Serializable {
      * @return          用户名
      */
     private String getUserNickname(String nickname) {
-        // 获取Session中的用户名
-        try {
-            return SecuritySessionUtil.getUserNickname();
-        } catch (Exception ignored) {
+        // 获取当前操作用户(作用域或已登录请求)的用户名
+        AuditUser user = AuditContext.current();
+        if (user != null) {
+            return user.getNickname();
         }
 
-        // 如果Session中的用户名不存在,则验证记录是否存在用户名
+        // 如果当前没有操作用户,则验证记录是否存在用户名
         if (Strings.isNotBlank(nickname)) {
             return nickname;
         }
@@ -0,0 +1,38 @@
+package com.yunqi.starter.database.model;
+
+import lombok.Data;
+import org.nutz.dao.entity.annotation.*;
+
+import java.io.Serializable;
+
+/**
+ * 实体结构指纹, 用于启动时跳过未变更实体的建表与变更
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+@Table("su_schema_fingerprint")
+public class SchemaFingerprint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Name
+    @Column
+    @Comment("实体类名")
+    @ColDefine(type = ColType.VARCHAR, width = 255)
+    private String entityClass;
+
+    @Column
+    @Comment("表名")
+    @ColDefine(type = ColType.VARCHAR, width = 128)
+    private String tableName;
+
+    @Column
+    @Comment("结构指纹")
+    @ColDefine(type = ColType.VARCHAR, width = 64)
+    private String fingerprint;
+
+    @Column
+    @Comment("更新时间")
+    private Long updatedAt;
+
+}
@@ -0,0 +1,26 @@
+package com.yunqi.starter.database.partition;
+
+import java.lang.annotation.*;
+
+/**
+ * 分表实体
+ * <p>
+ * 实体表名需要包含动态部分, 例如 {@code @Table("t_order_${part}")},
+ * 分区标识由 {@link PartitionStrategy} 根据分区键的值计算后替换到表名中。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Partition {
+
+    /**
+     * 分区键(实体字段名)
+     */
+    String field();
+
+    /**
+     * 分区策略
+     */
+    Class<? extends PartitionStrategy> strategy() default TimePartitionStrategy.Month.class;
+}
@@ -0,0 +1,27 @@
+package com.yunqi.starter.database.partition;
+
+import java.util.List;
+
+/**
+ * 分区策略, 将分区键的值映射为表名中的分区标识
+ * Created by @author CHQ on 2026/10/19
+ */
+public interface PartitionStrategy {
+
+    /**
+     * 分区键的值对应的分区标识
+     *
+     * @param value 分区键的值
+     * @return      分区标识, 例如 202401
+     */
+    String partition(Object value);
+
+    /**
+     * 范围内的全部分区标识(包含两端), 按时间先后排列
+     *
+     * @param from  起始值
+     * @param to    结束值
+     * @return      分区标识列表
+     */
+    List<String> partitions(Object from, Object to);
+}
@@ -0,0 +1,99 @@
+package com.yunqi.starter.database.partition;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 按时间分区
+ * <p>
+ * 分区键支持 Date、Long(毫秒时间戳)、Instant、LocalDate、LocalDateTime。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class TimePartitionStrategy implements PartitionStrategy {
+
+    private final DateTimeFormatter formatter;
+
+    private final ChronoUnit unit;
+
+    /**
+     * @param pattern   分区标识格式, 例如 yyyyMM
+     * @param unit      分区粒度, 支持 DAYS、MONTHS、YEARS
+     */
+    public TimePartitionStrategy(String pattern, ChronoUnit unit) {
+        this.formatter = DateTimeFormatter.ofPattern(pattern);
+        this.unit = unit;
+    }
+
+    @Override
+    public String partition(Object value) {
+        return formatter.format(toDate(value));
+    }
+
+    @Override
+    public List<String> partitions(Object from, Object to) {
+        LocalDate begin = truncate(toDate(from));
+        LocalDate end = truncate(toDate(to));
+        List<String> list = new ArrayList<>();
+        for (LocalDate date = begin; !date.isAfter(end); date = date.plus(1, unit)) {
+            list.add(formatter.format(date));
+        }
+        return list;
+    }
+
+    private LocalDate truncate(LocalDate date) {
+        switch (unit) {
+            case YEARS:
+                return date.withDayOfYear(1);
+            case MONTHS:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+
+    private static LocalDate toDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        } else if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toLocalDate();
+        } else if (value instanceof Instant) {
+            return ((Instant) value).atZone(ZoneId.systemDefault()).toLocalDate();
+        } else if (value instanceof Date) {
+            return Instant.ofEpochMilli(((Date) value).getTime()).atZone(ZoneId.systemDefault()).toLocalDate();
+        } else if (value instanceof Number) {
+            return Instant.ofEpochMilli(((Number) value).longValue()).atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+        throw new IllegalArgumentException("不支持的分区键类型: " + (value == null ? null : value.getClass()));
+    }
+
+    /**
+     * 按月分区, 标识为 yyyyMM
+     */
+    public static class Month extends TimePartitionStrategy {
+        public Month() {
+            super("yyyyMM", ChronoUnit.MONTHS);
+        }
+    }
+
+    /**
+     * 按天分区, 标识为 yyyyMMdd
+     */
+    public static class Day extends TimePartitionStrategy {
+        public Day() {
+            super("yyyyMMdd", ChronoUnit.DAYS);
+        }
+    }
+
+    /**
+     * 按年分区, 标识为 yyyy
+     */
+    public static class Year extends TimePartitionStrategy {
+        public Year() {
+            super("yyyy", ChronoUnit.YEARS);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.yunqi.starter.database.service;
 
 import com.yunqi.starter.common.lang.util.NutMap;
 import com.yunqi.starter.common.page.Pagination;
+import com.yunqi.starter.database.async.AsyncBaseService;
+import com.yunqi.starter.database.bulk.BulkResult;
 import org.nutz.dao.Chain;
 import org.nutz.dao.Condition;
 import org.nutz.dao.Dao;
@@ -12,6 +14,7 @@ import org.nutz.dao.sql.Sql;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Service接口
@@ -32,6 +35,13 @@ public interface BaseService<T>{
      */
     Class<T> getEntityClass();
 
+    /**
+     * 获取异步版本, 用于多个独立查询并行执行
+     *
+     * @return 异步 Service
+     */
+    AsyncBaseService<T> async();
+
     /**
      * 统计对象表条数
      *
@@ -117,6 +127,16 @@ public interface BaseService<T>{
      */
     <T> T fetchLinks(T obj, String regex, Condition cnd);
 
+    /**
+     * 批量查询关联表, 每个关联字段按 IN 分批查询, 避免逐条查询(N+1)
+     *
+     * @param list      数据列表
+     * @param regex     为null查询全部,支持通配符 ^(a|b)$
+     * @param cnd       关联字段的过滤(排序,条件语句等),可以为null
+     * @return          传入的数据列表
+     */
+    List<T> fetchLinksBatch(List<T> list, String regex, Condition cnd);
+
 
     /**
      * 复合主键专用
@@ -453,6 +473,42 @@ public interface BaseService<T>{
      */
     int vDelete(List<String> ids);
 
+    /**
+     * 分块批量删除, 每块在独立的短事务中执行
+     *
+     * @param ids   对象ID集合
+     * @return      执行结果
+     */
+    BulkResult bulkDelete(List<?> ids);
+
+    /**
+     * 分块批量删除, 每块在独立的短事务中执行
+     *
+     * @param ids           对象ID集合
+     * @param chunkSize     分块大小
+     * @param parallelism   并发数
+     * @return              执行结果
+     */
+    BulkResult bulkDelete(List<?> ids, int chunkSize, int parallelism);
+
+    /**
+     * 分块批量伪删除, 每块在独立的短事务中执行
+     *
+     * @param ids   对象ID集合
+     * @return      执行结果
+     */
+    BulkResult bulkVDelete(List<?> ids);
+
+    /**
+     * 分块批量伪删除, 每块在独立的短事务中执行
+     *
+     * @param ids           对象ID集合
+     * @param chunkSize     分块大小
+     * @param parallelism   并发数
+     * @return              执行结果
+     */
+    BulkResult bulkVDelete(List<?> ids, int chunkSize, int parallelism);
+
     /**
      * 根据条件进行伪删除
      *
@@ -637,6 +693,15 @@ public interface BaseService<T>{
      */
     List<T> listEntity(Sql sql);
 
+    /**
+     * 流式遍历查询结果, 使用游标逐行读取并回调, 不在内存中保存整个结果集
+     *
+     * @param cnd       查询条件
+     * @param consumer  逐行回调
+     * @return          遍历的行数
+     */
+    int stream(Condition cnd, Consumer<T> consumer);
+
     /**
      * 自定义sql获取map key-value
      *
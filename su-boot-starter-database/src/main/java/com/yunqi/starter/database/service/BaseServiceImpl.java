@@ -4,22 +4,87 @@ package com.yunqi.starter.database.service;
 import com.yunqi.starter.common.lang.Strings;
 import com.yunqi.starter.common.lang.util.NutMap;
 import com.yunqi.starter.common.page.Pagination;
+import com.yunqi.starter.database.archive.SoftDeleteArchiver;
+import com.yunqi.starter.database.async.AsyncBaseService;
+import com.yunqi.starter.database.async.AsyncDaoExecutor;
+import com.yunqi.starter.database.bulk.BulkResult;
+import com.yunqi.starter.database.bulk.ChunkedExecutor;
+import com.yunqi.starter.database.cache.SqlResultCache;
+import com.yunqi.starter.database.link.BatchLinkLoader;
+import com.yunqi.starter.database.mapper.EntityRowMapper;
+import com.yunqi.starter.database.mapper.EntityRowMappers;
+import com.yunqi.starter.database.sql.CompiledSqlCache;
+import com.yunqi.starter.database.sql.CountSqlRewriter;
 import org.nutz.dao.*;
 import org.nutz.dao.entity.Entity;
+import org.nutz.dao.entity.MappingField;
 import org.nutz.dao.entity.Record;
 import org.nutz.dao.pager.Pager;
+import org.nutz.dao.sql.Criteria;
 import org.nutz.dao.sql.Sql;
 import org.nutz.dao.util.Daos;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Created by @author CHQ on 2022/1/29
  */
 public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<T> {
 
+    private AsyncBaseService<T> async;
+
+    protected AsyncDaoExecutor asyncDaoExecutor;
+
+    /** 事务管理器, 有多个时不能确定使用哪一个, 分块执行不使用事务 */
+    private ObjectProvider<PlatformTransactionManager> transactionManager;
+
+    private volatile ChunkedExecutor chunkedExecutor;
+
+    @Autowired(required = false)
+    public void setAsyncDaoExecutor(AsyncDaoExecutor asyncDaoExecutor) {
+        this.asyncDaoExecutor = asyncDaoExecutor;
+        this.async = new AsyncBaseService<>(this, asyncDaoExecutor);
+    }
+
+    @Autowired
+    public void setTransactionManager(ObjectProvider<PlatformTransactionManager> transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * 分块执行器
+     *
+     * @return 分块执行器
+     */
+    protected ChunkedExecutor chunkedExecutor() {
+        if (chunkedExecutor == null) {
+            chunkedExecutor = new ChunkedExecutor(transactionManager == null ? null : transactionManager.getIfUnique(),
+                    asyncDaoExecutor);
+        }
+        return chunkedExecutor;
+    }
+
+    /**
+     * 获取异步版本, 用于多个独立查询并行执行
+     *
+     * @return 异步 Service
+     */
+    @Override
+    public AsyncBaseService<T> async() {
+        if (async == null) {
+            throw new IllegalStateException("AsyncDaoExecutor 未配置");
+        }
+        return async;
+    }
+
     /**
      * 获取实体的Entity
      *
@@ -161,6 +226,19 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
         return dao().fetchLinks(obj, regex, cnd);
     }
 
+    /**
+     * 批量查询关联表, 每个关联字段按 IN 分批查询, 避免逐条查询(N+1)
+     *
+     * @param list      数据列表
+     * @param regex     为null查询全部,支持通配符 ^(a|b)$
+     * @param cnd       关联字段的过滤(排序,条件语句等),可以为null
+     * @return          传入的数据列表
+     */
+    @Override
+    public List<T> fetchLinksBatch(List<T> list, String regex, Condition cnd) {
+        return BatchLinkLoader.fetchLinks(dao(), this.getEntity(), list, regex, cnd);
+    }
+
     /**
      * 复合主键专用
      *
@@ -581,7 +659,7 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public int vDelete(String id) {
-        return dao().update(this.getEntityClass(), Chain.make("delFlag", true), Cnd.where("id", EQ, id));
+        return dao().update(this.getEntityClass(), this.vDeleteChain(), Cnd.where("id", EQ, id));
     }
 
     /**
@@ -592,7 +670,7 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public int vDelete(String[] ids) {
-        return dao().update(this.getEntityClass(), Chain.make("delFlag", true), Cnd.where("id", IN, ids));
+        return dao().update(this.getEntityClass(), this.vDeleteChain(), Cnd.where("id", IN, ids));
     }
 
     /**
@@ -603,7 +681,57 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public int vDelete(List<String> ids) {
-        return dao().update(this.getEntityClass(), Chain.make("delFlag", true), Cnd.where("id", IN, ids));
+        return dao().update(this.getEntityClass(), this.vDeleteChain(), Cnd.where("id", IN, ids));
+    }
+
+    /**
+     * 分块批量删除, 每块在独立的短事务中执行
+     *
+     * @param ids   对象ID集合
+     * @return      执行结果
+     */
+    @Override
+    public BulkResult bulkDelete(List<?> ids) {
+        return this.bulkDelete(ids, ChunkedExecutor.CHUNK_SIZE, ChunkedExecutor.PARALLELISM);
+    }
+
+    /**
+     * 分块批量删除, 每块在独立的短事务中执行
+     *
+     * @param ids           对象ID集合
+     * @param chunkSize     分块大小
+     * @param parallelism   并发数
+     * @return              执行结果
+     */
+    @Override
+    public BulkResult bulkDelete(List<?> ids, int chunkSize, int parallelism) {
+        return this.chunkedExecutor().execute(ids, chunkSize, parallelism,
+                chunk -> dao().clear(this.getEntityClass(), Cnd.where("id", IN, chunk)));
+    }
+
+    /**
+     * 分块批量伪删除, 每块在独立的短事务中执行
+     *
+     * @param ids   对象ID集合
+     * @return      执行结果
+     */
+    @Override
+    public BulkResult bulkVDelete(List<?> ids) {
+        return this.bulkVDelete(ids, ChunkedExecutor.CHUNK_SIZE, ChunkedExecutor.PARALLELISM);
+    }
+
+    /**
+     * 分块批量伪删除, 每块在独立的短事务中执行
+     *
+     * @param ids           对象ID集合
+     * @param chunkSize     分块大小
+     * @param parallelism   并发数
+     * @return              执行结果
+     */
+    @Override
+    public BulkResult bulkVDelete(List<?> ids, int chunkSize, int parallelism) {
+        return this.chunkedExecutor().execute(ids, chunkSize, parallelism,
+                chunk -> dao().update(this.getEntityClass(), this.vDeleteChain(), Cnd.where("id", IN, chunk)));
     }
 
     /**
@@ -614,7 +742,25 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public int vDelete(Condition cnd) {
-        return dao().update(this.getEntityClass(), Chain.make("delFlag", true), cnd);
+        return dao().update(this.getEntityClass(), this.vDeleteChain(), cnd);
+    }
+
+    /**
+     * 伪删除的更新内容, 开启伪删除数据归档时同时在 archive.timeField 字段记录删除时间(归档以此判断保留期)
+     *
+     * @return  更新内容
+     */
+    protected Chain vDeleteChain() {
+        Chain chain = Chain.make("delFlag", true);
+        String timeField = SoftDeleteArchiver.TIME_FIELD;
+        MappingField field = timeField == null ? null : this.getEntity().getField(timeField);
+        if (field != null) {
+            Object value = SoftDeleteArchiver.timeValue(field.getTypeClass(), System.currentTimeMillis());
+            if (value != null) {
+                chain.add(timeField, value);
+            }
+        }
+        return chain;
     }
 
     /**
@@ -701,6 +847,9 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public List<T> query(Condition cnd) {
+        if (EntityRowMappers.ENABLED || CompiledSqlCache.ENABLED) {
+            return this.queryCompiled(cnd, null);
+        }
         return dao().query(this.getEntityClass(), cnd);
     }
 
@@ -728,9 +877,9 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public List<T> query(Condition cnd, String linkName) {
-        List<T> list = dao().query(this.getEntityClass(), cnd);
+        List<T> list = this.query(cnd);
         if (!Strings.isBlank(linkName)) {
-            dao().fetchLinks(list, linkName);
+            this.fetchLinksBatch(list, linkName, null);
         }
         return list;
     }
@@ -745,9 +894,9 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public List<T> query(Condition cnd, String linkName, Condition linkCnd) {
-        List<T> list = dao().query(this.getEntityClass(), cnd);
+        List<T> list = this.query(cnd);
         if (!Strings.isBlank(linkName)) {
-            dao().fetchLinks(list, linkName, linkCnd);
+            this.fetchLinksBatch(list, linkName, linkCnd);
         }
         return list;
     }
@@ -773,9 +922,9 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public List<T> query(Condition cnd, String linkName, Pager pager) {
-        List<T> list = dao().query(this.getEntityClass(), cnd, pager);
+        List<T> list = this.query(cnd, pager);
         if (!Strings.isBlank(linkName)) {
-            dao().fetchLinks(list, linkName);
+            this.fetchLinksBatch(list, linkName, null);
         }
         return list;
     }
@@ -791,9 +940,9 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public List<T> query(Condition cnd, String linkName, Condition linkCnd, Pager pager) {
-        List<T> list = dao().query(this.getEntityClass(), cnd, pager);
+        List<T> list = this.query(cnd, pager);
         if (!Strings.isBlank(linkName)) {
-            dao().fetchLinks(list, linkName, linkCnd);
+            this.fetchLinksBatch(list, linkName, linkCnd);
         }
         return list;
     }
@@ -807,6 +956,9 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public List<T> query(Condition cnd, Pager pager) {
+        if (EntityRowMappers.ENABLED || CompiledSqlCache.ENABLED) {
+            return this.queryCompiled(cnd, pager);
+        }
         return dao().query(this.getEntityClass(), cnd, pager);
     }
 
@@ -882,11 +1034,44 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
     @Override
     public List<T> listEntity(Sql sql) {
         sql.setEntity(this.getEntity());
-        sql.setCallback(Sqls.callback.entities());
+        sql.setCallback(EntityRowMappers.ENABLED ? EntityRowMappers.entities() : Sqls.callback.entities());
         dao().execute(sql);
         return sql.getList(this.getEntityClass());
     }
 
+    /**
+     * 流式遍历查询结果, 使用游标逐行读取并回调, 不在内存中保存整个结果集
+     * <p>
+     * MySql 使用逐行读取(fetchSize = Integer.MIN_VALUE), 其他数据库按 streamFetchSize 分批读取
+     *
+     * @param cnd       查询条件
+     * @param consumer  逐行回调
+     * @return          遍历的行数
+     */
+    @Override
+    public int stream(Condition cnd, Consumer<T> consumer) {
+        Entity<T> entity = this.getEntity();
+        if (entity.getViewName().contains("$")) {
+            return dao().each(this.getEntityClass(), cnd, (index, ele, length) -> consumer.accept(ele));
+        }
+        Sql sql = Sqls.create("SELECT * FROM " + entity.getViewName() + " $condition");
+        sql.setCondition(cnd);
+        sql.setEntity(entity);
+        int fetchSize = EntityRowMappers.STREAM_FETCH_SIZE;
+        sql.getContext().setFetchSize(fetchSize != 0 ? fetchSize : (dao().meta().isMySql() ? Integer.MIN_VALUE : 1000));
+        sql.setCallback((conn, rs, s) -> {
+            EntityRowMapper<T> mapper = EntityRowMappers.supports(entity) ? EntityRowMappers.get(entity, rs.getMetaData()) : null;
+            int count = 0;
+            while (rs.next()) {
+                consumer.accept(mapper != null ? mapper.map(rs) : entity.getObject(rs, null));
+                count++;
+            }
+            return count;
+        });
+        dao().execute(sql);
+        return sql.getInt();
+    }
+
     /**
      * 自定义sql获取map key-value
      *
@@ -934,7 +1119,35 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public List<T> query(Condition cnd, Pagination<T> pagination) {
-        return dao().query(this.getEntityClass(), cnd, new Pager(pagination.getPage(), pagination.getPageSize()));
+        return this.query(cnd, new Pager(pagination.getPage(), pagination.getPageSize()));
+    }
+
+    /**
+     * 使用预编译行映射或缓存的查询语句查询实体列表, 表名为动态表名时退回到 Nutz 的查询方式
+     *
+     * @param cnd   查询条件
+     * @param pager 分页对象,可以为null
+     * @return      对象列表
+     */
+    protected List<T> queryCompiled(Condition cnd, Pager pager) {
+        Entity<T> entity = this.getEntity();
+        boolean mapper = EntityRowMappers.ENABLED && EntityRowMappers.supports(entity);
+        if ((!mapper && !CompiledSqlCache.ENABLED) || entity.getViewName().contains("$")) {
+            return dao().query(this.getEntityClass(), cnd, pager);
+        }
+        if (pager == null && cnd instanceof Criteria) {
+            pager = ((Criteria) cnd).getPager();
+        }
+        Sql sql = CompiledSqlCache.ENABLED ? CompiledSqlCache.query(entity, cnd) : null;
+        if (sql == null) {
+            sql = Sqls.create("SELECT * FROM " + entity.getViewName() + " $condition");
+            sql.setCondition(cnd);
+        }
+        sql.setEntity(entity);
+        sql.setPager(pager);
+        sql.setCallback(mapper ? EntityRowMappers.entities() : Sqls.callback.entities());
+        dao().execute(sql);
+        return sql.getList(this.getEntityClass());
     }
 
     /**
@@ -1006,11 +1219,7 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
     public Pagination<T> listPageLinks(int page, int pageSize, Condition cnd, String linkName, Condition subCnd) {
         List<T> list = this.query( cnd, new Pagination<>(page, pageSize));
         if (!Strings.isBlank(linkName)) {
-            if (subCnd != null) {
-                this.fetchLinks(list, linkName, subCnd);
-            } else {
-                this.fetchLinks(list, linkName);
-            }
+            this.fetchLinksBatch(list, linkName, subCnd);
         }
         return Pagination.<T> build(page, pageSize)
                 .list(list)
@@ -1029,7 +1238,7 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
     public Pagination<T> listPageLinks(int page, int pageSize, Condition cnd, String linkName) {
         List<T> list = this.query( cnd, new Pagination<>(page, pageSize));
         if (!Strings.isBlank(linkName)) {
-            this.fetchLinks(list, linkName);
+            this.fetchLinksBatch(list, linkName, null);
         }
         return Pagination.<T> build(page, pageSize)
                 .list(list)
@@ -1064,13 +1273,15 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public Pagination<Record> listPage(int page, int pageSize, Sql sql) {
-        int count = (int) Daos.queryCount(dao(), sql);
-        sql.setPager(new Pager(page, pageSize));
-        sql.setCallback(Sqls.callback.records());
-        this.execute(sql);
-        return Pagination.<Record> build(page, pageSize)
-                .list(sql.getList(Record.class))
-                .totalCount(count);
+        return this.cached("record", page, pageSize, sql, null, () -> {
+            int count = (int) CountSqlRewriter.count(dao(), sql);
+            sql.setPager(new Pager(page, pageSize));
+            sql.setCallback(Sqls.callback.records());
+            this.execute(sql);
+            return Pagination.<Record> build(page, pageSize)
+                    .list(sql.getList(Record.class))
+                    .totalCount(count);
+        });
     }
 
     /**
@@ -1095,14 +1306,16 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public Pagination<Map> listPageMap(int page, int pageSize, Sql sql) {
-        int count = (int) Daos.queryCount(dao(), sql);
-        sql.setPager(new Pager(page, pageSize));
-        sql.setCallback(Sqls.callback.maps());
-        this.execute(sql);
-
-        return Pagination.<Map> build(page, pageSize)
-                .list(sql.getList(Map.class))
-                .totalCount(count);
+        return this.cached("map", page, pageSize, sql, null, () -> {
+            int count = (int) CountSqlRewriter.count(dao(), sql);
+            sql.setPager(new Pager(page, pageSize));
+            sql.setCallback(Sqls.callback.maps());
+            this.execute(sql);
+
+            return Pagination.<Map> build(page, pageSize)
+                    .list(sql.getList(Map.class))
+                    .totalCount(count);
+        });
     }
 
     /**
@@ -1116,14 +1329,16 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public Pagination<Map> listPageMap(int page, int pageSize, Sql sql, Sql countSql) {
-        countSql.setCallback(Sqls.callback.integer());
-        this.execute(countSql);
-        sql.setPager(new Pager(page, pageSize));
-        sql.setCallback(Sqls.callback.maps());
-        this.execute(sql);
-        return Pagination.<Map> build(page, pageSize)
-                .list(sql.getList(Map.class))
-                .totalCount(countSql.getInt());
+        return this.cached("map", page, pageSize, sql, countSql, () -> {
+            countSql.setCallback(Sqls.callback.integer());
+            this.execute(countSql);
+            sql.setPager(new Pager(page, pageSize));
+            sql.setCallback(Sqls.callback.maps());
+            this.execute(sql);
+            return Pagination.<Map> build(page, pageSize)
+                    .list(sql.getList(Map.class))
+                    .totalCount(countSql.getInt());
+        });
     }
 
     /**
@@ -1160,15 +1375,17 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
      */
     @Override
     public Pagination<Record> listPage(int page, int pageSize, Sql sql, Sql countSql) {
-        countSql.setCallback(Sqls.callback.integer());
-        this.execute(countSql);
-
-        sql.setPager(new Pager(page, pageSize));
-        sql.setCallback(Sqls.callback.records());
-        this.execute(sql);
-        return Pagination.<Record> build(page, pageSize)
-                .list(sql.getList(Record.class))
-                .totalCount(countSql.getInt());
+        return this.cached("record", page, pageSize, sql, countSql, () -> {
+            countSql.setCallback(Sqls.callback.integer());
+            this.execute(countSql);
+
+            sql.setPager(new Pager(page, pageSize));
+            sql.setCallback(Sqls.callback.records());
+            this.execute(sql);
+            return Pagination.<Record> build(page, pageSize)
+                    .list(sql.getList(Record.class))
+                    .totalCount(countSql.getInt());
+        });
     }
 
     /**
@@ -1181,5 +1398,24 @@ public class BaseServiceImpl<T> extends EntityService<T> implements BaseService<
     public Pagination<Record> listPage(int page, Sql sql, Sql countSql) {
         return listPage(page ,Pagination.DEFAULT_PAGE_SIZE, sql, countSql );
     }
-}
 
+    /**
+     * 使用查询结果缓存(未开启时直接查询)
+     *
+     * @param type      结果类型
+     * @param page      页码
+     * @param pageSize  页面大小
+     * @param sql       查询语句
+     * @param countSql  统计语句,可以为null
+     * @param loader    查询
+     * @return          分页对象列表
+     */
+    protected <R> R cached(String type, int page, int pageSize, Sql sql, Sql countSql, Supplier<R> loader) {
+        if (!SqlResultCache.ENABLED) {
+            return loader.get();
+        }
+        String key = countSql == null ? SqlResultCache.key(type, page, pageSize, sql)
+                : SqlResultCache.key(type, page, pageSize, sql, countSql);
+        return SqlResultCache.get(key, sql, loader);
+    }
+}
@@ -0,0 +1,405 @@
+package com.yunqi.starter.database.service;
+
+import com.yunqi.starter.common.page.Pagination;
+import com.yunqi.starter.database.partition.Partition;
+import com.yunqi.starter.database.partition.PartitionStrategy;
+import com.yunqi.starter.jdbc.dynamic.DataSourceContextHolder;
+import org.nutz.dao.Cnd;
+import org.nutz.dao.Condition;
+import org.nutz.dao.TableName;
+import org.nutz.dao.entity.MappingField;
+import org.nutz.dao.pager.Pager;
+import org.nutz.dao.util.cri.SqlExpressionGroup;
+import org.nutz.lang.Mirror;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 分表 Service
+ * <p>
+ * 实体需要标注 {@link Partition}, 表名包含动态部分, 例如:
+ * <pre>
+ *     &#64;Table("t_order_${part}")
+ *     &#64;Partition(field = "createdAt", strategy = TimePartitionStrategy.Month.class)
+ *     public class Order { ... }
+ * </pre>
+ * 新增按分区键路由到对应的表(表不存在时自动创建), 查询指定分区键的值路由到对应的表,
+ * 范围查询并行查询范围内的各个分表, 再按排序字段多路归并, 总数并行统计后求和;
+ * 各分表的查询条件都会加上 分区键 &gt;= from AND 分区键 &lt;= to, 首尾分表中范围外的记录不会被查出或统计。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class PartitionBaseServiceImpl<T> extends BaseServiceImpl<T> {
+
+    /** 已确认存在的分区, 按 数据源名称 + 分区 保存, 各租户数据源中的分表分别确认 */
+    private final Set<String> existing = ConcurrentHashMap.newKeySet();
+
+    private volatile PartitionStrategy strategy;
+
+    private volatile MappingField partitionField;
+
+    /**
+     * 获取分区策略
+     *
+     * @return 分区策略
+     */
+    public PartitionStrategy getStrategy() {
+        if (strategy == null) {
+            strategy = Mirror.me(partition().strategy()).born();
+        }
+        return strategy;
+    }
+
+    /**
+     * 分区键的值对应的分区标识
+     *
+     * @param value 分区键的值
+     * @return      分区标识
+     */
+    public String partitionOf(Object value) {
+        return getStrategy().partition(value);
+    }
+
+    /**
+     * 在分区键的值对应的分表上执行操作
+     *
+     * @param value     分区键的值
+     * @param supplier  操作
+     * @param <R>       结果类型
+     * @return          结果
+     */
+    public <R> R runIn(Object value, Supplier<R> supplier) {
+        return in(partitionOf(value), supplier);
+    }
+
+    /**
+     * 插入一条记录, 按分区键路由到对应的表
+     *
+     * @param obj 对象
+     * @return    插入后的对象
+     */
+    @Override
+    public <E> E insert(E obj) {
+        if (!this.getEntityClass().isInstance(obj)) {
+            return super.insert(obj);
+        }
+        String part = partitionOf(partitionField().getValue(obj));
+        return in(part, () -> {
+            ensureTable(part);
+            return super.insert(obj);
+        });
+    }
+
+    /**
+     * 快速插入一条记录, 按分区键路由到对应的表
+     *
+     * @param obj 对象
+     * @return    插入后的对象
+     */
+    @Override
+    public <E> E fastInsert(E obj) {
+        if (!this.getEntityClass().isInstance(obj)) {
+            return super.fastInsert(obj);
+        }
+        String part = partitionOf(partitionField().getValue(obj));
+        return in(part, () -> {
+            ensureTable(part);
+            return super.fastInsert(obj);
+        });
+    }
+
+    /**
+     * 根据ID查询
+     *
+     * @param value 分区键的值
+     * @param id    ID
+     * @return      对象
+     */
+    public T fetch(Object value, long id) {
+        return this.runIn(value, () -> super.fetch(id));
+    }
+
+    /**
+     * 根据ID查询
+     *
+     * @param value 分区键的值
+     * @param id    ID
+     * @return      对象
+     */
+    public T fetch(Object value, String id) {
+        return this.runIn(value, () -> super.fetch(id));
+    }
+
+    /**
+     * 根据条件查询
+     *
+     * @param value 分区键的值
+     * @param cnd   查询条件
+     * @return      对象
+     */
+    public T fetch(Object value, Condition cnd) {
+        return this.runIn(value, () -> super.fetch(cnd));
+    }
+
+    /**
+     * 统计范围内各分表的记录数之和
+     *
+     * @param from  分区键起始值
+     * @param to    分区键结束值
+     * @param cnd   查询条件, 只支持 Cnd
+     * @return      数量
+     */
+    public int count(Object from, Object to, Condition cnd) {
+        Cnd bounded = bounded(cnd, from, to);
+        int total = 0;
+        for (Integer count : fanOut(from, to, () -> super.count(bounded))) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 查询范围内各分表的记录, 按排序字段归并
+     *
+     * @param from      分区键起始值
+     * @param to        分区键结束值
+     * @param cnd       查询条件, 只支持 Cnd, 不需要包含排序
+     * @param sortField 排序字段(实体字段名)
+     * @param desc      是否倒序
+     * @return          对象列表
+     */
+    public List<T> query(Object from, Object to, Condition cnd, String sortField, boolean desc) {
+        Cnd sorted = sorted(bounded(cnd, from, to), sortField, desc);
+        return merge(fanOut(from, to, () -> super.query(sorted)), sortField, desc, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 跨分表分页查询
+     * <p>
+     * 每个分表最多取前 page * pageSize 条, 归并后截取当前页, 总数并行统计
+     *
+     * @param from      分区键起始值
+     * @param to        分区键结束值
+     * @param page      页码
+     * @param pageSize  页面大小
+     * @param cnd       查询条件, 只支持 Cnd, 不需要包含排序
+     * @param sortField 排序字段(实体字段名)
+     * @param desc      是否倒序
+     * @return          分页对象列表
+     */
+    public Pagination<T> listPage(Object from, Object to, int page, int pageSize, Condition cnd, String sortField, boolean desc) {
+        Cnd bounded = bounded(cnd, from, to);
+        Cnd sorted = sorted(bounded, sortField, desc);
+        Pager pager = new Pager(1, Math.max(1, page) * pageSize);
+        // 列表与总数的子查询同时提交, 不在执行线程内嵌套等待
+        List<CompletableFuture<List<T>>> lists = fanOutAsync(from, to, () -> super.query(sorted, pager));
+        List<CompletableFuture<Integer>> counts = fanOutAsync(from, to, () -> super.count(bounded));
+        List<T> list = merge(join(lists), sortField, desc, (Math.max(1, page) - 1) * pageSize, pageSize);
+        int total = 0;
+        for (Integer count : join(counts)) {
+            total += count;
+        }
+        return Pagination.<T> build(page, pageSize).list(list).totalCount(total);
+    }
+
+    /**
+     * 在范围内的每个已存在的分表上并行执行操作, 结果按分区先后排列
+     */
+    protected <R> List<R> fanOut(Object from, Object to, Supplier<R> supplier) {
+        return join(fanOutAsync(from, to, supplier));
+    }
+
+    /**
+     * 在范围内的每个分表上异步执行操作, 分表不存在时结果为 null
+     */
+    protected <R> List<CompletableFuture<R>> fanOutAsync(Object from, Object to, Supplier<R> supplier) {
+        List<CompletableFuture<R>> futures = new ArrayList<>();
+        for (String part : getStrategy().partitions(from, to)) {
+            futures.add(supply(() -> in(part, () -> exists(part) ? supplier.get() : null)));
+        }
+        return futures;
+    }
+
+    private static <R> List<R> join(List<CompletableFuture<R>> futures) {
+        List<R> list = new ArrayList<>(futures.size());
+        for (CompletableFuture<R> future : futures) {
+            R result = future.join();
+            if (result != null) {
+                list.add(result);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 多路归并, 各列表需已按排序字段有序
+     */
+    protected List<T> merge(List<List<T>> lists, String sortField, boolean desc, int offset, int limit) {
+        MappingField field = this.getEntity().getField(sortField);
+        Comparator<T> comparator = (a, b) -> compare(field.getValue(a), field.getValue(b));
+        if (desc) {
+            comparator = comparator.reversed();
+        }
+        Comparator<T> cmp = comparator;
+        PriorityQueue<Cursor<T>> queue = new PriorityQueue<>((a, b) -> cmp.compare(a.current, b.current));
+        for (List<T> list : lists) {
+            Iterator<T> it = list.iterator();
+            if (it.hasNext()) {
+                queue.add(new Cursor<>(it));
+            }
+        }
+        List<T> result = new ArrayList<>(Math.min(limit, 1024));
+        int skipped = 0;
+        while (!queue.isEmpty() && result.size() < limit) {
+            Cursor<T> cursor = queue.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(cursor.current);
+            }
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object a, Object b) {
+        if (a == b) {
+            return 0;
+        } else if (a == null) {
+            return -1;
+        } else if (b == null) {
+            return 1;
+        }
+        return ((Comparable) a).compareTo(b);
+    }
+
+    private <R> CompletableFuture<R> supply(Supplier<R> supplier) {
+        if (asyncDaoExecutor == null) {
+            return CompletableFuture.completedFuture(supplier.get());
+        }
+        return asyncDaoExecutor.supply(supplier);
+    }
+
+    /**
+     * 复制查询条件并限定分区键的范围, 原条件整体作为一组, 避免与其中的 OR 混合
+     */
+    private Cnd bounded(Condition cnd, Object from, Object to) {
+        Cnd bounded;
+        if (cnd == null) {
+            bounded = Cnd.NEW();
+        } else if (cnd instanceof Cnd) {
+            bounded = ((Cnd) cnd).clone();
+        } else {
+            throw new IllegalArgumentException("跨分表查询条件只支持 Cnd");
+        }
+        SqlExpressionGroup where = bounded.where();
+        if (!where.isEmpty()) {
+            SqlExpressionGroup group = where.clone();
+            where.getExps().clear();
+            where.and(group);
+        }
+        String name = partitionField().getName();
+        if (from != null) {
+            where.and(name, ">=", from);
+        }
+        if (to != null) {
+            where.and(name, "<=", to);
+        }
+        return bounded;
+    }
+
+    private static Cnd sorted(Cnd cnd, String sortField, boolean desc) {
+        Cnd sorted = cnd.clone();
+        sorted.orderBy(sortField, desc ? "desc" : "asc");
+        return sorted;
+    }
+
+    /**
+     * 在指定分区的分表上执行操作
+     */
+    private static <R> R in(String part, Supplier<R> supplier) {
+        Object old = TableName.set(part);
+        try {
+            return supplier.get();
+        } finally {
+            TableName.set(old);
+        }
+    }
+
+    private MappingField partitionField() {
+        if (partitionField == null) {
+            MappingField field = this.getEntity().getField(partition().field());
+            if (field == null) {
+                throw new IllegalStateException("分区键字段不存在: " + partition().field());
+            }
+            partitionField = field;
+        }
+        return partitionField;
+    }
+
+    private Partition partition() {
+        Partition partition = this.getEntityClass().getAnnotation(Partition.class);
+        if (partition == null) {
+            throw new IllegalStateException(this.getEntityClass().getName() + " 未标注 @Partition");
+        }
+        return partition;
+    }
+
+    /**
+     * 当前分表是否存在, 需要在 in 内调用
+     */
+    private boolean exists(String part) {
+        String key = existingKey(part);
+        if (existing.contains(key)) {
+            return true;
+        }
+        if (dao().exists(this.getEntityClass())) {
+            existing.add(key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前分表不存在时创建, 需要在 in 内调用
+     */
+    private void ensureTable(String part) {
+        if (!exists(part)) {
+            dao().create(this.getEntityClass(), false);
+            existing.add(existingKey(part));
+        }
+    }
+
+    private static String existingKey(String part) {
+        String name = DataSourceContextHolder.peek();
+        return name == null ? part : name + '\u0001' + part;
+    }
+
+    /**
+     * 归并游标
+     */
+    private static class Cursor<T> {
+
+        private final Iterator<T> it;
+
+        private T current;
+
+        Cursor(Iterator<T> it) {
+            this.it = it;
+            this.current = it.next();
+        }
+
+        boolean next() {
+            if (it.hasNext()) {
+                current = it.next();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.yunqi.starter.database.sql;
+
+import org.nutz.dao.impl.sql.NutSql;
+import org.nutz.dao.jdbc.ValueAdaptor;
+import org.nutz.dao.sql.Sql;
+import org.nutz.dao.sql.SqlType;
+
+/**
+ * 预编译好的查询语句
+ * <p>
+ * 语句文本和参数适配器来自 {@link CompiledSqlCache}, 本身只保存本次绑定的参数值,
+ * 执行时不再解析模板和渲染条件。分页由 JdbcExpert 以修改语句文本的方式追加。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class CompiledSql extends NutSql {
+
+    private static final long serialVersionUID = 1L;
+
+    private String prepared;
+
+    private final ValueAdaptor[] adaptors;
+
+    private final Object[] values;
+
+    CompiledSql(String prepared, ValueAdaptor[] adaptors, Object[] values) {
+        super();
+        this.prepared = prepared;
+        this.sourceSql = prepared;
+        this.adaptors = adaptors;
+        this.values = values;
+        this.setSqlType(SqlType.SELECT);
+    }
+
+    @Override
+    public void setSourceSql(String sql) {
+        this.sourceSql = sql.trim();
+        this.prepared = this.sourceSql;
+    }
+
+    @Override
+    public String toPreparedStatement() {
+        return prepared;
+    }
+
+    @Override
+    public ValueAdaptor[] getAdaptors() {
+        return adaptors;
+    }
+
+    @Override
+    public Object[][] getParamMatrix() {
+        return new Object[][]{values};
+    }
+
+    @Override
+    protected int _params_count() {
+        return values.length;
+    }
+
+    @Override
+    public Sql duplicate() {
+        return new CompiledSql(prepared, adaptors, values.clone());
+    }
+}
@@ -0,0 +1,142 @@
+package com.yunqi.starter.database.sql;
+
+import org.nutz.dao.Condition;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.jdbc.ValueAdaptor;
+import org.nutz.dao.sql.Criteria;
+import org.nutz.dao.sql.Sql;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按条件结构缓存实体查询语句
+ * <p>
+ * 条件的结构(字段、操作符和占位符, 不含参数值)相同的查询共用一份语句文本和参数适配器,
+ * 每次查询只需要收集参数值。缓存键由 {@link CriteriaShape} 遍历条件树生成, 只在未命中时渲染 SQL。
+ * 只处理 {@link Criteria}(Cnd), 其他条件或无法确定结构的条件返回 null 由调用方按原方式查询。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class CompiledSqlCache {
+
+    /** 是否启用(默认关闭, 由 su.database.global.compiled-sql 开启) */
+    public static boolean ENABLED = false;
+
+    /** 缓存的最大结构个数, 超出后清空重建 */
+    public static int MAX_SIZE = 2000;
+
+    private static final ConcurrentHashMap<String, Template> CACHE = new ConcurrentHashMap<>();
+
+    private static final AtomicLong HITS = new AtomicLong();
+
+    private static final AtomicLong MISSES = new AtomicLong();
+
+    /**
+     * 获取实体查询语句
+     *
+     * @param en    实体
+     * @param cnd   查询条件
+     * @return      查询语句, 条件不是 Criteria 或无法确定结构时返回 null
+     */
+    public static Sql query(Entity<?> en, Condition cnd) {
+        if (cnd != null && !(cnd instanceof Criteria)) {
+            return null;
+        }
+        Criteria cri = (Criteria) cnd;
+        StringBuilder shape = new StringBuilder(128).append(en.getType().getName()).append('|').append(en.getViewName()).append('|');
+        if (cri != null && !CriteriaShape.append(cri, shape)) {
+            return null;
+        }
+        String key = shape.toString();
+
+        Template template = CACHE.get(key);
+        if (template == null) {
+            MISSES.incrementAndGet();
+            template = compile(en, cri);
+            if (CACHE.size() >= MAX_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.put(key, template);
+        } else {
+            HITS.incrementAndGet();
+        }
+
+        Object[] values = new Object[template.adaptors.length];
+        if (cri != null && values.length > 0) {
+            cri.joinParams(en, null, values, 0);
+        }
+        return new CompiledSql(template.sql, template.adaptors, values);
+    }
+
+    private static Template compile(Entity<?> en, Criteria cri) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(en.getViewName());
+        ValueAdaptor[] adaptors = new ValueAdaptor[cri == null ? 0 : cri.paramCount(en)];
+        if (cri != null) {
+            cri.joinSql(en, sql);
+        }
+        if (adaptors.length > 0) {
+            cri.joinAdaptor(en, adaptors, 0);
+        }
+        return new Template(sql.toString(), adaptors);
+    }
+
+    /**
+     * 命中次数
+     *
+     * @return 次数
+     */
+    public static long hits() {
+        return HITS.get();
+    }
+
+    /**
+     * 未命中次数
+     *
+     * @return 次数
+     */
+    public static long misses() {
+        return MISSES.get();
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 命中率(0 ~ 1)
+     */
+    public static double hitRate() {
+        long hits = HITS.get();
+        long total = hits + MISSES.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 当前缓存的结构个数
+     *
+     * @return 个数
+     */
+    public static int size() {
+        return CACHE.size();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * 语句文本和参数适配器
+     */
+    private static class Template {
+
+        private final String sql;
+
+        private final ValueAdaptor[] adaptors;
+
+        Template(String sql, ValueAdaptor[] adaptors) {
+            this.sql = sql;
+            this.adaptors = adaptors;
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.yunqi.starter.database.sql;
+
+import org.nutz.dao.Dao;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.sql.Sql;
+import org.nutz.dao.util.Daos;
+import org.nutz.lang.random.R;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 统计语句改写
+ * <p>
+ * 将分页查询语句改写为统计语句:
+ * <ul>
+ *     <li>简单查询: 查询列替换为 COUNT(*), 去掉 ORDER BY, 去掉不影响行数的 LEFT JOIN;
+ *     其余条件中存在未加别名的列时无法确定列属于哪张表, 不去掉 LEFT JOIN 而是直接包装</li>
+ *     <li>DISTINCT / GROUP BY / 聚合 / UNION 等: 保留查询列包装为子查询, 只去掉最外层的 ORDER BY</li>
+ *     <li>包含 LIMIT / OFFSET / 变量($) 等无法确定的情况: 与 Daos.queryCount 一致直接包装</li>
+ * </ul>
+ * 改写结果按原始 SQL 模板缓存。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class CountSqlRewriter {
+
+    /** 缓存的最大模板个数 */
+    private static final int MAX_CACHE = 2000;
+
+    /** 包装子查询别名的占位符, 执行时按数据库替换 */
+    private static final String WRAP_ALIAS = "/*count_alias*/";
+
+    private static final ConcurrentHashMap<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private static final Pattern KEYWORD = Pattern.compile(
+            "\\b(select|from|where|group\\s+by|having|order\\s+by|limit|offset|fetch|union|intersect|except|minus|for\\s+update|top)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern AGGREGATE = Pattern.compile(
+            "\\b(count|sum|avg|min|max|group_concat|string_agg|listagg)\\s*\\(", Pattern.CASE_INSENSITIVE);
+
+    /** JOIN 子句, 匹配在屏蔽了括号和字符串的 SQL 上进行 */
+    private static final Pattern JOIN = Pattern.compile(
+            "\\b((?:left|right|inner|cross|full)(?:\\s+outer)?\\s+join|join)\\s+", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern LEFT_JOIN = Pattern.compile(
+            "^left(?:\\s+outer)?\\s+join\\s+([\\w.`\"]+)(?:\\s+(?:as\\s+)?(\\w+))?\\s+on\\s+(.+)$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private static final Pattern EQUALS = Pattern.compile(
+            "^\\(*\\s*([\\w`\"]+)\\.([\\w`\"]+)\\s*=\\s*([\\w`\"]+)\\.([\\w`\"]+)\\s*\\)*$", Pattern.DOTALL);
+
+    /** 判断列引用时忽略的关键字和无括号的函数 */
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+            "where", "and", "or", "not", "null", "is", "in", "like", "ilike", "between", "exists", "case", "when", "then",
+            "else", "end", "true", "false", "escape", "interval", "distinct", "all", "any", "some", "as", "on",
+            "date", "time", "timestamp", "current_date", "current_time", "current_timestamp", "localtime",
+            "localtimestamp", "sysdate"));
+
+    private static final Pattern ON = Pattern.compile("\\bon\\b", Pattern.CASE_INSENSITIVE);
+
+    /** 是否启用改写, 关闭时与 Daos.queryCount 一致 */
+    public static boolean ENABLED = true;
+
+    /** 被关联表的唯一键列名, 只有按唯一键关联的 LEFT JOIN 才会被去掉 */
+    public static String UNIQUE_KEY = "id";
+
+    /**
+     * 统计查询语句的记录数
+     *
+     * @param dao   Dao
+     * @param sql   查询语句
+     * @return      记录数
+     */
+    public static long count(Dao dao, Sql sql) {
+        if (!ENABLED) {
+            return Daos.queryCount(dao, sql);
+        }
+        String source = sql.getSourceSql();
+        String countSql = CACHE.get(source);
+        if (countSql == null) {
+            countSql = rewrite(source);
+            if (CACHE.size() >= MAX_CACHE) {
+                CACHE.clear();
+            }
+            CACHE.put(source, countSql);
+        }
+        if (countSql.contains(WRAP_ALIAS)) {
+            countSql = countSql.replace(WRAP_ALIAS, alias(dao));
+        }
+        Sql sql2 = Sqls.fetchLong(countSql);
+        sql2.setEntity((Entity) sql.getEntity());
+        for (String key : sql.params().keys()) {
+            sql2.setParam(key, sql.params().get(key));
+        }
+        for (String key : sql.vars().keys()) {
+            sql2.setVar(key, sql.vars().get(key));
+        }
+        return dao.execute(sql2).getLong();
+    }
+
+    /**
+     * 改写统计语句
+     *
+     * @param sql   查询语句
+     * @return      统计语句
+     */
+    public static String rewrite(String sql) {
+        String trimmed = stripSemicolon(sql.trim());
+        // 变量在执行时才替换, 内容未知
+        if (trimmed.indexOf('$') >= 0) {
+            return wrap(trimmed);
+        }
+        String masked = mask(trimmed);
+        List<Clause> clauses = clauses(masked);
+        if (clauses.isEmpty() || !"select".equals(clauses.get(0).name) || clauses.get(0).start != 0) {
+            return wrap(trimmed);
+        }
+
+        boolean complex = false;
+        for (Clause clause : clauses) {
+            switch (clause.name) {
+                case "limit":
+                case "offset":
+                case "fetch":
+                case "top":
+                case "for update":
+                    // 分页或加锁, 不能去掉排序
+                    return wrap(trimmed);
+                case "group by":
+                case "having":
+                case "union":
+                case "intersect":
+                case "except":
+                case "minus":
+                    complex = true;
+                    break;
+                default:
+            }
+        }
+        if (count(clauses, "select") != 1 || count(clauses, "from") != 1) {
+            complex = true;
+        }
+
+        Clause orderBy = find(clauses, "order by");
+        String withoutOrder = orderBy == null ? trimmed : trimmed.substring(0, orderBy.start).trim();
+        if (complex) {
+            return wrap(withoutOrder);
+        }
+
+        Clause from = find(clauses, "from");
+        String selectList = masked.substring("select".length(), from.start).trim();
+        if (selectList.toLowerCase(Locale.ROOT).startsWith("distinct") || AGGREGATE.matcher(selectList).find()) {
+            return wrap(withoutOrder);
+        }
+
+        Clause where = find(clauses, "where");
+        int fromEnd = where != null ? where.start : (orderBy != null ? orderBy.start : trimmed.length());
+        String fromClause = trimmed.substring(from.start + "from".length(), fromEnd);
+        String rest = where != null ? trimmed.substring(where.start, orderBy != null ? orderBy.start : trimmed.length()) : "";
+        String reduced = dropLeftJoins(fromClause, mask(fromClause), rest);
+        if (reduced == null) {
+            return wrap(withoutOrder);
+        }
+        return ("SELECT COUNT(*) FROM " + reduced.trim() + " " + rest.trim()).trim();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * 去掉不影响行数的 LEFT JOIN: 按被关联表的唯一键关联, 且别名未在其他位置引用
+     *
+     * @return 去掉后的 FROM 子句, 有可以去掉的 LEFT JOIN 但其余条件中存在未加别名的列时返回 null
+     */
+    private static String dropLeftJoins(String fromClause, String maskedFrom, String rest) {
+        List<int[]> joins = new ArrayList<>();
+        Matcher m = JOIN.matcher(maskedFrom);
+        while (m.find()) {
+            joins.add(new int[]{m.start(), 0});
+        }
+        if (joins.isEmpty()) {
+            return fromClause;
+        }
+        for (int i = 0; i < joins.size(); i++) {
+            joins.get(i)[1] = i + 1 < joins.size() ? joins.get(i + 1)[0] : fromClause.length();
+        }
+
+        // 未加别名的列可能属于被关联的表
+        boolean unqualified = hasUnqualifiedColumn(rest);
+        for (int i = 0; i < joins.size() && !unqualified; i++) {
+            String masked = maskedFrom.substring(joins.get(i)[0], joins.get(i)[1]);
+            Matcher on = ON.matcher(masked);
+            if (on.find()) {
+                unqualified = hasUnqualifiedColumn(fromClause.substring(joins.get(i)[0] + on.end(), joins.get(i)[1]));
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(fromClause.substring(0, joins.get(0)[0]));
+        for (int i = 0; i < joins.size(); i++) {
+            int[] join = joins.get(i);
+            String text = fromClause.substring(join[0], join[1]);
+            if (!droppable(text, mask(text), fromClause, join, rest)) {
+                sb.append(text);
+            } else if (unqualified) {
+                return null;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 条件中是否有未加别名的列
+     * <p>
+     * 跳过字符串、注释、参数(@name、:name)、数字、关键字和函数名, 其余不以 别名. 开头且不作为别名的标识符都视为未加别名的列;
+     * 子查询中的表名和列也会被视为未加别名的列, 此时按无法确定处理
+     */
+    static boolean hasUnqualifiedColumn(String text) {
+        int n = text.length();
+        int i = 0;
+        while (i < n) {
+            char c = text.charAt(i);
+            int start = i;
+            if (c == '\'') {
+                int j = text.indexOf('\'', i + 1);
+                i = j < 0 ? n : j + 1;
+                continue;
+            } else if (c == '-' && i + 1 < n && text.charAt(i + 1) == '-') {
+                int j = text.indexOf('\n', i);
+                i = j < 0 ? n : j + 1;
+                continue;
+            } else if (c == '/' && i + 1 < n && text.charAt(i + 1) == '*') {
+                int j = text.indexOf("*/", i + 2);
+                i = j < 0 ? n : j + 2;
+                continue;
+            } else if (c == '@' || c == ':' || Character.isDigit(c)) {
+                i++;
+                while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_' || text.charAt(i) == '.')) {
+                    i++;
+                }
+                continue;
+            } else if (c == '"' || c == '`') {
+                int j = text.indexOf(c, i + 1);
+                i = j < 0 ? n : j + 1;
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < n && (Character.isLetterOrDigit(text.charAt(i)) || text.charAt(i) == '_' || text.charAt(i) == '$')) {
+                    i++;
+                }
+            } else {
+                i++;
+                continue;
+            }
+
+            // 别名.列 中的列
+            if (previous(text, start) == '.') {
+                continue;
+            }
+            char next = next(text, i);
+            // 别名.列 中的别名, 或函数名
+            if (next == '.' || next == '(') {
+                continue;
+            }
+            if (!KEYWORDS.contains(text.substring(start, i).toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static char previous(String text, int index) {
+        for (int i = index - 1; i >= 0; i--) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return text.charAt(i);
+            }
+        }
+        return 0;
+    }
+
+    private static char next(String text, int index) {
+        for (int i = index; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return text.charAt(i);
+            }
+        }
+        return 0;
+    }
+
+    private static boolean droppable(String text, String maskedText, String fromClause, int[] join, String rest) {
+        // 关联的是子查询时括号内容已被屏蔽, 不会匹配表名
+        Matcher m = LEFT_JOIN.matcher(maskedText.trim());
+        if (!m.matches() || !text.trim().substring(m.start(1), m.end(1)).equals(m.group(1))) {
+            return false;
+        }
+        String table = unquote(m.group(1));
+        String alias = m.group(2) != null ? m.group(2) : table.substring(table.lastIndexOf('.') + 1);
+        Matcher eq = EQUALS.matcher(text.trim().substring(m.start(3), m.end(3)).trim());
+        if (!eq.matches()) {
+            return false;
+        }
+        String column;
+        if (alias.equalsIgnoreCase(unquote(eq.group(1))) && !alias.equalsIgnoreCase(unquote(eq.group(3)))) {
+            column = unquote(eq.group(2));
+        } else if (alias.equalsIgnoreCase(unquote(eq.group(3))) && !alias.equalsIgnoreCase(unquote(eq.group(1)))) {
+            column = unquote(eq.group(4));
+        } else {
+            return false;
+        }
+        if (!UNIQUE_KEY.equalsIgnoreCase(column)) {
+            return false;
+        }
+        // 别名在其他关联条件或 WHERE 中被引用时不能去掉
+        Pattern ref = Pattern.compile("\\b" + Pattern.quote(alias) + "\\s*\\.", Pattern.CASE_INSENSITIVE);
+        String others = fromClause.substring(0, join[0]) + " " + fromClause.substring(join[1]) + " " + rest;
+        return !ref.matcher(others).find();
+    }
+
+    private static String wrap(String sql) {
+        return "SELECT COUNT(1) FROM (" + sql + ")" + WRAP_ALIAS;
+    }
+
+    private static String alias(Dao dao) {
+        if (dao.meta().isDB2()) {
+            return " as nutz_tmp_" + R.UU32();
+        }
+        return dao.meta().isOracle() ? "" : " as _nutz_tmp_" + R.UU32();
+    }
+
+    /**
+     * 找出最外层的关键字
+     */
+    private static List<Clause> clauses(String masked) {
+        List<Clause> list = new ArrayList<>();
+        Matcher m = KEYWORD.matcher(masked);
+        while (m.find()) {
+            list.add(new Clause(m.group(1).toLowerCase(Locale.ROOT).replaceAll("\\s+", " "), m.start()));
+        }
+        return list;
+    }
+
+    private static Clause find(List<Clause> clauses, String name) {
+        for (Clause clause : clauses) {
+            if (clause.name.equals(name)) {
+                return clause;
+            }
+        }
+        return null;
+    }
+
+    private static int count(List<Clause> clauses, String name) {
+        int n = 0;
+        for (Clause clause : clauses) {
+            if (clause.name.equals(name)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 将括号、字符串和注释内的内容替换为空格, 长度不变, 便于只匹配最外层
+     */
+    static String mask(String sql) {
+        char[] chars = sql.toCharArray();
+        int depth = 0;
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            if (c == '\'' || c == '"' || c == '`') {
+                int j = i + 1;
+                while (j < chars.length && chars[j] != c) {
+                    j++;
+                }
+                for (int k = i + 1; k < j && k < chars.length; k++) {
+                    chars[k] = ' ';
+                }
+                i = j;
+            } else if (c == '-' && i + 1 < chars.length && chars[i + 1] == '-') {
+                while (i < chars.length && chars[i] != '\n') {
+                    chars[i++] = ' ';
+                }
+            } else if (c == '/' && i + 1 < chars.length && chars[i + 1] == '*') {
+                while (i < chars.length && !(chars[i] == '*' && i + 1 < chars.length && chars[i + 1] == '/')) {
+                    chars[i++] = ' ';
+                }
+                if (i < chars.length) {
+                    chars[i] = ' ';
+                    if (i + 1 < chars.length) {
+                        chars[++i] = ' ';
+                    }
+                }
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth > 0) {
+                chars[i] = ' ';
+            }
+        }
+        return new String(chars);
+    }
+
+    private static String stripSemicolon(String sql) {
+        while (sql.endsWith(";")) {
+            sql = sql.substring(0, sql.length() - 1).trim();
+        }
+        return sql;
+    }
+
+    private static String unquote(String name) {
+        return name.replaceAll("[`\"]", "");
+    }
+
+    /**
+     * 最外层关键字及其位置
+     */
+    private static class Clause {
+
+        private final String name;
+
+        private final int start;
+
+        Clause(String name, int start) {
+            this.name = name;
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.yunqi.starter.database.sql;
+
+import lombok.extern.slf4j.Slf4j;
+import org.nutz.dao.Cnd;
+import org.nutz.dao.sql.Criteria;
+import org.nutz.dao.util.cri.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * 条件结构
+ * <p>
+ * 遍历 Criteria 的条件树生成缓存键, 只包含影响语句文本和参数适配器的部分(表达式类型、字段、操作符、参数个数、排序和分组),
+ * 不渲染 SQL。字段通过 MethodHandle 读取, 避免反射调用的类型检查开销。
+ * 无法确定结构的条件(嵌套子查询、HAVING、自定义表达式)以及 Nutz 版本不支持时返回 false, 由调用方按原方式查询。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+final class CriteriaShape {
+
+    /** 是否支持当前 Nutz 版本, 第一次使用时确定 */
+    private static volatile Boolean supported;
+
+    private CriteriaShape() {
+    }
+
+    /**
+     * 追加条件结构
+     *
+     * @param cri   条件
+     * @param sb    缓存键
+     * @return      false 表示无法确定结构
+     */
+    static boolean append(Criteria cri, StringBuilder sb) {
+        if (!supported()) {
+            return false;
+        }
+        SimpleCriteria sc;
+        if (cri instanceof SimpleCriteria) {
+            sc = (SimpleCriteria) cri;
+        } else if (cri instanceof Cnd) {
+            sc = ((Cnd) cri).getCri();
+        } else {
+            return false;
+        }
+        try {
+            String prefix = sc.getBeforeWhere();
+            if (prefix != null) {
+                sb.append("P:").append(prefix).append('|');
+            }
+            if (!group(sc.where(), sb)) {
+                return false;
+            }
+            GroupBySet groupBy = (GroupBySet) sc.getGroupBy();
+            if (get(Handles.HAVING, groupBy) != null) {
+                return false;
+            }
+            String[] names = (String[]) get(Handles.GROUP_NAMES, groupBy);
+            if (names != null && names.length > 0) {
+                sb.append("|G");
+                for (String name : names) {
+                    sb.append(',').append(name);
+                }
+            }
+            for (OrderByItem item : ((OrderBySet) sc.getOrderBy()).getItems()) {
+                sb.append("|O").append(get(Handles.ORDER_NAME, item)).append(' ').append(get(Handles.ORDER_BY, item));
+            }
+            return true;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * 第一次使用时读取 Nutz 私有字段, 升级 Nutz 后字段不存在时不再缓存, 按原方式渲染
+     */
+    private static boolean supported() {
+        Boolean value = supported;
+        if (value == null) {
+            synchronized (CriteriaShape.class) {
+                value = supported;
+                if (value == null) {
+                    try {
+                        Handles.init();
+                        value = true;
+                    } catch (LinkageError e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        log.warn("查询语句缓存 -> 不支持当前 Nutz 版本, 不再按条件结构缓存: {}", cause.getMessage());
+                        value = false;
+                    }
+                    supported = value;
+                }
+            }
+        }
+        return value;
+    }
+
+    private static boolean group(SqlExpressionGroup group, StringBuilder sb) throws Throwable {
+        sb.append(group.isTop() ? '{' : '(');
+        if (is(Handles.GROUP_NOT, group)) {
+            sb.append('!');
+        }
+        for (SqlExpression exp : group.getExps()) {
+            if (!expression(exp, sb)) {
+                return false;
+            }
+            sb.append(';');
+        }
+        sb.append(')');
+        return true;
+    }
+
+    /**
+     * 只处理已知的表达式类型, 每种类型用一个字符标记
+     */
+    private static boolean expression(SqlExpression exp, StringBuilder sb) throws Throwable {
+        Class<?> type = exp.getClass();
+        if (type == SqlExpressionGroup.class) {
+            return group((SqlExpressionGroup) exp, sb);
+        }
+        if (type == Static.class) {
+            sb.append('S').append(get(Handles.STATIC, exp));
+            return true;
+        }
+        char tag;
+        if (type == SimpleExpression.class) {
+            tag = 'E';
+        } else if (type == Like.class) {
+            tag = is(Handles.LIKE_IGNORE_CASE, exp) ? 'l' : 'L';
+        } else if (type == IsNull.class) {
+            tag = 'N';
+        } else if (type == IntRange.class || type == LongRange.class) {
+            tag = 'R';
+        } else if (type == NameRange.class) {
+            tag = 'A';
+        } else if (type == BetweenExpression.class) {
+            tag = 'B';
+        } else if (type == SqlRange.class) {
+            tag = 'Q';
+        } else if (type == SqlValueRange.class) {
+            tag = 'V';
+        } else {
+            // 嵌套子查询和自定义表达式
+            return false;
+        }
+        String name = (String) get(Handles.NAME, exp);
+        sb.append(tag).append(name);
+        if (is(Handles.NOT, exp)) {
+            sb.append('!');
+        }
+        switch (tag) {
+            case 'E':
+                sb.append(' ').append(get(Handles.OP, exp));
+                valueType(get(Handles.VALUE, exp), sb);
+                break;
+            case 'R':
+                long[] ids = (long[]) get(Handles.IDS, exp);
+                sb.append('#').append(ids == null ? -1 : ids.length);
+                break;
+            case 'A':
+                String[] names = (String[]) get(Handles.NAMES, exp);
+                sb.append('#').append(names == null ? -1 : names.length);
+                break;
+            case 'B':
+                valueType(get(Handles.MIN, exp), sb);
+                valueType(get(Handles.MAX, exp), sb);
+                break;
+            case 'Q':
+                sb.append(' ').append(get(Handles.RANGE_SQL, exp));
+                break;
+            case 'V':
+                sb.append(' ').append(get(Handles.VALUE_RANGE_SQL, exp)).append('#').append(get(Handles.VALUE_RANGE_SIZE, exp));
+                Object[] values = (Object[]) get(Handles.VALUE_RANGE_VALUES, exp);
+                if (values != null) {
+                    Object first = null;
+                    for (Object value : values) {
+                        if (value != null) {
+                            first = value;
+                            break;
+                        }
+                    }
+                    valueType(first, sb);
+                }
+                break;
+            default:
+                break;
+        }
+        return true;
+    }
+
+    /**
+     * 参数值类型, 字段未映射时参数适配器由参数值的类型决定, 为避免每次查找映射字段统一加上
+     */
+    private static void valueType(Object value, StringBuilder sb) {
+        sb.append(' ').append(value == null ? "null" : value.getClass().getName());
+    }
+
+    private static Object get(MethodHandle getter, Object target) throws Throwable {
+        return (Object) getter.invokeExact(target);
+    }
+
+    private static boolean is(MethodHandle getter, Object target) throws Throwable {
+        return (boolean) getter.invokeExact(target);
+    }
+
+    /**
+     * 读取 Nutz 私有字段的 MethodHandle, 放在单独的类中, 字段不存在时只影响这个类的初始化
+     */
+    private static final class Handles {
+
+        static final MethodHandle GROUP_NOT = field(SqlExpressionGroup.class, "not", boolean.class);
+
+        static final MethodHandle NOT = field(AbstractSqlExpression.class, "not", boolean.class);
+
+        static final MethodHandle NAME = field(AbstractSqlExpression.class, "name", Object.class);
+
+        static final MethodHandle OP = field(SimpleExpression.class, "op", Object.class);
+
+        static final MethodHandle VALUE = field(SimpleExpression.class, "value", Object.class);
+
+        static final MethodHandle MIN = field(BetweenExpression.class, "min", Object.class);
+
+        static final MethodHandle MAX = field(BetweenExpression.class, "max", Object.class);
+
+        static final MethodHandle LIKE_IGNORE_CASE = field(Like.class, "ignoreCase", boolean.class);
+
+        static final MethodHandle IDS = field(NumberRange.class, "ids", Object.class);
+
+        static final MethodHandle NAMES = field(NameRange.class, "names", Object.class);
+
+        static final MethodHandle RANGE_SQL = field(SqlRange.class, "sql", Object.class);
+
+        static final MethodHandle VALUE_RANGE_SQL = field(SqlValueRange.class, "sql", Object.class);
+
+        static final MethodHandle VALUE_RANGE_VALUES = field(SqlValueRange.class, "values", Object.class);
+
+        static final MethodHandle VALUE_RANGE_SIZE = field(SqlValueRange.class, "size", Object.class);
+
+        static final MethodHandle STATIC = field(Static.class, "str", Object.class);
+
+        static final MethodHandle ORDER_NAME = field(OrderByItem.class, "name", Object.class);
+
+        static final MethodHandle ORDER_BY = field(OrderByItem.class, "by", Object.class);
+
+        static final MethodHandle GROUP_NAMES = field(GroupBySet.class, "names", Object.class);
+
+        static final MethodHandle HAVING = field(GroupBySet.class, "having", Object.class);
+
+        private Handles() {
+        }
+
+        static void init() {
+        }
+
+        private static MethodHandle field(Class<?> type, String name, Class<?> returnType) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(returnType, Object.class));
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                throw new IllegalStateException("不支持的 Nutz 版本: " + type.getName() + "#" + name, e);
+            }
+        }
+    }
+}
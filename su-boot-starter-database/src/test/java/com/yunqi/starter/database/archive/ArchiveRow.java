@@ -0,0 +1,27 @@
+package com.yunqi.starter.database.archive;
+
+import lombok.Data;
+import org.nutz.dao.entity.annotation.Column;
+import org.nutz.dao.entity.annotation.Id;
+import org.nutz.dao.entity.annotation.Table;
+
+/**
+ * 归档测试实体
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+@Table("t_archive_row")
+public class ArchiveRow {
+
+    @Id(auto = false)
+    private long id;
+
+    @Column
+    private String name;
+
+    @Column
+    private Boolean delFlag;
+
+    @Column
+    private Long updatedAt;
+}
@@ -0,0 +1,19 @@
+package com.yunqi.starter.database.archive;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.nutz.dao.entity.annotation.Column;
+import org.nutz.dao.entity.annotation.Table;
+
+/**
+ * 归档测试实体, 模拟迁移后新增了字段
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@Table("t_archive_row")
+public class ArchiveRowV2 extends ArchiveRow {
+
+    @Column
+    private String remark;
+}
@@ -0,0 +1,98 @@
+package com.yunqi.starter.database.archive;
+
+import com.yunqi.starter.database.configuration.DataBaseProperties;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.impl.NutDao;
+import org.nutz.dao.sql.Sql;
+import org.nutz.dao.util.Daos;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 伪删除数据按列归档, 原表新增字段后归档表自动补充
+ * Created by @author CHQ on 2026/10/19
+ */
+class SoftDeleteArchiverTest {
+
+    private static final long LONG_AGO = System.currentTimeMillis() - 100 * 24 * 60 * 60 * 1000L;
+
+    private static NutDao dao;
+
+    @BeforeAll
+    static void setUp() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1");
+        dao = new NutDao(ds);
+        dao.create(ArchiveRow.class, true);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dao.drop(ArchiveRow.class);
+        dao.drop("t_archive_row_archive");
+    }
+
+    @Test
+    void archivesByColumnAndMigrates() {
+        dao.insert(row(new ArchiveRow(), 1, true, LONG_AGO));
+        dao.insert(row(new ArchiveRow(), 2, true, System.currentTimeMillis()));
+        dao.insert(row(new ArchiveRow(), 3, false, LONG_AGO));
+
+        DataBaseProperties.Archive config = new DataBaseProperties.Archive();
+        config.setChunkSize(1);
+        config.setPause(0);
+        SoftDeleteArchiver archiver = new SoftDeleteArchiver(dao, config, null);
+
+        assertTrue(archiver.register(ArchiveRow.class));
+        ArchiveProgress progress = archiver.archive(ArchiveRow.class);
+        assertNull(progress.getLastError());
+        assertEquals(1, progress.getRows());
+        assertEquals(2, dao.count("t_archive_row"));
+        assertEquals(1, dao.count("t_archive_row_archive"));
+        // 非 MySql 按实体字段创建的归档表保留了主键
+        assertThrows(RuntimeException.class, () -> dao.execute(Sqls.create(
+                "INSERT INTO t_archive_row_archive (id, name) VALUES (1, 'dup')")));
+
+        // 原表新增 remark 字段, 归档表自动补充
+        Daos.migration(dao, ArchiveRowV2.class, true, false);
+        ArchiveRowV2 v2 = row(new ArchiveRowV2(), 4, true, LONG_AGO);
+        v2.setRemark("remark-4");
+        dao.insert(v2);
+
+        assertTrue(archiver.register(ArchiveRowV2.class));
+        progress = archiver.archive(ArchiveRowV2.class);
+        assertNull(progress.getLastError());
+        assertEquals(1, progress.getRows());
+        Sql sql = Sqls.fetchString("SELECT remark FROM t_archive_row_archive WHERE id = 4");
+        dao.execute(sql);
+        assertEquals("remark-4", sql.getString());
+    }
+
+    @Test
+    void timeValueFollowsFieldType() {
+        assertEquals(1000L, SoftDeleteArchiver.timeValue(long.class, 1000));
+        assertEquals(1000L, SoftDeleteArchiver.timeValue(Long.class, 1000));
+        assertEquals(new Timestamp(1000), SoftDeleteArchiver.timeValue(Timestamp.class, 1000));
+        assertEquals(new Date(1000), SoftDeleteArchiver.timeValue(Date.class, 1000));
+        assertEquals(Instant.ofEpochMilli(1000), SoftDeleteArchiver.timeValue(Instant.class, 1000));
+        assertTrue(SoftDeleteArchiver.timeValue(LocalDateTime.class, 1000) instanceof LocalDateTime);
+        assertNull(SoftDeleteArchiver.timeValue(String.class, 1000));
+    }
+
+    private static <T extends ArchiveRow> T row(T row, long id, boolean deleted, long updatedAt) {
+        row.setId(id);
+        row.setName("name-" + id);
+        row.setDelFlag(deleted);
+        row.setUpdatedAt(updatedAt);
+        return row;
+    }
+}
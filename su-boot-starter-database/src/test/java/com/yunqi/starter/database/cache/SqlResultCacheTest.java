@@ -0,0 +1,75 @@
+package com.yunqi.starter.database.cache;
+
+import com.yunqi.starter.common.page.Pagination;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.sql.Sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 命中时返回副本, 按表设置的允许延迟只影响对应的表
+ * Created by @author CHQ on 2026/10/19
+ */
+class SqlResultCacheTest {
+
+    @AfterEach
+    void reset() {
+        SqlResultCache.clear();
+        SqlResultCache.MAX_STALENESS = 0;
+        SqlResultCache.staleness(null);
+    }
+
+    @Test
+    void hitReturnsCopyOfPagination() {
+        Sql sql = Sqls.create("SELECT * FROM t_copy");
+        String key = SqlResultCache.key("copy", 1, 10, sql);
+        Pagination<String> first = SqlResultCache.get(key, sql,
+                () -> Pagination.<String>build(1, 10).list(new ArrayList<>(Arrays.asList("b", "a"))).totalCount(2));
+        first.getList().clear();
+        first.setTotalCount(0);
+
+        Pagination<String> second = SqlResultCache.get(key, sql, () -> fail("应命中缓存"));
+        assertEquals(Arrays.asList("b", "a"), second.getList());
+        assertEquals(2, second.getTotalCount());
+        Collections.sort(second.getList());
+        assertEquals(Arrays.asList("b", "a"), SqlResultCache.<Pagination<String>>get(key, sql, () -> fail("应命中缓存")).getList());
+    }
+
+    @Test
+    void stalenessAppliesPerTable() {
+        Map<String, Long> staleness = new HashMap<>();
+        staleness.put("T_REPORT", 60_000L);
+        SqlResultCache.staleness(staleness);
+        AtomicInteger loads = new AtomicInteger();
+
+        Sql report = Sqls.create("SELECT * FROM t_report");
+        String reportKey = SqlResultCache.key("report", 1, 10, report);
+        SqlResultCache.get(reportKey, report, loads::incrementAndGet);
+        SqlResultCache.invalidate("t_report");
+        SqlResultCache.get(reportKey, report, loads::incrementAndGet);
+        assertEquals(1, loads.get(), "允许延迟的表写入后仍命中");
+
+        Sql order = Sqls.create("SELECT * FROM t_order");
+        String orderKey = SqlResultCache.key("order", 1, 10, order);
+        SqlResultCache.get(orderKey, order, loads::incrementAndGet);
+        SqlResultCache.invalidate("t_order");
+        SqlResultCache.get(orderKey, order, loads::incrementAndGet);
+        assertEquals(3, loads.get(), "未设置的表写入后立即失效");
+
+        Sql join = Sqls.create("SELECT * FROM t_report r JOIN t_order o ON r.order_id = o.id");
+        String joinKey = SqlResultCache.key("join", 1, 10, join);
+        SqlResultCache.get(joinKey, join, loads::incrementAndGet);
+        SqlResultCache.invalidate("t_order");
+        SqlResultCache.get(joinKey, join, loads::incrementAndGet);
+        assertEquals(5, loads.get(), "任一严格失效的表写入后失效");
+    }
+}
@@ -0,0 +1,75 @@
+package com.yunqi.starter.database.mapper;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.impl.NutDao;
+import org.nutz.dao.sql.Sql;
+import org.nutz.dao.sql.SqlCallback;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 预编译行映射与 Nutz 映射的耗时对比
+ * <p>
+ * 在内存 H2 中准备 rows 行数据, 分别用两种方式查询全部行, 输出每次查询的平均耗时。
+ * 以测试类路径运行 main, 参数依次为行数(默认 20000)和轮数(默认 30)。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class EntityRowMapperBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:row_mapper_benchmark;DB_CLOSE_DELAY=-1");
+        NutDao dao = new NutDao(ds);
+        dao.create(RowEntity.class, true);
+        List<RowEntity> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            RowEntity row = new RowEntity();
+            row.setId(i);
+            row.setName("name-" + i);
+            row.setAge(i % 100);
+            row.setScore(i);
+            row.setVersion((long) i);
+            row.setRatio(i / 7.0);
+            row.setEnabled(i % 2 == 0);
+            row.setAmount(BigDecimal.valueOf(i, 2));
+            row.setCreatedAt(new Date());
+            row.setStatus(RowEntity.Status.ACTIVE);
+            list.add(row);
+        }
+        dao.fastInsert(list);
+
+        // 预热
+        for (int i = 0; i < 5; i++) {
+            run(dao, Sqls.callback.entities());
+            run(dao, EntityRowMappers.entities());
+        }
+        double nutz = measure(dao, Sqls.callback.entities(), rounds);
+        double compiled = measure(dao, EntityRowMappers.entities(), rounds);
+        System.out.printf("rows=%d rounds=%d%n", rows, rounds);
+        System.out.printf("nutz      %.2f ms/query%n", nutz);
+        System.out.printf("compiled  %.2f ms/query (%.1fx)%n", compiled, nutz / compiled);
+    }
+
+    private static double measure(NutDao dao, SqlCallback callback, int rounds) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            run(dao, callback);
+        }
+        return (System.nanoTime() - begin) / 1e6 / rounds;
+    }
+
+    private static int run(NutDao dao, SqlCallback callback) {
+        Sql sql = Sqls.create("select * from t_row_entity");
+        sql.setEntity(dao.getEntity(RowEntity.class));
+        sql.setCallback(callback);
+        dao.execute(sql);
+        return sql.getList(RowEntity.class).size();
+    }
+}
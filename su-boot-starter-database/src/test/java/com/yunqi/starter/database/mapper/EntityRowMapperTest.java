@@ -0,0 +1,112 @@
+package com.yunqi.starter.database.mapper;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.impl.NutDao;
+import org.nutz.dao.sql.Sql;
+import org.nutz.dao.sql.SqlCallback;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 预编译行映射与 Nutz 映射结果一致
+ * Created by @author CHQ on 2026/10/19
+ */
+class EntityRowMapperTest {
+
+    private static NutDao dao;
+
+    @BeforeAll
+    static void setUp() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:row_mapper;DB_CLOSE_DELAY=-1");
+        dao = new NutDao(ds);
+        dao.create(RowEntity.class, true);
+
+        List<RowEntity> list = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            RowEntity row = new RowEntity();
+            row.setId(i);
+            row.setName("name-" + i);
+            row.setAge(i);
+            // 奇数行的包装类型和自定义类型为 NULL
+            if (i % 2 == 0) {
+                row.setScore(i * 10);
+                row.setVersion((long) i);
+                row.setEnabled(i % 4 == 0);
+                row.setAmount(new BigDecimal(i + ".50"));
+                row.setCreatedAt(new Date(1700000000000L + i * 1000L));
+                row.setStatus(i % 4 == 0 ? RowEntity.Status.ACTIVE : RowEntity.Status.LOCKED);
+            }
+            row.setRatio(i / 3.0);
+            list.add(row);
+        }
+        dao.fastInsert(list);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dao.drop(RowEntity.class);
+    }
+
+    @Test
+    void mapsSameAsNutz() {
+        List<RowEntity> expected = query("select * from t_row_entity order by id", Sqls.callback.entities());
+        List<RowEntity> actual = query("select * from t_row_entity order by id", EntityRowMappers.entities());
+        assertEquals(20, actual.size());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void mapsAdaptorColumns() {
+        List<RowEntity> list = query("select * from t_row_entity where id in (0, 1) order by id", EntityRowMappers.entities());
+        assertEquals(new Date(1700000000000L), list.get(0).getCreatedAt());
+        assertEquals(RowEntity.Status.ACTIVE, list.get(0).getStatus());
+        assertNull(list.get(1).getCreatedAt());
+        assertNull(list.get(1).getStatus());
+    }
+
+    @Test
+    void mapsSelectedColumnsOnly() {
+        List<RowEntity> list = query("select id, age, score from t_row_entity where id = 1", EntityRowMappers.entities());
+        RowEntity row = list.get(0);
+        assertEquals(1, row.getAge());
+        assertNull(row.getScore());
+        assertNull(row.getName());
+        assertEquals(0.0, row.getRatio());
+    }
+
+    @Test
+    void cachesMapperByColumns() {
+        Entity<RowEntity> en = dao.getEntity(RowEntity.class);
+        dao.run(conn -> {
+            try (Statement a = conn.createStatement(); Statement b = conn.createStatement(); Statement c = conn.createStatement()) {
+                ResultSetMetaData all = a.executeQuery("select * from t_row_entity").getMetaData();
+                ResultSetMetaData again = b.executeQuery("select * from t_row_entity").getMetaData();
+                ResultSetMetaData part = c.executeQuery("select id, name from t_row_entity").getMetaData();
+                assertSame(EntityRowMappers.get(en, all), EntityRowMappers.get(en, again));
+                assertNotSame(EntityRowMappers.get(en, all), EntityRowMappers.get(en, part));
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<RowEntity> query(String text, SqlCallback callback) {
+        Sql sql = Sqls.create(text);
+        sql.setEntity(dao.getEntity(RowEntity.class));
+        sql.setCallback(callback);
+        dao.execute(sql);
+        return (List<RowEntity>) sql.getResult();
+    }
+}
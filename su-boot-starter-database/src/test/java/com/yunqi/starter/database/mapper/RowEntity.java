@@ -0,0 +1,54 @@
+package com.yunqi.starter.database.mapper;
+
+import lombok.Data;
+import org.nutz.dao.entity.annotation.Column;
+import org.nutz.dao.entity.annotation.Id;
+import org.nutz.dao.entity.annotation.Table;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * 行映射测试实体, 覆盖按下标读取的类型和使用 ValueAdaptor 的类型
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+@Table("t_row_entity")
+public class RowEntity {
+
+    @Id(auto = false)
+    private long id;
+
+    @Column
+    private String name;
+
+    @Column
+    private int age;
+
+    @Column
+    private Integer score;
+
+    @Column
+    private Long version;
+
+    @Column
+    private double ratio;
+
+    @Column
+    private Boolean enabled;
+
+    @Column
+    private BigDecimal amount;
+
+    /** 没有按下标读取的方式, 使用字段的 ValueAdaptor */
+    @Column
+    private Date createdAt;
+
+    /** 没有按下标读取的方式, 使用字段的 ValueAdaptor */
+    @Column
+    private Status status;
+
+    public enum Status {
+        ACTIVE, LOCKED
+    }
+}
@@ -0,0 +1,109 @@
+package com.yunqi.starter.database.sql;
+
+import com.yunqi.starter.database.mapper.RowEntity;
+import org.h2.jdbcx.JdbcDataSource;
+import org.nutz.dao.Cnd;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.impl.NutDao;
+import org.nutz.dao.sql.Criteria;
+import org.nutz.dao.sql.Sql;
+
+/**
+ * 语句缓存命中与未命中的耗时对比
+ * <p>
+ * 分别统计 Nutz 渲染条件 SQL(按渲染结果做缓存键的开销)、遍历条件树生成缓存键、命中缓存、每次清空缓存后未命中的平均耗时,
+ * 命中和未命中都包含收集参数值的开销。未命中每次先清空缓存, 次数取每轮次数的十分之一。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class CompiledSqlCacheBenchmark {
+
+    private static long sink;
+
+    /**
+     * @param args 每轮执行次数(缺省 200000)、轮数(缺省 10)
+     */
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:compiled_sql_benchmark;DB_CLOSE_DELAY=-1");
+        NutDao dao = new NutDao(ds);
+        dao.create(RowEntity.class, true);
+        Entity<RowEntity> en = dao.getEntity(RowEntity.class);
+        CompiledSqlCache.MAX_SIZE = Integer.MAX_VALUE;
+
+        Cnd[] cnds = new Cnd[1024];
+        for (int i = 0; i < cnds.length; i++) {
+            cnds[i] = cnd(i);
+        }
+
+        // 预热
+        for (int i = 0; i < 3; i++) {
+            render(en, cnds, count);
+            key(en, cnds, count);
+            hit(en, cnds, count);
+            miss(en, cnds, count / 10);
+        }
+
+        long render = 0, key = 0, hit = 0, miss = 0;
+        for (int i = 0; i < rounds; i++) {
+            render += render(en, cnds, count);
+            key += key(en, cnds, count);
+            hit += hit(en, cnds, count);
+            miss += miss(en, cnds, count / 10);
+        }
+        System.out.printf("render: %8.1f ns/op%n", (double) render / rounds / count);
+        System.out.printf("key   : %8.1f ns/op%n", (double) key / rounds / count);
+        System.out.printf("hit   : %8.1f ns/op%n", (double) hit / rounds / count);
+        System.out.printf("miss  : %8.1f ns/op%n", (double) miss / rounds / (count / 10));
+        System.out.println(sink == 42 ? "" : "hit rate: " + CompiledSqlCache.hitRate());
+    }
+
+    private static Cnd cnd(int i) {
+        Cnd cnd = Cnd.where("age", ">=", i % 100).and("name", "like", "name-" + i + "%")
+                .and("status", "in", new String[]{"ACTIVE", "LOCKED"});
+        cnd.and(Cnd.exps("score", "<", i).or("score", "is", null));
+        cnd.desc("createdAt").asc("id");
+        return cnd;
+    }
+
+    private static long render(Entity<?> en, Cnd[] cnds, int count) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder(128);
+            ((Criteria) cnds[i & 1023]).joinSql(en, sb);
+            sink += sb.length();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static long key(Entity<?> en, Cnd[] cnds, int count) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder(128);
+            CriteriaShape.append(cnds[i & 1023], sb);
+            sink += sb.length();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static long hit(Entity<?> en, Cnd[] cnds, int count) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Sql sql = CompiledSqlCache.query(en, cnds[i & 1023]);
+            sink += sql.getParamMatrix()[0].length;
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static long miss(Entity<?> en, Cnd[] cnds, int count) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            CompiledSqlCache.clear();
+            Sql sql = CompiledSqlCache.query(en, cnds[i & 1023]);
+            sink += sql.getParamMatrix()[0].length;
+        }
+        return System.nanoTime() - begin;
+    }
+}
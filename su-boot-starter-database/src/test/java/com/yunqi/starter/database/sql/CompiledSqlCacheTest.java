@@ -0,0 +1,126 @@
+package com.yunqi.starter.database.sql;
+
+import com.yunqi.starter.database.mapper.RowEntity;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.nutz.dao.Cnd;
+import org.nutz.dao.Condition;
+import org.nutz.dao.Sqls;
+import org.nutz.dao.entity.Entity;
+import org.nutz.dao.impl.NutDao;
+import org.nutz.dao.sql.Sql;
+import org.nutz.dao.util.cri.Exps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按条件结构缓存的语句与 Nutz 查询结果一致, 结构不同的条件不共用语句
+ * Created by @author CHQ on 2026/10/19
+ */
+class CompiledSqlCacheTest {
+
+    private static NutDao dao;
+
+    private static Entity<RowEntity> entity;
+
+    @BeforeAll
+    static void setUp() {
+        JdbcDataSource ds = new JdbcDataSource();
+        ds.setURL("jdbc:h2:mem:compiled_sql;DB_CLOSE_DELAY=-1");
+        dao = new NutDao(ds);
+        dao.create(RowEntity.class, true);
+        entity = dao.getEntity(RowEntity.class);
+
+        List<RowEntity> list = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            RowEntity row = new RowEntity();
+            row.setId(i);
+            row.setName("name-" + i);
+            row.setAge(i % 5);
+            row.setRatio(i / 3.0);
+            list.add(row);
+        }
+        dao.fastInsert(list);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dao.drop(RowEntity.class);
+    }
+
+    @BeforeEach
+    void clear() {
+        CompiledSqlCache.clear();
+    }
+
+    @Test
+    void sameShapeSharesTemplate() {
+        Sql first = CompiledSqlCache.query(entity, Cnd.where("age", "=", 1).and("name", "like", "name-1%").desc("id"));
+        Sql second = CompiledSqlCache.query(entity, Cnd.where("age", "=", 3).and("name", "like", "name-3%").desc("id"));
+        assertEquals(1, CompiledSqlCache.size());
+        assertEquals(first.toPreparedStatement(), second.toPreparedStatement());
+        assertEquals(3, second.getParamMatrix()[0][0]);
+    }
+
+    @Test
+    void differentShapeMisses() {
+        CompiledSqlCache.query(entity, Cnd.where("age", "=", 1));
+        CompiledSqlCache.query(entity, Cnd.where("age", ">", 1));
+        CompiledSqlCache.query(entity, Cnd.where("age", "=", 1).andNot("age", "=", 2));
+        CompiledSqlCache.query(entity, Cnd.where("age", "=", 1).asc("id"));
+        CompiledSqlCache.query(entity, Cnd.where("id", "in", new int[]{1, 2}));
+        CompiledSqlCache.query(entity, Cnd.where("id", "in", new int[]{1, 2, 3}));
+        CompiledSqlCache.query(entity, Cnd.where("age", "=", 1).or("age", "=", 2));
+        CompiledSqlCache.query(entity, Cnd.where("age", "=", 1).and("age", "=", 2));
+        assertEquals(8, CompiledSqlCache.size());
+    }
+
+    @Test
+    void unmappedColumnKeyedByValueType() {
+        CompiledSqlCache.query(entity, Cnd.where("t_age", "=", 1));
+        CompiledSqlCache.query(entity, Cnd.where("t_age", "=", "1"));
+        assertEquals(2, CompiledSqlCache.size());
+    }
+
+    @Test
+    void subQueryKeyedBySql() {
+        CompiledSqlCache.query(entity, Cnd.where(Exps.inSql("id", "SELECT id FROM t_row_entity WHERE age = %d", 1)));
+        CompiledSqlCache.query(entity, Cnd.where(Exps.inSql("id", "SELECT id FROM t_row_entity WHERE age = %d", 2)));
+        CompiledSqlCache.query(entity, Cnd.where(Exps.inSql2("id", "SELECT id FROM t_row_entity WHERE age = ?", 1)));
+        CompiledSqlCache.query(entity, Cnd.where(Exps.inSql2("id", "SELECT id FROM t_row_entity WHERE age = ?", 2)));
+        assertEquals(3, CompiledSqlCache.size());
+    }
+
+    @Test
+    void havingFallsBack() {
+        Cnd cnd = Cnd.where("age", ">", 0);
+        cnd.groupBy("age").having(Cnd.where("age", ">", 1));
+        assertNull(CompiledSqlCache.query(entity, cnd));
+    }
+
+    @Test
+    void resultsSameAsNutz() {
+        Condition[] cnds = {
+                Cnd.where("age", "=", 2).desc("id"),
+                Cnd.where("age", "in", new int[]{1, 3}).and("name", "like", "name-1%").asc("id"),
+                Cnd.where("age", "=", 1).or("age", "=", 4).and("id", ">", 5).desc("id"),
+                Cnd.where("name", "is", null).or("id", "between", new Object[]{3, 8}).asc("id"),
+                Cnd.NEW().asc("id")
+        };
+        for (Condition cnd : cnds) {
+            Sql sql = CompiledSqlCache.query(entity, cnd);
+            assertNotNull(sql, cnd.toString());
+            sql.setEntity(entity);
+            sql.setCallback(Sqls.callback.entities());
+            dao.execute(sql);
+            List<RowEntity> expected = dao.query(RowEntity.class, cnd);
+            assertEquals(expected, sql.getList(RowEntity.class), cnd.toString());
+        }
+    }
+}
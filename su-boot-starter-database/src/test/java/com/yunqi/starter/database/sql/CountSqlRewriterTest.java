@@ -0,0 +1,113 @@
+package com.yunqi.starter.database.sql;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 统计语句改写
+ * Created by @author CHQ on 2026/10/19
+ */
+class CountSqlRewriterTest {
+
+    private static final String WRAP_ALIAS = "/*count_alias*/";
+
+    private static String wrapped(String sql) {
+        return "SELECT COUNT(1) FROM (" + sql + ")" + WRAP_ALIAS;
+    }
+
+    @Test
+    void replacesSelectListAndDropsOrderBy() {
+        assertEquals("SELECT COUNT(*) FROM t_user u where u.status = @status",
+                CountSqlRewriter.rewrite("select u.id, u.name from t_user u where u.status = @status order by u.id desc"));
+    }
+
+    @Test
+    void stripsTrailingSemicolon() {
+        assertEquals("SELECT COUNT(*) FROM t_user", CountSqlRewriter.rewrite("select * from t_user;"));
+    }
+
+    @Test
+    void dropsLeftJoinOnUniqueKey() {
+        assertEquals("SELECT COUNT(*) FROM t_user u where u.status = 1",
+                CountSqlRewriter.rewrite("select u.*, d.name from t_user u left join t_dept d on u.dept_id = d.id where u.status = 1"));
+    }
+
+    @Test
+    void keepsLeftJoinReferencedInWhere() {
+        assertEquals("SELECT COUNT(*) FROM t_user u left join t_dept d on u.dept_id = d.id where d.status = 1",
+                CountSqlRewriter.rewrite("select u.* from t_user u left join t_dept d on u.dept_id = d.id where d.status = 1"));
+    }
+
+    @Test
+    void keepsLeftJoinNotOnUniqueKey() {
+        assertEquals("SELECT COUNT(*) FROM t_user u left join t_role r on r.user_id = u.id",
+                CountSqlRewriter.rewrite("select u.* from t_user u left join t_role r on r.user_id = u.id"));
+    }
+
+    @Test
+    void keepsLeftJoinOfSubquery() {
+        String sql = "select u.* from t_user u left join (select id, name from t_dept) d on u.dept_id = d.id";
+        assertEquals("SELECT COUNT(*) FROM t_user u left join (select id, name from t_dept) d on u.dept_id = d.id",
+                CountSqlRewriter.rewrite(sql));
+    }
+
+    @Test
+    void wrapsWhenWhereHasUnqualifiedColumn() {
+        // dept_name 可能是 t_dept 的列, 去掉关联后会报列不存在
+        String sql = "select u.* from t_user u left join t_dept d on u.dept_id = d.id where dept_name = @name";
+        assertEquals(wrapped(sql), CountSqlRewriter.rewrite(sql));
+    }
+
+    @Test
+    void wrapsWhenOtherJoinHasUnqualifiedColumn() {
+        String sql = "select u.* from t_user u left join t_dept d on u.dept_id = d.id inner join t_org o on o.id = org_id";
+        assertEquals(wrapped(sql), CountSqlRewriter.rewrite(sql));
+    }
+
+    @Test
+    void ignoresLiteralsParamsAndFunctionsWhenCheckingColumns() {
+        String sql = "select u.* from t_user u left join t_dept d on u.dept_id = d.id "
+                + "where u.name like 'name = x' and lower(u.code) = :code and u.age > 18 and u.deleted is not null";
+        assertEquals("SELECT COUNT(*) FROM t_user u where u.name like 'name = x' and lower(u.code) = :code "
+                + "and u.age > 18 and u.deleted is not null", CountSqlRewriter.rewrite(sql));
+    }
+
+    @Test
+    void hasUnqualifiedColumn() {
+        assertFalse(CountSqlRewriter.hasUnqualifiedColumn("where u.a = 1 and `u`.`b` = @b -- c = 1"));
+        assertFalse(CountSqlRewriter.hasUnqualifiedColumn("where u.a between 1 and 2 /* b = 1 */ or u.c in (1, 2)"));
+        assertTrue(CountSqlRewriter.hasUnqualifiedColumn("where a = 1"));
+        assertTrue(CountSqlRewriter.hasUnqualifiedColumn("where u.a = 1 and \"b\" = 2"));
+        assertTrue(CountSqlRewriter.hasUnqualifiedColumn("where u.id in (select user_id from t_role)"));
+    }
+
+    @Test
+    void wrapsComplexQueries() {
+        assertEquals(wrapped("select distinct u.name from t_user u"),
+                CountSqlRewriter.rewrite("select distinct u.name from t_user u order by u.name"));
+        assertEquals(wrapped("select u.dept_id, count(*) from t_user u group by u.dept_id"),
+                CountSqlRewriter.rewrite("select u.dept_id, count(*) from t_user u group by u.dept_id order by u.dept_id"));
+        assertEquals(wrapped("select id from a union select id from b"),
+                CountSqlRewriter.rewrite("select id from a union select id from b"));
+    }
+
+    @Test
+    void wrapsPagedOrLockedQueriesWithOrderBy() {
+        assertEquals(wrapped("select * from t_user order by id limit 10"),
+                CountSqlRewriter.rewrite("select * from t_user order by id limit 10"));
+        assertEquals(wrapped("select * from t_user where id = 1 for update"),
+                CountSqlRewriter.rewrite("select * from t_user where id = 1 for update"));
+    }
+
+    @Test
+    void wrapsVariables() {
+        assertEquals(wrapped("select * from $table"), CountSqlRewriter.rewrite("select * from $table"));
+    }
+
+    @Test
+    void ignoresKeywordsInsideStringsAndSubqueries() {
+        assertEquals("SELECT COUNT(*) FROM t_user u where u.name = 'order by x' and u.id in (select user_id from t_role order by 1)",
+                CountSqlRewriter.rewrite("select u.* from t_user u where u.name = 'order by x' and u.id in (select user_id from t_role order by 1)"));
+    }
+}
@@ -0,0 +1,22 @@
+package com.yunqi.starter.jdbc.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 切换数据源
+ * <p>
+ * 方法上的注解优先于类上的注解, 方法执行完后恢复之前的数据源。
+ * 需要开启多数据源(su.druid.dynamic.enabled), 在事务中切换数据源不会生效。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Documented
+@Inherited
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface DataSource {
+
+    /**
+     * 数据源名称
+     */
+    String value();
+}
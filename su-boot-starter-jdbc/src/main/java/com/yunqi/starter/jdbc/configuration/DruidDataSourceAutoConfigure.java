@@ -1,20 +1,40 @@
 package com.yunqi.starter.jdbc.configuration;
 
 import com.alibaba.druid.pool.DruidDataSource;
+import com.yunqi.starter.jdbc.dynamic.DataSourceInterceptor;
+import com.yunqi.starter.jdbc.dynamic.DataSourceProvider;
+import com.yunqi.starter.jdbc.dynamic.DynamicDataSourceRegistry;
+import com.yunqi.starter.jdbc.dynamic.DynamicRoutingDataSource;
+import com.yunqi.starter.jdbc.pool.PoolWarmup;
+import com.yunqi.starter.jdbc.readiness.ReadinessGate;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
 
 import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.util.stream.Collectors;
 
 /**
  * Druid 数据源自动配置类
@@ -31,7 +51,66 @@ public class DruidDataSourceAutoConfigure {
     @Primary
     @ConditionalOnMissingBean
     @ConfigurationProperties("spring.datasource")
-    public DataSource dataSource(DruidProperties properties) {
+    public DataSource dataSource(DruidProperties properties, ObjectProvider<DataSourceProvider> providers, Environment environment) {
+        DruidDataSource druidDataSource = create(properties, null);
+        if (!properties.getDynamic().isEnabled()) {
+            return druidDataSource;
+        }
+        // 多数据源, 返回的路由数据源没有 setter, spring.datasource 需要先绑定到主数据源
+        Binder.get(environment).bind("spring.datasource", Bindable.ofInstance(druidDataSource));
+        // 主数据源之外的数据源由注册中心管理
+        DynamicDataSourceRegistry registry = new DynamicDataSourceRegistry(druidDataSource, properties,
+                providers.orderedStream().collect(Collectors.toList()));
+        return new DynamicRoutingDataSource(registry);
+    }
+
+    /**
+     * 多数据源注册中心
+     * @param dataSource 数据源
+     * @return 多数据源注册中心
+     */
+    @Bean
+    @ConditionalOnExpression("${su.druid.dynamic.enabled:false}")
+    public DynamicDataSourceRegistry dynamicDataSourceRegistry(DataSource dataSource) {
+        if (!(dataSource instanceof DynamicRoutingDataSource)) {
+            throw new IllegalStateException("开启多数据源时不能自定义 DataSource");
+        }
+        return ((DynamicRoutingDataSource) dataSource).getRegistry();
+    }
+
+    /**
+     * {@link com.yunqi.starter.jdbc.annotation.DataSource} 切面, 优先于事务切面执行
+     * @return 切面
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    @ConditionalOnExpression("${su.druid.dynamic.enabled:false}")
+    public static Advisor dataSourceAdvisor() {
+        Pointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(com.yunqi.starter.jdbc.annotation.DataSource.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(com.yunqi.starter.jdbc.annotation.DataSource.class));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new DataSourceInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    /**
+     * 启动预热的就绪控制, 连接池预热和实体元数据预热共用
+     * @param publisher 事件发布
+     * @return 就绪控制
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ReadinessGate readinessGate(ApplicationEventPublisher publisher) {
+        return new ReadinessGate(publisher);
+    }
+
+    /**
+     * 创建 Druid 数据源
+     * @param properties    全局配置
+     * @param pool          单个数据源的配置, 为 null 时使用全局配置
+     * @return Druid 数据源(未初始化, 第一次获取连接时初始化)
+     */
+    public static DruidDataSource create(DruidProperties properties, DruidProperties.Pool pool) {
         // 创建 DruidDataSource 实例
         DruidDataSource druidDataSource = new DruidDataSource();
         druidDataSource.setUrl(properties.getUrl());
@@ -69,6 +148,39 @@ public class DruidDataSourceAutoConfigure {
             throw new RuntimeException("Error setting filters for DruidDataSource", e);
         }
 
+        // 单个数据源的配置覆盖全局配置
+        if (pool != null) {
+            druidDataSource.setUrl(pool.getUrl());
+            if (pool.getUsername() != null) {
+                druidDataSource.setUsername(pool.getUsername());
+            }
+            if (pool.getPassword() != null) {
+                druidDataSource.setPassword(pool.getPassword());
+            }
+            if (pool.getDriverClassName() != null) {
+                druidDataSource.setDriverClassName(pool.getDriverClassName());
+            }
+            if (pool.getInitialSize() != null) {
+                druidDataSource.setInitialSize(pool.getInitialSize());
+            }
+            if (pool.getMinIdle() != null) {
+                druidDataSource.setMinIdle(pool.getMinIdle());
+            }
+            if (pool.getMaxActive() != null) {
+                druidDataSource.setMaxActive(pool.getMaxActive());
+            }
+            if (pool.getMaxWait() != null) {
+                druidDataSource.setMaxWait(pool.getMaxWait());
+            }
+        }
+
+        // 后台预热, 初始化时只同步创建少量连接, 其余连接并行创建
+        DruidProperties.Warmup warmup = properties.getWarmup();
+        if (warmup.isEnabled() && druidDataSource.getInitialSize() > warmup.getMinSize()) {
+            druidDataSource.getProxyFilters().add(new PoolWarmup(druidDataSource.getInitialSize(),
+                    warmup.getParallelism(), warmup.getSlowConnectMillis()));
+            druidDataSource.setInitialSize(Math.max(0, warmup.getMinSize()));
+        }
         return druidDataSource;
     }
 
@@ -0,0 +1,86 @@
+package com.yunqi.starter.jdbc.configuration;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.yunqi.starter.jdbc.pool.ConnectionLeakDetector;
+import com.yunqi.starter.jdbc.pool.DruidPoolAutoSizer;
+import com.yunqi.starter.jdbc.pool.DruidPoolMetrics;
+import com.yunqi.starter.jdbc.pool.DruidPoolWarmer;
+import com.yunqi.starter.jdbc.pool.DruidPools;
+import com.yunqi.starter.jdbc.readiness.ReadinessGate;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Druid 连接池指标、自适应大小、预热与泄漏检测配置
+ * Created by @author CHQ on 2026/10/19
+ */
+@Configuration
+@ConditionalOnClass(DruidDataSource.class)
+@ConditionalOnBean(DataSource.class)
+@AutoConfigureAfter(DruidDataSourceAutoConfigure.class)
+public class DruidPoolConfiguration {
+
+    /**
+     * 连接池自适应大小
+     * @param dataSource    数据源
+     * @param properties    配置
+     * @return 自适应大小
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("${su.druid.adaptive.enabled:false}")
+    public DruidPoolAutoSizer druidPoolAutoSizer(DataSource dataSource, DruidProperties properties) {
+        return new DruidPoolAutoSizer(DruidPools.of(dataSource, properties.getDynamic().getPrimary()), properties.getAdaptive());
+    }
+
+    /**
+     * 连接池预热未完成时暂缓就绪
+     * @param dataSource    数据源
+     * @param properties    配置
+     * @param gate          就绪控制
+     * @return 预热就绪检查
+     */
+    @Bean
+    @ConditionalOnExpression("${su.druid.warmup.enabled:false}")
+    public DruidPoolWarmer druidPoolWarmer(DataSource dataSource, DruidProperties properties, ReadinessGate gate) {
+        DruidProperties.Warmup warmup = properties.getWarmup();
+        return new DruidPoolWarmer(DruidPools.of(dataSource, properties.getDynamic().getPrimary()),
+                warmup.getReadyFraction(), warmup.getReadyTimeout(), gate);
+    }
+
+    /**
+     * 连接泄漏检测
+     * @param dataSource    数据源
+     * @param properties    配置
+     * @return 连接泄漏检测
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("${su.druid.leak.enabled:false}")
+    public ConnectionLeakDetector connectionLeakDetector(DataSource dataSource, DruidProperties properties) {
+        return new ConnectionLeakDetector(DruidPools.of(dataSource, properties.getDynamic().getPrimary()), properties.getLeak());
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnExpression("${su.druid.metrics.enabled:false}")
+    static class DruidPoolMetricsConfiguration {
+
+        /**
+         * 连接池指标, 多数据源时按 checkInterval 刷新以覆盖新创建或已关闭的连接池
+         * @param dataSource    数据源
+         * @param properties    配置
+         * @return 连接池指标
+         */
+        @Bean(destroyMethod = "close")
+        public DruidPoolMetrics druidPoolMetrics(DataSource dataSource, DruidProperties properties) {
+            return new DruidPoolMetrics(DruidPools.of(dataSource, properties.getDynamic().getPrimary()),
+                    properties.getMetrics().isHistogram(),
+                    properties.getDynamic().isEnabled() ? properties.getDynamic().getCheckInterval() : 0);
+        }
+    }
+}
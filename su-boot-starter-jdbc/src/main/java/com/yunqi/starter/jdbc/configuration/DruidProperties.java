@@ -4,6 +4,9 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Druid 配置
  * Created by @author CHQ on 2022/2/1
@@ -109,6 +112,21 @@ public class DruidProperties {
 
     statViewServlet statViewServlet = new statViewServlet();
 
+    /** 多数据源 */
+    Dynamic dynamic = new Dynamic();
+
+    /** 连接池指标 */
+    Metrics metrics = new Metrics();
+
+    /** 连接池自适应大小 */
+    Adaptive adaptive = new Adaptive();
+
+    /** 连接池后台预热 */
+    Warmup warmup = new Warmup();
+
+    /** 连接泄漏检测 */
+    Leak leak = new Leak();
+
 
     @Getter
     @Setter
@@ -146,4 +164,154 @@ public class DruidProperties {
 
     }
 
+    @Getter
+    @Setter
+    public static class Dynamic {
+
+        /** 是否开启多数据源 */
+        boolean enabled = false;
+
+        /** 主数据源名称, 主数据源使用上面的全局配置 */
+        private String primary = "master";
+
+        /** 数据源不存在时是否抛出异常, 否则使用主数据源 */
+        private boolean strict = true;
+
+        /** 延迟创建的数据源空闲多久后关闭, 单位毫秒 */
+        private long idleTimeout = 30 * 60 * 1000L;
+
+        /** 检查空闲数据源的间隔, 单位毫秒 */
+        private long checkInterval = 60 * 1000L;
+
+        /** 数据源列表, 未配置的连接池参数使用全局配置 */
+        private Map<String, Pool> datasources = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Metrics {
+
+        /** 是否输出连接池指标(需要 micrometer) */
+        boolean enabled = false;
+
+        /** 是否输出获取连接耗时直方图 */
+        private boolean histogram = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Adaptive {
+
+        /** 是否根据等待情况自动调整 maxActive */
+        boolean enabled = false;
+
+        /** maxActive 下限 */
+        private int minActive = 10;
+
+        /** maxActive 上限 */
+        private int maxActive = 200;
+
+        /** 每次调整的连接数 */
+        private int step = 5;
+
+        /** 检查间隔, 单位毫秒 */
+        private long interval = 10000;
+
+        /** 检查周期内获取连接的平均等待时间超过多少毫秒时扩大 */
+        private long growWaitMillis = 20;
+
+        /** 使用率低于多少时视为空闲 */
+        private double shrinkUtilization = 0.5;
+
+        /** 连续空闲多少个检查周期后缩小 */
+        private int shrinkIntervals = 6;
+
+        /** 查询数据库负载的 sql(返回一个数值), 为空时不检查数据库负载 */
+        private String loadQuery;
+
+        /** 数据库负载达到多少时不再扩大并开始缩小, 小于等于 0 时不检查 */
+        private double maxLoad = 0;
+
+        /** 查询数据库负载的超时时间(含建立连接), 单位毫秒, 超时或失败时本周期不扩大 */
+        private long loadTimeout = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Warmup {
+
+        /** 是否在后台并行创建 initialSize 个连接 */
+        boolean enabled = false;
+
+        /** 初始化时同步创建的连接数 */
+        private int minSize = 1;
+
+        /** 并行创建连接的线程数 */
+        private int parallelism = 4;
+
+        /** 连接数达到 initialSize 的多少比例后就绪, 小于等于 0 时不影响就绪 */
+        private double readyFraction = 1.0;
+
+        /** 最长暂缓就绪时间, 单位毫秒 */
+        private long readyTimeout = 60 * 1000L;
+
+        /** 创建连接超过多少毫秒时输出警告, 小于等于 0 时不输出 */
+        private long slowConnectMillis = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Leak {
+
+        /** 是否检测连接泄漏和长时间占用 */
+        boolean enabled = false;
+
+        /** 连接持有超过多少毫秒时输出警告 */
+        private long threshold = 60 * 1000L;
+
+        /** 记录借出位置调用栈的抽样比例(0~1) */
+        private double stackSampleRate = 0.1;
+
+        /** 检查间隔, 单位毫秒 */
+        private long checkInterval = 10 * 1000L;
+
+        /** 是否强制回收持有时间过长的连接 */
+        private boolean reclaim = false;
+
+        /** 连接持有超过多少毫秒时回收 */
+        private long reclaimThreshold = 5 * 60 * 1000L;
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        /** 驱动类名 */
+        private String driverClassName;
+
+        /** 数据库连接地址 */
+        private String url;
+
+        /** 数据库用户名 */
+        private String username;
+
+        /** 数据库密码 */
+        private String password;
+
+        /** 初始化时建立物理连接的个数 */
+        private Integer initialSize;
+
+        /** 最小连接池数量 */
+        private Integer minIdle;
+
+        /** 最大连接池数量 */
+        private Integer maxActive;
+
+        /** 获取连接时最大等待时间，单位毫秒 */
+        private Integer maxWait;
+
+        /** 是否在第一次使用时才创建, 延迟创建的数据源空闲超时后关闭 */
+        private boolean lazy = false;
+    }
+
 }
@@ -0,0 +1,93 @@
+package com.yunqi.starter.jdbc.dynamic;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 当前线程使用的数据源名称
+ * <p>
+ * 以栈的方式保存, 嵌套切换后可以恢复到外层的数据源
+ * <pre>
+ * try (DataSourceContextHolder.Scope scope = DataSourceContextHolder.use("tenant_1")) {
+ *     userService.query(cnd);
+ * }
+ * </pre>
+ * Created by @author CHQ on 2026/10/19
+ */
+public final class DataSourceContextHolder {
+
+    private static final ThreadLocal<Deque<String>> HOLDER = new ThreadLocal<>();
+
+    private DataSourceContextHolder() {
+    }
+
+    /**
+     * 当前数据源名称
+     *
+     * @return 名称, 没有切换时返回 null(使用主数据源)
+     */
+    public static String peek() {
+        Deque<String> deque = HOLDER.get();
+        return deque == null ? null : deque.peek();
+    }
+
+    /**
+     * 切换数据源
+     *
+     * @param name 数据源名称
+     */
+    public static void push(String name) {
+        Deque<String> deque = HOLDER.get();
+        if (deque == null) {
+            deque = new ArrayDeque<>();
+            HOLDER.set(deque);
+        }
+        deque.push(name);
+    }
+
+    /**
+     * 恢复到切换前的数据源
+     */
+    public static void poll() {
+        Deque<String> deque = HOLDER.get();
+        if (deque == null) {
+            return;
+        }
+        deque.poll();
+        if (deque.isEmpty()) {
+            HOLDER.remove();
+        }
+    }
+
+    /**
+     * 清除当前线程的数据源
+     */
+    public static void clear() {
+        HOLDER.remove();
+    }
+
+    /**
+     * 切换数据源, 作用域关闭后恢复
+     *
+     * @param name  数据源名称
+     * @return      作用域
+     */
+    public static Scope use(String name) {
+        push(name);
+        return new Scope();
+    }
+
+    /**
+     * 数据源作用域
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private Scope() {
+        }
+
+        @Override
+        public void close() {
+            poll();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.yunqi.starter.jdbc.dynamic;
+
+import com.yunqi.starter.jdbc.annotation.DataSource;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * {@link DataSource} 拦截器
+ * Created by @author CHQ on 2026/10/19
+ */
+public class DataSourceInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        DataSource annotation = find(invocation);
+        if (annotation == null) {
+            return invocation.proceed();
+        }
+        try (DataSourceContextHolder.Scope ignored = DataSourceContextHolder.use(annotation.value())) {
+            return invocation.proceed();
+        }
+    }
+
+    private static DataSource find(MethodInvocation invocation) {
+        Class<?> targetClass = invocation.getThis() == null
+                ? invocation.getMethod().getDeclaringClass() : AopUtils.getTargetClass(invocation.getThis());
+        Method method = AopUtils.getMostSpecificMethod(invocation.getMethod(), targetClass);
+        DataSource annotation = AnnotationUtils.findAnnotation(method, DataSource.class);
+        return annotation != null ? annotation : AnnotationUtils.findAnnotation(targetClass, DataSource.class);
+    }
+}
@@ -0,0 +1,20 @@
+package com.yunqi.starter.jdbc.dynamic;
+
+import com.yunqi.starter.jdbc.configuration.DruidProperties;
+
+/**
+ * 按名称提供数据源配置(例如根据租户ID从配置中心或数据库读取)
+ * <p>
+ * 声明为 Bean 后, 配置中没有的数据源会依次询问, 返回的数据源延迟创建并在空闲超时后关闭
+ * Created by @author CHQ on 2026/10/19
+ */
+public interface DataSourceProvider {
+
+    /**
+     * 获取数据源配置
+     *
+     * @param name  数据源名称
+     * @return      数据源配置, 不存在时返回 null
+     */
+    DruidProperties.Pool resolve(String name);
+}
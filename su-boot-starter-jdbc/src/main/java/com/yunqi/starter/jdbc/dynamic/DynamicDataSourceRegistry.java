@@ -0,0 +1,268 @@
+package com.yunqi.starter.jdbc.dynamic;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.yunqi.starter.jdbc.configuration.DruidDataSourceAutoConfigure;
+import com.yunqi.starter.jdbc.configuration.DruidProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多数据源注册中心
+ * <p>
+ * 管理主数据源和按名称配置的 Druid 连接池。非延迟的数据源在启动时创建;
+ * 延迟的数据源(以及 {@link DataSourceProvider} 提供的租户数据源)在第一次使用时创建,
+ * 空闲超过 idleTimeout 且没有使用中的连接时关闭, 再次使用时重新创建。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class DynamicDataSourceRegistry {
+
+    private final DruidProperties properties;
+
+    private final DruidProperties.Dynamic config;
+
+    private final List<DataSourceProvider> providers;
+
+    private final Map<String, DruidProperties.Pool> definitions = new ConcurrentHashMap<>();
+
+    private final Map<String, PoolHolder> pools = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService cleaner;
+
+    public DynamicDataSourceRegistry(DruidDataSource primary, DruidProperties properties, List<DataSourceProvider> providers) {
+        this.properties = properties;
+        this.config = properties.getDynamic();
+        this.providers = providers == null ? Collections.emptyList() : providers;
+        this.pools.put(config.getPrimary(), new PoolHolder(primary, false));
+        for (Map.Entry<String, DruidProperties.Pool> entry : config.getDatasources().entrySet()) {
+            register(entry.getKey(), entry.getValue());
+        }
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "su-druid-dynamic-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1000, config.getCheckInterval());
+        this.cleaner.scheduleWithFixedDelay(this::closeIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 注册数据源, 已存在同名数据源时先关闭旧的连接池
+     *
+     * @param name  数据源名称
+     * @param pool  数据源配置
+     */
+    public void register(String name, DruidProperties.Pool pool) {
+        if (config.getPrimary().equals(name)) {
+            throw new IllegalArgumentException("不能覆盖主数据源: " + name);
+        }
+        definitions.put(name, pool);
+        close(name);
+        if (!pool.isLazy()) {
+            pools.put(name, new PoolHolder(DruidDataSourceAutoConfigure.create(properties, pool), false));
+        }
+    }
+
+    /**
+     * 移除数据源并关闭连接池
+     *
+     * @param name 数据源名称
+     */
+    public void remove(String name) {
+        if (config.getPrimary().equals(name)) {
+            throw new IllegalArgumentException("不能移除主数据源: " + name);
+        }
+        definitions.remove(name);
+        close(name);
+    }
+
+    /**
+     * 获取数据源, 延迟创建的数据源不存在时创建
+     *
+     * @param name  数据源名称, 为 null 时返回主数据源
+     * @return      数据源
+     */
+    public DruidDataSource get(String name) {
+        PoolHolder holder = pools.get(name == null ? config.getPrimary() : name);
+        if (holder == null) {
+            holder = pools.computeIfAbsent(name, this::createLazy);
+            if (holder == null) {
+                if (config.isStrict()) {
+                    throw new IllegalStateException("数据源不存在: " + name);
+                }
+                holder = pools.get(config.getPrimary());
+            }
+        }
+        holder.lastUsedAt = System.currentTimeMillis();
+        return holder.dataSource;
+    }
+
+    /**
+     * 从数据源获取连接, 连接池恰好因空闲被关闭时重新创建
+     *
+     * @param name  数据源名称
+     * @return      连接
+     */
+    public Connection getConnection(String name) throws SQLException {
+        DruidDataSource dataSource = get(name);
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            if (!dataSource.isClosed()) {
+                throw e;
+            }
+            return get(name).getConnection();
+        }
+    }
+
+    /**
+     * 主数据源
+     *
+     * @return 主数据源
+     */
+    public DruidDataSource primary() {
+        return pools.get(config.getPrimary()).dataSource;
+    }
+
+    /**
+     * 数据源名称(包括尚未创建的延迟数据源)
+     *
+     * @return 名称列表
+     */
+    public Set<String> names() {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(config.getPrimary());
+        names.addAll(definitions.keySet());
+        names.addAll(pools.keySet());
+        return names;
+    }
+
+    /**
+     * 已创建的连接池
+     *
+     * @return 数据源名称 -> 连接池
+     */
+    public Map<String, DruidDataSource> dataSources() {
+        Map<String, DruidDataSource> map = new LinkedHashMap<>();
+        for (Map.Entry<String, PoolHolder> entry : pools.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().dataSource);
+        }
+        return map;
+    }
+
+    /**
+     * 已创建的连接池状态
+     *
+     * @return 状态列表
+     */
+    public List<PoolStats> stats() {
+        List<PoolStats> list = new ArrayList<>(pools.size());
+        for (Map.Entry<String, PoolHolder> entry : pools.entrySet()) {
+            DruidDataSource ds = entry.getValue().dataSource;
+            PoolStats stats = new PoolStats();
+            stats.setName(entry.getKey());
+            stats.setPrimary(config.getPrimary().equals(entry.getKey()));
+            stats.setLazy(entry.getValue().lazy);
+            stats.setInited(ds.isInited());
+            stats.setActive(ds.getActiveCount());
+            stats.setIdle(ds.getPoolingCount());
+            stats.setMaxActive(ds.getMaxActive());
+            stats.setWaitThreads(ds.getWaitThreadCount());
+            stats.setCreateCount(ds.getCreateCount());
+            stats.setErrorCount(ds.getErrorCount());
+            stats.setLastUsedAt(entry.getValue().lastUsedAt);
+            list.add(stats);
+        }
+        return list;
+    }
+
+    /**
+     * 检查数据源是否可用(获取连接并校验)
+     *
+     * @param name      数据源名称
+     * @param timeout   校验超时时间, 单位秒
+     * @return          true 可用
+     */
+    public boolean check(String name, int timeout) {
+        try (Connection conn = getConnection(name)) {
+            return conn.isValid(timeout);
+        } catch (Exception e) {
+            log.warn("数据源 {} 不可用: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 关闭所有连接池
+     */
+    public void close() {
+        cleaner.shutdownNow();
+        for (PoolHolder holder : pools.values()) {
+            holder.dataSource.close();
+        }
+        pools.clear();
+    }
+
+    private PoolHolder createLazy(String name) {
+        DruidProperties.Pool pool = definitions.get(name);
+        if (pool == null) {
+            for (DataSourceProvider provider : providers) {
+                pool = provider.resolve(name);
+                if (pool != null) {
+                    break;
+                }
+            }
+            if (pool == null) {
+                return null;
+            }
+        }
+        log.info("创建数据源 -> {}", name);
+        return new PoolHolder(DruidDataSourceAutoConfigure.create(properties, pool), true);
+    }
+
+    /**
+     * 关闭空闲的延迟数据源
+     */
+    private void closeIdle() {
+        long deadline = System.currentTimeMillis() - config.getIdleTimeout();
+        for (Map.Entry<String, PoolHolder> entry : pools.entrySet()) {
+            PoolHolder holder = entry.getValue();
+            if (holder.lazy && holder.lastUsedAt < deadline && holder.dataSource.getActiveCount() == 0
+                    && pools.remove(entry.getKey(), holder)) {
+                holder.dataSource.close();
+                log.info("关闭空闲数据源 -> {}", entry.getKey());
+            }
+        }
+    }
+
+    private void close(String name) {
+        PoolHolder holder = pools.remove(name);
+        if (holder != null) {
+            holder.dataSource.close();
+        }
+    }
+
+    /**
+     * 连接池和最近使用时间
+     */
+    private static class PoolHolder {
+
+        private final DruidDataSource dataSource;
+
+        private final boolean lazy;
+
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        PoolHolder(DruidDataSource dataSource, boolean lazy) {
+            this.dataSource = dataSource;
+            this.lazy = lazy;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.yunqi.starter.jdbc.dynamic;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 按当前线程的数据源名称({@link DataSourceContextHolder})路由的数据源
+ * Created by @author CHQ on 2026/10/19
+ */
+public class DynamicRoutingDataSource extends AbstractDataSource {
+
+    private final DynamicDataSourceRegistry registry;
+
+    public DynamicRoutingDataSource(DynamicDataSourceRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return registry.getConnection(DataSourceContextHolder.peek());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return registry.get(DataSourceContextHolder.peek()).getConnection(username, password);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return registry.get(DataSourceContextHolder.peek()).unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || registry.get(DataSourceContextHolder.peek()).isWrapperFor(iface);
+    }
+
+    /**
+     * 多数据源注册中心
+     *
+     * @return 注册中心
+     */
+    public DynamicDataSourceRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * 关闭所有连接池
+     */
+    public void close() {
+        registry.close();
+    }
+}
@@ -0,0 +1,44 @@
+package com.yunqi.starter.jdbc.dynamic;
+
+import lombok.Data;
+
+/**
+ * 连接池状态
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+public class PoolStats {
+
+    /** 数据源名称 */
+    private String name;
+
+    /** 是否主数据源 */
+    private boolean primary;
+
+    /** 是否延迟创建 */
+    private boolean lazy;
+
+    /** 是否已初始化 */
+    private boolean inited;
+
+    /** 使用中的连接数 */
+    private int active;
+
+    /** 空闲连接数 */
+    private int idle;
+
+    /** 最大连接数 */
+    private int maxActive;
+
+    /** 等待获取连接的线程数 */
+    private int waitThreads;
+
+    /** 累计创建的物理连接数 */
+    private long createCount;
+
+    /** 累计获取连接失败次数 */
+    private long errorCount;
+
+    /** 最近一次使用时间 */
+    private long lastUsedAt;
+}
@@ -0,0 +1,35 @@
+package com.yunqi.starter.jdbc.pool;
+
+import lombok.Data;
+
+/**
+ * 一次借出连接的记录
+ * Created by @author CHQ on 2026/10/19
+ */
+@Data
+public class ConnectionBorrow {
+
+    /** 数据源名称 */
+    private String pool;
+
+    /** 借出连接的线程 */
+    private String thread;
+
+    /** 借出时的链路追踪 ID */
+    private String traceId;
+
+    /** 借出时间 */
+    private long borrowTime;
+
+    /** 已持有时长, 单位毫秒 */
+    private long heldMillis;
+
+    /** 是否已超过持有阈值 */
+    private boolean flagged;
+
+    /** 是否已被回收 */
+    private boolean reclaimed;
+
+    /** 借出位置的调用栈(抽样记录, 未抽中时为持有线程当前的调用栈) */
+    private String stackTrace;
+}
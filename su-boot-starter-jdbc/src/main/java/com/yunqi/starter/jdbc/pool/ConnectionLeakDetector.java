@@ -0,0 +1,368 @@
+package com.yunqi.starter.jdbc.pool;
+
+import com.alibaba.druid.filter.Filter;
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.filter.FilterEventAdapter;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.DruidPooledConnection;
+import com.alibaba.druid.proxy.jdbc.ConnectionProxy;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+import com.alibaba.druid.util.JdbcUtils;
+import com.yunqi.starter.common.utils.TraceIdUtil;
+import com.yunqi.starter.jdbc.configuration.DruidProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 连接泄漏与长时间占用检测
+ * <p>
+ * 每次借出连接时记录线程、MDC 中的链路追踪 ID 和借出时间, 按比例抽样记录借出位置的调用栈以降低开销;
+ * 定期检查持有时间超过阈值的连接并输出持有者信息, 开启回收时强制关闭持有时间过长的连接并输出报告;
+ * 与 Druid 的 removeAbandoned 一致, 正在执行语句的连接不回收, 只标记。执行状态由本过滤器记录
+ * (Druid 只在开启 removeAbandoned 时记录), 连接池添加本过滤器之前创建的连接无法记录, 视为正在执行。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class ConnectionLeakDetector extends FilterEventAdapter {
+
+    /** 保留最近回收记录的数量 */
+    private static final int MAX_RECLAIMED = 100;
+
+    /** 连接代理上保存借出记录的属性名 */
+    private static final String BORROW_ATTRIBUTE = ConnectionLeakDetector.class.getName();
+
+    private final Supplier<Map<String, DruidDataSource>> pools;
+
+    private final DruidProperties.Leak config;
+
+    private final Map<DruidPooledConnection, Borrow> borrows = new ConcurrentHashMap<>();
+
+    private final Map<DruidDataSource, String> attached = new IdentityHashMap<>();
+
+    private final Deque<ConnectionBorrow> reclaimed = new ArrayDeque<>();
+
+    private final AtomicLong flaggedCount = new AtomicLong();
+
+    private final AtomicLong reclaimedCount = new AtomicLong();
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    public ConnectionLeakDetector(Supplier<Map<String, DruidDataSource>> pools, DruidProperties.Leak config) {
+        this.pools = pools;
+        this.config = config;
+        attach();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "su-druid-leak");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::check, config.getCheckInterval(), config.getCheckInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public DruidPooledConnection dataSource_getConnection(FilterChain chain, DruidDataSource dataSource, long maxWaitMillis) throws SQLException {
+        DruidPooledConnection conn = super.dataSource_getConnection(chain, dataSource, maxWaitMillis);
+        if (conn != null && !closed) {
+            Throwable site = config.getStackSampleRate() > 0 && ThreadLocalRandom.current().nextDouble() < config.getStackSampleRate()
+                    ? new Throwable() : null;
+            // TraceIdUtil.TRACE_ID 为编译期常量, 不依赖核心模块在运行期存在
+            Borrow borrow = new Borrow(dataSource, Thread.currentThread(), MDC.get(TraceIdUtil.TRACE_ID), site);
+            if (conn.getConnection() instanceof ConnectionProxy) {
+                ((ConnectionProxy) conn.getConnection()).putAttribute(BORROW_ATTRIBUTE, borrow);
+                borrow.tracked = true;
+            }
+            borrows.put(conn, borrow);
+        }
+        return conn;
+    }
+
+    @Override
+    public void dataSource_releaseConnection(FilterChain chain, DruidPooledConnection conn) throws SQLException {
+        if (borrows.remove(conn) != null && conn.getConnection() instanceof ConnectionProxy) {
+            ((ConnectionProxy) conn.getConnection()).getAttributes().remove(BORROW_ATTRIBUTE);
+        }
+        super.dataSource_releaseConnection(chain, conn);
+    }
+
+    @Override
+    protected void statementExecuteBefore(StatementProxy statement, String sql) {
+        executing(statement, 1);
+    }
+
+    @Override
+    protected void statementExecuteAfter(StatementProxy statement, String sql, boolean result) {
+        executing(statement, -1);
+    }
+
+    @Override
+    protected void statementExecuteQueryBefore(StatementProxy statement, String sql) {
+        executing(statement, 1);
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(StatementProxy statement, String sql, ResultSetProxy resultSet) {
+        executing(statement, -1);
+    }
+
+    @Override
+    protected void statementExecuteUpdateBefore(StatementProxy statement, String sql) {
+        executing(statement, 1);
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(StatementProxy statement, String sql, int updateCount) {
+        executing(statement, -1);
+    }
+
+    @Override
+    protected void statementExecuteBatchBefore(StatementProxy statement) {
+        executing(statement, 1);
+    }
+
+    @Override
+    protected void statementExecuteBatchAfter(StatementProxy statement, int[] result) {
+        executing(statement, -1);
+    }
+
+    @Override
+    protected void statement_executeErrorAfter(StatementProxy statement, String sql, Throwable error) {
+        executing(statement, -1);
+    }
+
+    /**
+     * 记录连接上正在执行的语句数
+     */
+    private static void executing(StatementProxy statement, int delta) {
+        Object borrow = statement.getConnectionProxy().getAttribute(BORROW_ATTRIBUTE);
+        if (borrow instanceof Borrow) {
+            ((Borrow) borrow).executing.addAndGet(delta);
+        }
+    }
+
+    /**
+     * 当前借出的连接, 按持有时长从长到短排列
+     *
+     * @return  借出记录
+     */
+    public List<ConnectionBorrow> holders() {
+        Map<DruidDataSource, String> names = names();
+        long now = System.currentTimeMillis();
+        List<ConnectionBorrow> list = new ArrayList<>(borrows.size());
+        for (Borrow borrow : borrows.values()) {
+            list.add(borrow.view(names, now, false));
+        }
+        list.sort((a, b) -> Long.compare(b.getHeldMillis(), a.getHeldMillis()));
+        return list;
+    }
+
+    /**
+     * 最近被回收的连接
+     *
+     * @return  回收记录
+     */
+    public List<ConnectionBorrow> reclaimed() {
+        synchronized (reclaimed) {
+            return new ArrayList<>(reclaimed);
+        }
+    }
+
+    /** 超过持有阈值的次数 */
+    public long getFlaggedCount() {
+        return flaggedCount.get();
+    }
+
+    /** 回收连接的次数 */
+    public long getReclaimedCount() {
+        return reclaimedCount.get();
+    }
+
+    /**
+     * 检查持有时间过长的连接
+     */
+    public synchronized void check() {
+        try {
+            attach();
+            Map<DruidDataSource, String> names = names();
+            long now = System.currentTimeMillis();
+            for (Map.Entry<DruidPooledConnection, Borrow> entry : borrows.entrySet()) {
+                DruidPooledConnection conn = entry.getKey();
+                Borrow borrow = entry.getValue();
+                long held = now - borrow.borrowTime;
+                if (conn.isDisable() || conn.isClosed()) {
+                    borrows.remove(conn);
+                    continue;
+                }
+                if (config.isReclaim() && held >= config.getReclaimThreshold()) {
+                    // 与 Druid 的 removeAbandoned 一致, 正在执行语句的连接不回收, 只标记
+                    if (!borrow.isRunning()) {
+                        reclaim(conn, borrow.view(names, now, true));
+                        continue;
+                    }
+                    if (!borrow.running) {
+                        borrow.running = true;
+                        ConnectionBorrow view = borrow.view(names, now, false);
+                        log.warn("连接超过回收阈值但正在执行语句, 暂不回收 -> 数据源 [{}] 线程 [{}] Trace-Id [{}] 已持有 {}ms",
+                                view.getPool(), view.getThread(), view.getTraceId(), held);
+                    }
+                }
+                if (!borrow.flagged && held >= config.getThreshold()) {
+                    borrow.flagged = true;
+                    flaggedCount.incrementAndGet();
+                    ConnectionBorrow view = borrow.view(names, now, false);
+                    log.warn("连接持有时间过长 -> 数据源 [{}] 线程 [{}] Trace-Id [{}] 已持有 {}ms\n{}", view.getPool(),
+                            view.getThread(), view.getTraceId(), held, view.getStackTrace());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("连接泄漏检查失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 停止检查
+     * <p>
+     * 过滤器不从连接池中移除(已创建的连接代理仍会遍历过滤器), 只停止记录
+     */
+    public synchronized void close() {
+        closed = true;
+        scheduler.shutdownNow();
+        attached.clear();
+        borrows.clear();
+    }
+
+    /**
+     * 强制关闭连接并输出报告, 与 Druid 的 removeAbandoned 处理方式一致, 调用前需确认连接没有在执行语句
+     */
+    private void reclaim(DruidPooledConnection conn, ConnectionBorrow view) {
+        borrows.remove(conn);
+        JdbcUtils.close(conn);
+        conn.abandond();
+        reclaimedCount.incrementAndGet();
+        view.setReclaimed(true);
+        synchronized (reclaimed) {
+            reclaimed.addFirst(view);
+            while (reclaimed.size() > MAX_RECLAIMED) {
+                reclaimed.removeLast();
+            }
+        }
+        log.error("回收泄漏连接 -> 数据源 [{}] 线程 [{}] Trace-Id [{}] 已持有 {}ms\n{}", view.getPool(),
+                view.getThread(), view.getTraceId(), view.getHeldMillis(), view.getStackTrace());
+    }
+
+    /**
+     * 为新的连接池添加过滤器, 清理已关闭连接池的记录
+     */
+    private synchronized void attach() {
+        Map<String, DruidDataSource> current = pools.get();
+        Set<DruidDataSource> alive = Collections.newSetFromMap(new IdentityHashMap<>());
+        alive.addAll(current.values());
+        for (Iterator<DruidDataSource> it = attached.keySet().iterator(); it.hasNext(); ) {
+            DruidDataSource ds = it.next();
+            if (!alive.contains(ds) || ds.isClosed()) {
+                borrows.values().removeIf(borrow -> borrow.dataSource == ds);
+                it.remove();
+            }
+        }
+        for (Map.Entry<String, DruidDataSource> entry : current.entrySet()) {
+            DruidDataSource ds = entry.getValue();
+            if (!attached.containsKey(ds) && !ds.isClosed()) {
+                List<Filter> filters = ds.getProxyFilters();
+                if (!filters.contains(this)) {
+                    filters.add(this);
+                }
+                attached.put(ds, entry.getKey());
+            }
+        }
+    }
+
+    private Map<DruidDataSource, String> names() {
+        synchronized (this) {
+            return new IdentityHashMap<>(attached);
+        }
+    }
+
+    /**
+     * 借出记录
+     */
+    private static class Borrow {
+
+        private final DruidDataSource dataSource;
+
+        private final Thread thread;
+
+        private final String traceId;
+
+        private final Throwable site;
+
+        private final long borrowTime = System.currentTimeMillis();
+
+        private volatile boolean flagged;
+
+        /** 超过回收阈值时正在执行语句 */
+        private volatile boolean running;
+
+        /** 是否能记录执行状态(连接是本过滤器添加后创建的代理连接) */
+        private volatile boolean tracked;
+
+        /** 正在执行的语句数 */
+        private final AtomicInteger executing = new AtomicInteger();
+
+        Borrow(DruidDataSource dataSource, Thread thread, String traceId, Throwable site) {
+            this.dataSource = dataSource;
+            this.thread = thread;
+            this.traceId = traceId;
+            this.site = site;
+        }
+
+        /**
+         * 是否正在执行语句, 无法记录执行状态时视为正在执行
+         */
+        boolean isRunning() {
+            return !tracked || executing.get() > 0;
+        }
+
+        ConnectionBorrow view(Map<DruidDataSource, String> names, long now, boolean withStack) {
+            ConnectionBorrow view = new ConnectionBorrow();
+            view.setPool(names.getOrDefault(dataSource, dataSource.getName()));
+            view.setThread(thread.getName());
+            view.setTraceId(traceId == null ? "" : traceId);
+            view.setBorrowTime(borrowTime);
+            view.setHeldMillis(now - borrowTime);
+            view.setFlagged(flagged);
+            if (withStack || flagged) {
+                view.setStackTrace(stackTrace());
+            }
+            return view;
+        }
+
+        private String stackTrace() {
+            StringBuilder sb = new StringBuilder();
+            StackTraceElement[] trace;
+            if (site != null) {
+                sb.append("借出位置:\n");
+                trace = site.getStackTrace();
+            } else {
+                sb.append("持有线程当前状态 ").append(thread.getState()).append(":\n");
+                trace = thread.getStackTrace();
+            }
+            for (StackTraceElement element : trace) {
+                sb.append("\tat ").append(element).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
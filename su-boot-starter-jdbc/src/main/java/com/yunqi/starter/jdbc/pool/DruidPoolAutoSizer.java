@@ -0,0 +1,251 @@
+package com.yunqi.starter.jdbc.pool;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.yunqi.starter.jdbc.configuration.DruidProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 连接池自适应大小
+ * <p>
+ * 定期检查各连接池: 获取连接的平均等待时间超过阈值(或有线程在等待)且连接基本用满时扩大 maxActive,
+ * 连续多个周期使用率偏低时缩小 maxActive; 配置了数据库负载查询时, 负载过高不再扩大并逐步缩小,
+ * 避免在数据库已经吃紧时继续加连接。maxActive 始终保持在 [max(minActive, minIdle), maxActive] 之间。
+ * 负载查询使用单独的物理连接, 同一个数据库(url)每个周期只查询一次, 查询失败或超时时本周期不扩大。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class DruidPoolAutoSizer {
+
+    private final Supplier<Map<String, DruidDataSource>> pools;
+
+    private final DruidProperties.Adaptive config;
+
+    private final Map<DruidDataSource, State> states = new IdentityHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    /** 查询负载的线程, 建立连接或查询卡住时不阻塞检查线程 */
+    private final ExecutorService prober;
+
+    /** 查询负载使用的物理连接, 按数据库 url 保存, 只在查询负载的线程中使用 */
+    private final Map<String, Connection> probes = new ConcurrentHashMap<>();
+
+    /** 上一次负载查询, 未结束时本周期不再查询 */
+    private Future<?> probing;
+
+    public DruidPoolAutoSizer(Supplier<Map<String, DruidDataSource>> pools, DruidProperties.Adaptive config) {
+        this.pools = pools;
+        this.config = config;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "su-druid-adaptive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prober = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "su-druid-load-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::check, config.getInterval(), config.getInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 检查并调整所有连接池
+     */
+    public synchronized void check() {
+        Map<String, DruidDataSource> current = pools.get();
+        states.keySet().removeIf(ds -> !current.containsValue(ds) || ds.isClosed());
+        Map<String, Load> loads = new HashMap<>();
+        for (Map.Entry<String, DruidDataSource> entry : current.entrySet()) {
+            DruidDataSource ds = entry.getValue();
+            if (!ds.isInited() || ds.isClosed()) {
+                continue;
+            }
+            try {
+                Load load = loads.computeIfAbsent(ds.getUrl(), url -> load(entry.getKey(), ds));
+                adjust(entry.getKey(), ds, states.computeIfAbsent(ds, State::new), load);
+            } catch (Exception e) {
+                log.warn("调整连接池 [{}] 大小失败: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 停止检查
+     */
+    public void close() {
+        scheduler.shutdownNow();
+        prober.shutdownNow();
+        probes.values().forEach(DruidPoolAutoSizer::closeQuietly);
+        probes.clear();
+    }
+
+    private void adjust(String name, DruidDataSource ds, State state, Load load) {
+        long borrows = ds.getConnectCount();
+        long waitMillis = ds.getNotEmptyWaitMillis();
+        long deltaBorrows = borrows - state.borrows;
+        long deltaWait = waitMillis - state.waitMillis;
+        state.borrows = borrows;
+        state.waitMillis = waitMillis;
+
+        int max = ds.getMaxActive();
+        int lower = Math.min(Math.max(config.getMinActive(), ds.getMinIdle()), config.getMaxActive());
+        int upper = Math.max(config.getMaxActive(), lower);
+        double avgWait = deltaBorrows > 0 ? (double) deltaWait / deltaBorrows : 0;
+        double utilization = max > 0 ? (double) ds.getActiveCount() / max : 0;
+        boolean overloaded = load == Load.HIGH;
+
+        int target = max;
+        if (overloaded) {
+            state.idleTicks = 0;
+            target = max - config.getStep();
+        } else if ((avgWait >= config.getGrowWaitMillis() || ds.getWaitThreadCount() > 0) && utilization >= 0.9) {
+            state.idleTicks = 0;
+            // 负载未知时不扩大
+            if (load == Load.NORMAL) {
+                target = max + config.getStep();
+            } else {
+                log.debug("连接池 [{}] 需要扩大, 数据库负载未知, 本周期不扩大", name);
+            }
+        } else if (utilization < config.getShrinkUtilization()) {
+            if (++state.idleTicks >= config.getShrinkIntervals()) {
+                state.idleTicks = 0;
+                target = max - config.getStep();
+            }
+        } else {
+            state.idleTicks = 0;
+        }
+
+        target = Math.max(lower, Math.min(upper, target));
+        if (target != max) {
+            ds.setMaxActive(target);
+            log.info("连接池 [{}] maxActive {} -> {} (平均等待 {}ms, 使用率 {}%{})", name, max, target,
+                    String.format("%.1f", avgWait), Math.round(utilization * 100), overloaded ? ", 数据库负载过高" : "");
+        }
+    }
+
+    /**
+     * 查询数据库负载, 超时或失败时返回 UNKNOWN
+     */
+    private Load load(String name, DruidDataSource ds) {
+        if (config.getLoadQuery() == null || config.getLoadQuery().isEmpty() || config.getMaxLoad() <= 0) {
+            return Load.NORMAL;
+        }
+        // 上一次查询还卡在建立连接或执行中
+        if (probing != null && !probing.isDone()) {
+            return Load.UNKNOWN;
+        }
+        String url = ds.getUrl();
+        Future<Double> future = prober.submit(() -> query(url, ds));
+        probing = future;
+        try {
+            return future.get(config.getLoadTimeout(), TimeUnit.MILLISECONDS) >= config.getMaxLoad() ? Load.HIGH : Load.NORMAL;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.debug("查询数据源 [{}] 负载超时", name);
+            return Load.UNKNOWN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Load.UNKNOWN;
+        } catch (ExecutionException e) {
+            log.debug("查询数据源 [{}] 负载失败: {}", name, e.getCause().getMessage());
+            return Load.UNKNOWN;
+        }
+    }
+
+    /**
+     * 在查询负载的线程中执行负载查询, 连接不可用时重新建立
+     */
+    private double query(String url, DruidDataSource ds) throws SQLException {
+        Connection conn = probes.get(url);
+        if (conn == null || conn.isClosed()) {
+            conn = connect(ds);
+            probes.put(url, conn);
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(config.getLoadTimeout())));
+            try (ResultSet rs = stmt.executeQuery(config.getLoadQuery())) {
+                if (!rs.next()) {
+                    throw new SQLException("负载查询没有返回结果");
+                }
+                return rs.getDouble(1);
+            }
+        } catch (SQLException e) {
+            probes.remove(url);
+            closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * 绕过连接池直接建立物理连接
+     */
+    private static Connection connect(DruidDataSource ds) throws SQLException {
+        Driver driver = ds.getDriver();
+        if (driver == null) {
+            throw new SQLException("连接池未初始化驱动");
+        }
+        Properties info = new Properties();
+        info.putAll(ds.getConnectProperties());
+        if (ds.getUsername() != null) {
+            info.put("user", ds.getUsername());
+        }
+        if (ds.getPassword() != null) {
+            info.put("password", ds.getPassword());
+        }
+        Connection conn = driver.connect(ds.getUrl(), info);
+        if (conn == null) {
+            throw new SQLException("驱动不支持 url: " + ds.getUrl());
+        }
+        return conn;
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (Exception e) {
+            log.debug("关闭负载查询连接失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 数据库负载
+     */
+    private enum Load {
+        /** 正常 */
+        NORMAL,
+        /** 过高 */
+        HIGH,
+        /** 查询失败或超时 */
+        UNKNOWN
+    }
+
+    /**
+     * 上一次检查时的统计
+     */
+    private static class State {
+
+        private long borrows;
+
+        private long waitMillis;
+
+        private int idleTicks;
+
+        State(DruidDataSource ds) {
+            this.borrows = ds.getConnectCount();
+            this.waitMillis = ds.getNotEmptyWaitMillis();
+        }
+    }
+}
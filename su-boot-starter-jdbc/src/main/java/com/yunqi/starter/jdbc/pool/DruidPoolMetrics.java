@@ -0,0 +1,145 @@
+package com.yunqi.starter.jdbc.pool;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.micrometer.core.instrument.*;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Druid 连接池指标
+ * <p>
+ * 按连接池(标签 pool)输出使用中/空闲/等待连接数、获取连接和创建物理连接的耗时、借出与归还次数、错误次数和 PSCache 命中情况。
+ * 多数据源时定期刷新, 为新创建的连接池注册指标, 移除已关闭连接池的指标。
+ * 过滤器不从连接池中移除, 已创建的连接代理仍会遍历过滤器。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class DruidPoolMetrics implements MeterBinder {
+
+    private static final String PREFIX = "su.druid.pool";
+
+    private final Supplier<Map<String, DruidDataSource>> pools;
+
+    private final boolean histogram;
+
+    private final Map<DruidDataSource, List<Meter>> bound = new IdentityHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile MeterRegistry registry;
+
+    /**
+     * @param pools             连接池
+     * @param histogram         是否输出获取连接耗时直方图
+     * @param refreshInterval   刷新间隔(毫秒), 小于等于 0 时不刷新
+     */
+    public DruidPoolMetrics(Supplier<Map<String, DruidDataSource>> pools, boolean histogram, long refreshInterval) {
+        this.pools = pools;
+        this.histogram = histogram;
+        if (refreshInterval > 0) {
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "su-druid-metrics");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler.scheduleWithFixedDelay(this::refresh, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        refresh();
+    }
+
+    /**
+     * 按当前的连接池注册或移除指标
+     */
+    public synchronized void refresh() {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        Map<String, DruidDataSource> current = pools.get();
+        Set<DruidDataSource> alive = Collections.newSetFromMap(new IdentityHashMap<>());
+        alive.addAll(current.values());
+        for (Iterator<Map.Entry<DruidDataSource, List<Meter>>> it = bound.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<DruidDataSource, List<Meter>> entry = it.next();
+            if (!alive.contains(entry.getKey()) || entry.getKey().isClosed()) {
+                for (Meter meter : entry.getValue()) {
+                    registry.remove(meter);
+                }
+                it.remove();
+            }
+        }
+        for (Map.Entry<String, DruidDataSource> entry : current.entrySet()) {
+            if (!bound.containsKey(entry.getValue()) && !entry.getValue().isClosed()) {
+                bound.put(entry.getValue(), bind(registry, entry.getKey(), entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * 停止刷新
+     */
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private List<Meter> bind(MeterRegistry registry, String name, DruidDataSource ds) {
+        Tags tags = Tags.of("pool", name);
+        List<Meter> meters = new ArrayList<>();
+        meters.add(Gauge.builder(PREFIX + ".active", ds, DruidDataSource::getActiveCount)
+                .tags(tags).description("使用中的连接数").register(registry));
+        meters.add(Gauge.builder(PREFIX + ".idle", ds, DruidDataSource::getPoolingCount)
+                .tags(tags).description("空闲连接数").register(registry));
+        meters.add(Gauge.builder(PREFIX + ".max", ds, DruidDataSource::getMaxActive)
+                .tags(tags).description("最大连接数").register(registry));
+        meters.add(Gauge.builder(PREFIX + ".waiting", ds, DruidDataSource::getWaitThreadCount)
+                .tags(tags).description("等待获取连接的线程数").register(registry));
+        meters.add(FunctionCounter.builder(PREFIX + ".wait.count", ds, DruidDataSource::getNotEmptyWaitCount)
+                .tags(tags).description("因没有空闲连接而等待的次数").register(registry));
+        meters.add(FunctionCounter.builder(PREFIX + ".borrows", ds, DruidDataSource::getConnectCount)
+                .tags(tags).description("借出连接次数").register(registry));
+        meters.add(FunctionCounter.builder(PREFIX + ".returns", ds, DruidDataSource::getCloseCount)
+                .tags(tags).description("归还连接次数").register(registry));
+        meters.add(FunctionCounter.builder(PREFIX + ".errors", ds, DruidDataSource::getErrorCount)
+                .tags(tags).description("获取连接失败次数").register(registry));
+        meters.add(FunctionCounter.builder(PREFIX + ".pscache.hits", ds, DruidDataSource::getCachedPreparedStatementHitCount)
+                .tags(tags).description("PSCache 命中次数").register(registry));
+        meters.add(FunctionCounter.builder(PREFIX + ".pscache.misses", ds, DruidDataSource::getCachedPreparedStatementMissCount)
+                .tags(tags).description("PSCache 未命中次数").register(registry));
+        meters.add(Gauge.builder(PREFIX + ".pscache.hit.rate", ds, DruidPoolMetrics::psCacheHitRate)
+                .tags(tags).description("PSCache 命中率").register(registry));
+
+        Timer timer = Timer.builder(PREFIX + ".wait")
+                .tags(tags)
+                .description("获取连接耗时")
+                .publishPercentileHistogram(histogram)
+                .register(registry);
+        meters.add(timer);
+        Timer connectTimer = Timer.builder(PREFIX + ".connect")
+                .tags(tags)
+                .description("创建物理连接耗时")
+                .publishPercentileHistogram(histogram)
+                .register(registry);
+        meters.add(connectTimer);
+        ds.getProxyFilters().add(new PoolMetricsFilter(timer, connectTimer));
+        return meters;
+    }
+
+    private static double psCacheHitRate(DruidDataSource ds) {
+        long hits = ds.getCachedPreparedStatementHitCount();
+        long total = hits + ds.getCachedPreparedStatementMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,97 @@
+package com.yunqi.starter.jdbc.pool;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.yunqi.starter.jdbc.readiness.ReadinessGate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 连接池预热未达到比例时暂缓就绪(不影响存活状态), 与其他启动预热共用 {@link ReadinessGate}
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class DruidPoolWarmer {
+
+    private static final String NAME = "连接池预热";
+
+    private final Supplier<Map<String, DruidDataSource>> pools;
+
+    private final double readyFraction;
+
+    private final long readyTimeout;
+
+    private final ReadinessGate gate;
+
+    private volatile boolean checked;
+
+    /**
+     * @param pools         连接池
+     * @param readyFraction 连接数达到 initialSize 的多少比例后就绪
+     * @param readyTimeout  最长暂缓就绪时间, 单位毫秒
+     * @param gate          就绪控制
+     */
+    public DruidPoolWarmer(Supplier<Map<String, DruidDataSource>> pools, double readyFraction, long readyTimeout,
+                           ReadinessGate gate) {
+        this.pools = pools;
+        this.readyFraction = readyFraction;
+        this.readyTimeout = readyTimeout;
+        this.gate = gate;
+    }
+
+    /**
+     * 应用启动完成(就绪之前)时检查各连接池的预热进度, 未达到比例时登记到就绪控制, 达到或超时后释放
+     * @param event 启动完成事件
+     */
+    @EventListener
+    public void onStarted(ApplicationStartedEvent event) {
+        if (checked || readyFraction <= 0) {
+            return;
+        }
+        checked = true;
+        Map<String, DruidDataSource> current = pools.get();
+        if (isWarm(current)) {
+            return;
+        }
+        gate.hold(NAME);
+        log.info("连接池预热 -> 连接数尚未达到 {}%, 就绪前等待预热", Math.round(readyFraction * 100));
+        Thread thread = new Thread(() -> {
+            long deadline = System.currentTimeMillis() + readyTimeout;
+            try {
+                for (Map.Entry<String, DruidDataSource> entry : current.entrySet()) {
+                    DruidDataSource ds = entry.getValue();
+                    PoolWarmup warmup = PoolWarmup.of(ds);
+                    if (warmup == null || ds.isClosed()) {
+                        continue;
+                    }
+                    // 启动期间没有使用过的连接池在这里初始化, 同时开始预热
+                    ds.init();
+                    if (!warmup.await(readyFraction, Math.max(0, deadline - System.currentTimeMillis()))) {
+                        log.warn("连接池预热 -> 连接池 [{}] 等待超时", entry.getKey());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("连接池预热 -> 初始化失败: {}", e.getMessage());
+            } finally {
+                gate.release(NAME);
+            }
+        }, "su-druid-warmup-readiness");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private boolean isWarm(Map<String, DruidDataSource> current) {
+        for (DruidDataSource ds : current.values()) {
+            PoolWarmup warmup = PoolWarmup.of(ds);
+            if (warmup != null && !ds.isClosed() && (!ds.isInited() || !warmup.isWarm(readyFraction))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
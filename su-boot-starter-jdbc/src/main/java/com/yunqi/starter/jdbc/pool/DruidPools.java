@@ -0,0 +1,34 @@
+package com.yunqi.starter.jdbc.pool;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.yunqi.starter.jdbc.dynamic.DynamicRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 获取数据源中的 Druid 连接池
+ * Created by @author CHQ on 2026/10/19
+ */
+public class DruidPools {
+
+    /**
+     * 数据源中当前的连接池, 多数据源时为已创建的各个连接池
+     *
+     * @param dataSource    数据源
+     * @param primary       单数据源时连接池的名称
+     * @return              数据源名称 -> 连接池
+     */
+    public static Supplier<Map<String, DruidDataSource>> of(DataSource dataSource, String primary) {
+        if (dataSource instanceof DynamicRoutingDataSource) {
+            return ((DynamicRoutingDataSource) dataSource).getRegistry()::dataSources;
+        }
+        if (dataSource instanceof DruidDataSource) {
+            Map<String, DruidDataSource> map = Collections.singletonMap(primary, (DruidDataSource) dataSource);
+            return () -> map;
+        }
+        return Collections::emptyMap;
+    }
+}
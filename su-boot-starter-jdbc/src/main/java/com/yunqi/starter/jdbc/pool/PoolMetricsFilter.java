@@ -0,0 +1,48 @@
+package com.yunqi.starter.jdbc.pool;
+
+import com.alibaba.druid.filter.FilterAdapter;
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.DruidPooledConnection;
+import com.alibaba.druid.proxy.jdbc.ConnectionProxy;
+import io.micrometer.core.instrument.Timer;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录从连接池获取连接的耗时(包括等待空闲连接和创建物理连接)以及创建物理连接的耗时
+ * Created by @author CHQ on 2026/10/19
+ */
+public class PoolMetricsFilter extends FilterAdapter {
+
+    private final Timer waitTimer;
+
+    private final Timer connectTimer;
+
+    PoolMetricsFilter(Timer waitTimer, Timer connectTimer) {
+        this.waitTimer = waitTimer;
+        this.connectTimer = connectTimer;
+    }
+
+    @Override
+    public DruidPooledConnection dataSource_getConnection(FilterChain chain, DruidDataSource dataSource, long maxWaitMillis) throws SQLException {
+        long beginTime = System.nanoTime();
+        try {
+            return super.dataSource_getConnection(chain, dataSource, maxWaitMillis);
+        } finally {
+            waitTimer.record(System.nanoTime() - beginTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public ConnectionProxy connection_connect(FilterChain chain, Properties info) throws SQLException {
+        long beginTime = System.nanoTime();
+        try {
+            return super.connection_connect(chain, info);
+        } finally {
+            connectTimer.record(System.nanoTime() - beginTime, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.yunqi.starter.jdbc.pool;
+
+import com.alibaba.druid.filter.FilterAdapter;
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.proxy.jdbc.ConnectionProxy;
+import com.alibaba.druid.proxy.jdbc.DataSourceProxy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 连接池后台并行预热
+ * <p>
+ * 连接池初始化时只同步创建少量连接, 初始化完成后由多个线程并行补足到 initialSize,
+ * 避免与数据库之间延迟较高时逐个建立连接拖慢启动。同时记录每个物理连接的创建耗时, 便于发现握手慢的问题。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class PoolWarmup extends FilterAdapter {
+
+    private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+
+    /** 预热的目标连接数 */
+    private final int target;
+
+    /** 并行创建连接的线程数 */
+    private final int parallelism;
+
+    /** 创建连接超过多少毫秒时输出警告 */
+    private final long slowMillis;
+
+    private final AtomicLong connects = new AtomicLong();
+
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile DruidDataSource dataSource;
+
+    public PoolWarmup(int target, int parallelism, long slowMillis) {
+        this.target = target;
+        this.parallelism = Math.max(1, parallelism);
+        this.slowMillis = slowMillis;
+    }
+
+    /**
+     * 获取连接池上的预热过滤器
+     *
+     * @param ds    连接池
+     * @return      预热过滤器, 未开启预热时为 null
+     */
+    public static PoolWarmup of(DruidDataSource ds) {
+        for (Object filter : ds.getProxyFilters()) {
+            if (filter instanceof PoolWarmup) {
+                return (PoolWarmup) filter;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void init(DataSourceProxy dataSource) {
+        // 在连接池初始化过程中(持有连接池锁)调用, 补充连接的线程会等到初始化完成后才开始
+        if (!(dataSource instanceof DruidDataSource) || this.dataSource != null) {
+            return;
+        }
+        this.dataSource = (DruidDataSource) dataSource;
+        Thread thread = new Thread(this::fill, "su-druid-warmup-" + THREAD_INDEX.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public ConnectionProxy connection_connect(FilterChain chain, Properties info) throws SQLException {
+        long beginTime = System.nanoTime();
+        try {
+            return super.connection_connect(chain, info);
+        } finally {
+            long cost = System.nanoTime() - beginTime;
+            connects.incrementAndGet();
+            totalNanos.addAndGet(cost);
+            maxNanos.accumulateAndGet(cost, Math::max);
+            long millis = TimeUnit.NANOSECONDS.toMillis(cost);
+            if (slowMillis > 0 && millis >= slowMillis) {
+                log.warn("连接池 [{}] 创建连接耗时 {}ms", name(), millis);
+            } else if (log.isDebugEnabled()) {
+                log.debug("连接池 [{}] 创建连接耗时 {}ms", name(), millis);
+            }
+        }
+    }
+
+    /**
+     * 并行补足连接
+     */
+    private void fill() {
+        DruidDataSource ds = this.dataSource;
+        long beginTime = System.currentTimeMillis();
+        int workers = Math.min(parallelism, Math.max(1, target));
+        ExecutorService executor = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "su-druid-warmup-" + THREAD_INDEX.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Callable<Integer>> tasks = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                // fill 在锁外创建物理连接, 多个线程同时调用即可并行建立连接
+                tasks.add(() -> ds.fill(target));
+            }
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.warn("连接池 [{}] 预热失败: {}", name(), e.getCause().getMessage());
+                }
+            }
+            log.info("连接池 [{}] 预热完成 -> 连接 {}/{} 个, 耗时 {}ms, 创建连接平均 {}ms 最大 {}ms", name(), size(), target,
+                    System.currentTimeMillis() - beginTime, avgConnectMillis(), TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            done.countDown();
+        }
+    }
+
+    /**
+     * 连接数是否已达到目标的一定比例
+     *
+     * @param fraction  比例(0~1)
+     * @return          true 已达到或预热已结束
+     */
+    public boolean isWarm(double fraction) {
+        return done.getCount() == 0 || (dataSource != null && size() >= Math.ceil(target * fraction));
+    }
+
+    /**
+     * 等待连接数达到目标的一定比例
+     *
+     * @param fraction  比例(0~1)
+     * @param timeout   超时时间, 单位毫秒
+     * @return          true 已达到, false 超时
+     */
+    public boolean await(double fraction, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!isWarm(fraction)) {
+            long remain = deadline - System.currentTimeMillis();
+            if (remain <= 0) {
+                return false;
+            }
+            done.await(Math.min(remain, 100), TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    /** 预热的目标连接数 */
+    public int getTarget() {
+        return target;
+    }
+
+    /** 已创建的物理连接数 */
+    public long getConnects() {
+        return connects.get();
+    }
+
+    /** 创建物理连接的平均耗时, 单位毫秒 */
+    public long avgConnectMillis() {
+        long count = connects.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.get() / count);
+    }
+
+    /** 创建物理连接的最大耗时, 单位毫秒 */
+    public long maxConnectMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+    }
+
+    private int size() {
+        DruidDataSource ds = this.dataSource;
+        return ds == null ? 0 : ds.getPoolingCount() + ds.getActiveCount();
+    }
+
+    private String name() {
+        DruidDataSource ds = this.dataSource;
+        return ds == null ? "" : ds.getName();
+    }
+}
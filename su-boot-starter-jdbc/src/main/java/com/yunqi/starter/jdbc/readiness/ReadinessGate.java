@@ -0,0 +1,93 @@
+package com.yunqi.starter.jdbc.readiness;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 启动预热的就绪控制
+ * <p>
+ * 连接池预热、实体元数据预热等后台任务在应用就绪前登记({@link #hold}), 完成后释放({@link #release})。
+ * 应用第一次就绪时还有未完成的任务则发布 REFUSING_TRAFFIC, 所有任务都完成后才发布 ACCEPTING_TRAFFIC,
+ * 不会因为其中一个任务完成而提前恢复就绪。只影响 readiness, 不影响 liveness。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class ReadinessGate {
+
+    private final ApplicationEventPublisher publisher;
+
+    /** 未完成的任务及个数 */
+    private final Map<String, Integer> pending = new LinkedHashMap<>();
+
+    /** 是否已处理第一次就绪 */
+    private boolean started;
+
+    /** 是否已暂缓就绪 */
+    private boolean refusing;
+
+    public ReadinessGate(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * 登记一个未完成的任务, 需要在应用就绪前调用
+     *
+     * @param name 任务名称
+     */
+    public synchronized void hold(String name) {
+        pending.merge(name, 1, Integer::sum);
+    }
+
+    /**
+     * 任务完成, 所有任务都完成且已暂缓就绪时恢复就绪
+     *
+     * @param name 任务名称
+     */
+    public synchronized void release(String name) {
+        pending.computeIfPresent(name, (k, v) -> v > 1 ? v - 1 : null);
+        if (refusing && pending.isEmpty()) {
+            refusing = false;
+            log.info("启动预热 -> 全部完成, 恢复就绪");
+            publisher.publishEvent(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        }
+    }
+
+    /**
+     * 未完成的任务个数
+     *
+     * @return 个数
+     */
+    public synchronized int pending() {
+        return pending.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * 第一次就绪时还有未完成的任务则暂缓就绪
+     * @param event 就绪状态变更事件
+     */
+    @EventListener
+    public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || event.getSource() == this) {
+            return;
+        }
+        // 在锁内发布, 避免任务在发布 REFUSING 之前完成并先发布了 ACCEPTING
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            started = true;
+            if (pending.isEmpty()) {
+                return;
+            }
+            refusing = true;
+            log.info("启动预热 -> {} 尚未完成, 暂缓就绪", pending.keySet());
+            publisher.publishEvent(new AvailabilityChangeEvent<>(this, ReadinessState.REFUSING_TRAFFIC));
+        }
+    }
+}
@@ -28,4 +28,19 @@ public @interface SLog {
 
     /**  记录执行结果 */
     boolean result() default true;
+
+    /** 请求参数最大记录长度, 小于 0 时使用全局配置(su.log.param-length), 0 表示不限制 */
+    int paramLength() default -1;
+
+    /** 执行结果最大记录长度, 小于 0 时使用全局配置(su.log.result-length), 0 表示不限制 */
+    int resultLength() default -1;
+
+    /** 记录参数和结果时输出为掩码的字段(忽略大小写), 与全局配置(su.log.mask-fields)合并 */
+    String[] mask() default {};
+
+    /** 抽样比例(0~1), 小于 0 时使用全局配置(su.log.sample-rate); 失败的调用始终记录 */
+    double sampleRate() default -1;
+
+    /** 每秒最多记录的条数, 小于 0 时使用全局配置(su.log.max-per-second), 0 表示不限制; 失败的调用始终记录 */
+    int maxPerSecond() default -1;
 }
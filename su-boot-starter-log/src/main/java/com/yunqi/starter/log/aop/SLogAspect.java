@@ -1,36 +1,45 @@
 package com.yunqi.starter.log.aop;
 
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.http.useragent.UserAgent;
-import cn.hutool.http.useragent.UserAgentUtil;
+import com.yunqi.starter.common.json.BoundedJson;
 import com.yunqi.starter.common.json.Json;
 import com.yunqi.starter.common.lang.Lang;
 import com.yunqi.starter.common.lang.Strings;
 import com.yunqi.starter.common.lang.mvc.Mvcs;
 import com.yunqi.starter.common.utils.IPUtil;
+import com.yunqi.starter.common.utils.UserAgents;
 import com.yunqi.starter.log.annotation.SLog;
+import com.yunqi.starter.log.buffer.SLogBuffer;
 import com.yunqi.starter.log.configuration.LogProperties;
+import com.yunqi.starter.log.metrics.SLogLatency;
 import com.yunqi.starter.log.model.SLogRecord;
 import com.yunqi.starter.log.provider.ILogRecordProvider;
+import com.yunqi.starter.log.sampling.SLogSampler;
 import com.yunqi.starter.security.utils.SecuritySessionUtil;
+import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.Signature;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.nutz.json.JsonFormat;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
  * Created by @author CHQ on 2022/2/17
  */
+@Slf4j
 @Aspect
 public class SLogAspect {
 
@@ -40,6 +49,21 @@ public class SLogAspect {
     @Resource
     private ILogRecordProvider logRecordProvider;
 
+    /** 抽样与限流 */
+    @Resource
+    private SLogSampler sampler;
+
+    /** 方法 -> 输出为掩码的字段 */
+    private final Map<Method, Set<String>> maskFields = new ConcurrentHashMap<>();
+
+    /** 日志缓冲区, 未开启时为 null */
+    @Autowired(required = false)
+    private SLogBuffer logBuffer;
+
+    /** 方法耗时统计, 未开启时为 null */
+    @Autowired(required = false)
+    private SLogLatency latency;
+
 
     /** 定义AOP签名 (切入所有使用SLog鉴权注解的方法) */
     public static final String POINTCUT_SIGN = "@annotation(com.yunqi.starter.log.annotation.SLog)";
@@ -50,24 +74,34 @@ public class SLogAspect {
 
 
     /**
-     * 处理正常结果
+     * 环绕通知, 以 System.nanoTime() 统计方法实际执行耗时
      * @param joinPoint 切入点
-     * @param res       返回结果
+     * @return          返回结果
+     * @throws Throwable 方法抛出的异常
      */
-    @AfterReturning(pointcut = "pointcut()", returning = "res")
-    public void  doAroundReturning(JoinPoint joinPoint, Object res) {
-        execute(joinPoint, null, res);
+    @Around("pointcut()")
+    public Object doAround(ProceedingJoinPoint joinPoint) throws Throwable {
+        long beginTime = System.nanoTime();
+        Object res;
+        try {
+            res = joinPoint.proceed();
+        } catch (Exception ex) {
+            complete(joinPoint, ex, null, System.nanoTime() - beginTime);
+            throw ex;
+        }
+        complete(joinPoint, null, res, System.nanoTime() - beginTime);
+        return res;
     }
 
-
     /**
-     * 处理异常结果
-     * @param joinPoint 切入点
-     * @param ex        返回结果
+     * 记录日志, 记录失败时不影响方法的返回结果和异常
      */
-    @AfterThrowing(pointcut = "pointcut()", throwing = "ex")
-    public void doAfterThrowing(JoinPoint joinPoint, Exception ex) {
-        execute(joinPoint, ex, null);
+    private void complete(JoinPoint joinPoint, Exception ex, Object res, long elapsed) {
+        try {
+            execute(joinPoint, ex, res, elapsed);
+        } catch (Exception e) {
+            log.warn("记录操作日志失败: {}", joinPoint.getSignature(), e);
+        }
     }
 
     /**
@@ -75,8 +109,9 @@ public class SLogAspect {
      * @param joinPoint
      * @param ex
      * @param res
+     * @param elapsed   方法执行耗时, 单位纳秒
      */
-    protected void execute(final JoinPoint joinPoint, final Exception ex, Object res){
+    protected void execute(final JoinPoint joinPoint, final Exception ex, Object res, long elapsed){
         // 组件是否开启
         if (properties.isEnabled()) {
 
@@ -86,9 +121,20 @@ public class SLogAspect {
                 return;
             }
 
-            // ========================================== 开始请求日志 ==========================================
-            long beginTime = System.currentTimeMillis();
+            String src = joinPoint.getSignature().getDeclaringTypeName() + "#" + joinPoint.getSignature().getName();
+
+            // 统计方法耗时, 不受抽样影响
+            if (latency != null) {
+                latency.record(src, slog.tag(), ex == null, elapsed);
+            }
+
+            // 抽样与限流, 失败的调用始终记录
+            long suppressed = sampler.admit(((MethodSignature) joinPoint.getSignature()).getMethod(), slog, ex != null);
+            if (suppressed < 0) {
+                return;
+            }
 
+            // ========================================== 开始请求日志 ==========================================
             // *========数据库日志=========*
             // >> 设置操作模块
             // >> 设置业务类型
@@ -98,8 +144,9 @@ public class SLogAspect {
             SLogRecord logRecord = new SLogRecord();
             logRecord.setTag(slog.tag());
             logRecord.setMsg(Strings.isNotEmpty(slog.value())? slog.value() : slog.type().getLabel());
-            logRecord.setSrc(joinPoint.getSignature().getDeclaringTypeName() + "#" + joinPoint.getSignature().getName());
+            logRecord.setSrc(src);
             logRecord.setSuccess(true);
+            logRecord.setSuppressed(suppressed);
 
             // 获取请求终端信息
             terminal(logRecord);
@@ -109,15 +156,17 @@ public class SLogAspect {
                 String param = "{}";
                 // 验证长度是否为空
                 if(joinPoint.getArgs().length != 0){
-                    // 这里截取5000个字符
-                    param = StrUtil.sub(Json.toJson(joinPoint.getArgs()[0], JsonFormat.compact()), 0, 5000);
+                    // 达到长度上限后停止序列化
+                    int length = slog.paramLength() >= 0 ? slog.paramLength() : properties.getParamLength();
+                    param = BoundedJson.toJson(joinPoint.getArgs()[0], length, maskFields(joinPoint, slog));
                 }
                 logRecord.setParam(param);
             }
 
             // 是否需要保存请求结果
             if(slog.result()){
-                logRecord.setResult(Json.toJson(res));
+                int length = slog.resultLength() >= 0 ? slog.resultLength() : properties.getResultLength();
+                logRecord.setResult(BoundedJson.toJson(res, length, maskFields(joinPoint, slog)));
             }
 
             // 记录异常消息
@@ -126,13 +175,17 @@ public class SLogAspect {
                 logRecord.setResult( StrUtil.sub(ex.getMessage(),0, 2000));
             }
 
-            // 处理耗时(毫秒)
-            logRecord.setExecuteTime(System.currentTimeMillis() - beginTime);
+            // 方法执行耗时(毫秒)
+            logRecord.setExecuteTime(TimeUnit.NANOSECONDS.toMillis(elapsed));
 
             // ========================================== 结束请求日志 ==========================================
 
-            // 记录日志
-            logRecordProvider.record(logRecord);
+            // 记录日志, 开启缓冲区时只入队
+            if (logBuffer != null) {
+                logBuffer.offer(logRecord);
+            } else {
+                logRecordProvider.record(logRecord);
+            }
         }
     }
 
@@ -148,6 +201,21 @@ public class SLogAspect {
     }
 
 
+    /**
+     * 输出为掩码的字段, 全局配置与注解合并后按方法缓存
+     * @param joinPoint 切入点
+     * @param slog      注解
+     * @return          字段名(忽略大小写)
+     */
+    private Set<String> maskFields(JoinPoint joinPoint, SLog slog) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return maskFields.computeIfAbsent(method, k -> {
+            Set<String> fields = BoundedJson.fields(properties.getMaskFields());
+            fields.addAll(Arrays.asList(slog.mask()));
+            return fields;
+        });
+    }
+
     /**
      * 获取Slog
      * @param joinPoint 切入点
@@ -172,15 +240,15 @@ public class SLogAspect {
         // 获取请求
         HttpServletRequest req  = Mvcs.getReq();
         // 获取终端信息
-        final UserAgent ua = UserAgentUtil.parse(req.getHeader("User-Agent"));
+        final UserAgents.Terminal terminal = UserAgents.parse(req.getHeader("User-Agent"));
 
         // 获取请求地址
         logRecord.setUrl(req.getRequestURI());
         // 获取请求方式
         logRecord.setMethod(req.getMethod());
         // 设置终端信息
-        logRecord.setBrowser(ua.getBrowser().getName() + "_" + ua.getVersion());
-        logRecord.setOs(ua.getPlatform().getName() + "_"  + ua.getOsVersion());
+        logRecord.setBrowser(terminal.getBrowser());
+        logRecord.setOs(terminal.getOs());
 
         // 设置操作人
         logRecord.setOperateUserId(SecuritySessionUtil.getUserId());
@@ -0,0 +1,108 @@
+package com.yunqi.starter.log.buffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 无锁有界环形队列
+ * <p>
+ * 每个槽位带一个序号, 生产者和消费者分别通过 CAS 推进写入和读取位置, 槽位序号用来判断是否可写或可读,
+ * 入队和出队都不加锁。容量取不小于指定值的 2 的幂。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class RingBuffer<E> {
+
+    private final int capacity;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> items;
+
+    private final AtomicLongArray sequences;
+
+    /** 下一个写入位置 */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** 下一个读取位置 */
+    private final AtomicLong head = new AtomicLong();
+
+    public RingBuffer(int capacity) {
+        int size = 1;
+        while (size < Math.max(2, capacity)) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.items = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队
+     *
+     * @param item  元素
+     * @return      false 队列已满
+     */
+    public boolean offer(E item) {
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    items.lazySet(index, item);
+                    // 序号 +1 表示槽位可读
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 出队
+     *
+     * @return  元素, 队列为空时为 null
+     */
+    public E poll() {
+        long pos = head.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E item = items.get(index);
+                    items.lazySet(index, null);
+                    // 序号推进一圈表示槽位可写
+                    sequences.set(index, pos + capacity);
+                    return item;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /** 当前元素数量(近似值) */
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(capacity, size));
+    }
+
+    /** 容量 */
+    public int capacity() {
+        return capacity;
+    }
+}
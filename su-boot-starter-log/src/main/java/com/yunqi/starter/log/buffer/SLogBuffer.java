@@ -0,0 +1,206 @@
+package com.yunqi.starter.log.buffer;
+
+import com.yunqi.starter.log.configuration.LogProperties;
+import com.yunqi.starter.log.enums.OverflowPolicy;
+import com.yunqi.starter.log.model.SLogRecord;
+import com.yunqi.starter.log.provider.ILogRecordProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 操作日志缓冲区
+ * <p>
+ * 请求线程只把日志放入无锁环形队列, 由单独的消费线程按数量或时间批量交给 {@link ILogRecordProvider#recordBatch}。
+ * 队列已满时按 {@link OverflowPolicy} 丢弃、抽样或等待。
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+public class SLogBuffer {
+
+    private final ILogRecordProvider provider;
+
+    private final RingBuffer<SLogRecord> queue;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final OverflowPolicy overflow;
+
+    /** 抽样模式下开始抽样的队列长度 */
+    private final int sampleThreshold;
+
+    private final double sampleRate;
+
+    private final long blockTimeoutNanos;
+
+    private final AtomicLong enqueued = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong sampled = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final Thread consumer;
+
+    private volatile boolean running = true;
+
+    public SLogBuffer(ILogRecordProvider provider, LogProperties.Buffer config) {
+        this.provider = provider;
+        this.queue = new RingBuffer<>(config.getCapacity());
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getFlushInterval()));
+        this.overflow = config.getOverflow();
+        this.sampleThreshold = (int) (queue.capacity() * config.getSampleWatermark());
+        this.sampleRate = config.getSampleRate();
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getBlockTimeout());
+        this.consumer = new Thread(this::run, "su-log-buffer");
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * 放入日志
+     *
+     * @param record    日志
+     * @return          false 已丢弃
+     */
+    public boolean offer(SLogRecord record) {
+        if (!running) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        if (overflow == OverflowPolicy.SAMPLE && !Boolean.FALSE.equals(record.getSuccess())
+                && queue.size() >= sampleThreshold && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampled.incrementAndGet();
+            return false;
+        }
+        boolean accepted = queue.offer(record);
+        if (!accepted && overflow == OverflowPolicy.BLOCK) {
+            accepted = offerBlocking(record);
+        }
+        if (!accepted) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        enqueued.incrementAndGet();
+        if (queue.size() >= batchSize) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    /**
+     * 等待队列有空位
+     */
+    private boolean offerBlocking(SLogRecord record) {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        do {
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+            if (queue.offer(record)) {
+                return true;
+            }
+        } while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted());
+        return false;
+    }
+
+    /**
+     * 消费线程: 攒够一批或到达刷新间隔时交给日志接口
+     */
+    private void run() {
+        List<SLogRecord> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.nanoTime();
+        while (running || queue.size() > 0) {
+            SLogRecord record;
+            while (batch.size() < batchSize && (record = queue.poll()) != null) {
+                batch.add(record);
+            }
+            long now = System.nanoTime();
+            long elapsed = now - lastFlush;
+            if (batch.size() >= batchSize || (!batch.isEmpty() && (elapsed >= flushIntervalNanos || !running))) {
+                flush(batch);
+                batch = new ArrayList<>(batchSize);
+                lastFlush = now;
+                continue;
+            }
+            if (batch.isEmpty()) {
+                // 队列为空时从下一条日志开始计时
+                lastFlush = now;
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            } else {
+                LockSupport.parkNanos(this, Math.max(flushIntervalNanos - elapsed, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<SLogRecord> batch) {
+        batches.incrementAndGet();
+        try {
+            provider.recordBatch(batch);
+        } catch (Exception e) {
+            failures.incrementAndGet();
+            log.warn("操作日志批量保存失败, 丢弃 {} 条: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 停止接收并处理完队列中剩余的日志
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** 队列中的日志数量 */
+    public int getDepth() {
+        return queue.size();
+    }
+
+    /** 队列容量 */
+    public int getCapacity() {
+        return queue.capacity();
+    }
+
+    /** 放入队列的日志数量 */
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    /** 队列已满丢弃的日志数量 */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** 抽样丢弃的日志数量 */
+    public long getSampled() {
+        return sampled.get();
+    }
+
+    /** 批量保存次数 */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /** 批量保存失败次数 */
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,39 @@
+package com.yunqi.starter.log.buffer;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 操作日志缓冲区指标
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SLogBufferMetrics implements MeterBinder {
+
+    private static final String PREFIX = "su.log.buffer";
+
+    private final SLogBuffer buffer;
+
+    public SLogBufferMetrics(SLogBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(PREFIX + ".depth", buffer, SLogBuffer::getDepth)
+                .description("缓冲区中的日志数量").register(registry);
+        Gauge.builder(PREFIX + ".capacity", buffer, SLogBuffer::getCapacity)
+                .description("缓冲区容量").register(registry);
+        FunctionCounter.builder(PREFIX + ".enqueued", buffer, SLogBuffer::getEnqueued)
+                .description("放入缓冲区的日志数量").register(registry);
+        FunctionCounter.builder(PREFIX + ".dropped", buffer, SLogBuffer::getDropped)
+                .tag("reason", "full").description("丢弃的日志数量").register(registry);
+        FunctionCounter.builder(PREFIX + ".dropped", buffer, SLogBuffer::getSampled)
+                .tag("reason", "sampled").description("丢弃的日志数量").register(registry);
+        FunctionCounter.builder(PREFIX + ".batches", buffer, SLogBuffer::getBatches)
+                .description("批量保存次数").register(registry);
+        FunctionCounter.builder(PREFIX + ".failures", buffer, SLogBuffer::getFailures)
+                .description("批量保存失败次数").register(registry);
+    }
+}
@@ -1,15 +1,32 @@
 package com.yunqi.starter.log.configuration;
 
+import com.yunqi.starter.common.utils.IPDatabase;
+import com.yunqi.starter.common.utils.IPUtil;
+import com.yunqi.starter.common.utils.UserAgents;
 import com.yunqi.starter.log.aop.SLogAspect;
+import com.yunqi.starter.log.buffer.SLogBuffer;
+import com.yunqi.starter.log.buffer.SLogBufferMetrics;
+import com.yunqi.starter.log.metrics.SLogLatency;
+import com.yunqi.starter.log.metrics.SLogLatencyMetrics;
 import com.yunqi.starter.log.provider.ILogRecordProvider;
 import com.yunqi.starter.log.provider.impl.LogRecordProviderDefaultImpl;
+import com.yunqi.starter.log.sampling.SLogSampler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+
 /**
  * 注解日志自动配置类
  * Created by @author CHQ on 2022/2/17
@@ -25,6 +42,8 @@ public class LogAutoConfiguration {
 
     public LogAutoConfiguration(LogProperties properties) {
         this.properties = properties;
+        IPUtil.ONLINE = properties.getIp().isOnline();
+        UserAgents.MAX_SIZE = properties.getUserAgentCacheSize();
     }
 
     @Bean
@@ -33,6 +52,16 @@ public class LogAutoConfiguration {
         return new SLogAspect();
     }
 
+    /**
+     * 操作日志抽样与限流
+     * @return 抽样与限流
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SLogSampler sLogSampler() {
+        return new SLogSampler(properties);
+    }
+
     @Bean
     @ConditionalOnMissingBean(ILogRecordProvider.class)
     public ILogRecordProvider logRecordProvider() {
@@ -41,4 +70,86 @@ public class LogAutoConfiguration {
         }
         return new LogRecordProviderDefaultImpl();
     }
+
+    /**
+     * 日志缓冲区
+     * @param provider 日志接口
+     * @return 日志缓冲区
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnExpression("${su.log.buffer.enabled:false}")
+    public SLogBuffer sLogBuffer(ILogRecordProvider provider) {
+        return new SLogBuffer(provider, properties.getBuffer());
+    }
+
+    /**
+     * 本地 IP 归属地库
+     * @return 本地 IP 归属地库
+     * @throws IOException 数据文件读取失败
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = LogProperties.PREFIX, name = "ip.database")
+    public IPDatabase ipDatabase() throws IOException {
+        LogProperties.Ip ip = properties.getIp();
+        IPDatabase database = new IPDatabase(ip.getDatabase(), ip.getCacheSize()).load().watch(ip.getReloadInterval());
+        IPUtil.setDatabase(database);
+        return database;
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnExpression("${su.log.buffer.enabled:false} && ${su.log.buffer.metrics:true}")
+    static class SLogBufferMetricsConfiguration {
+
+        /**
+         * 队列长度、丢弃数量和批量保存次数
+         * @param buffer 日志缓冲区
+         * @return 指标绑定
+         */
+        @Bean
+        public SLogBufferMetrics sLogBufferMetrics(SLogBuffer buffer) {
+            return new SLogBufferMetrics(buffer);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnExpression("${su.log.latency.enabled:false}")
+    static class SLogLatencyConfiguration {
+
+        /**
+         * 按方法统计执行耗时
+         * @param registry      指标注册中心
+         * @param properties    日志配置
+         * @return 方法耗时统计
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public SLogLatency sLogLatency(ObjectProvider<MeterRegistry> registry, LogProperties properties) {
+            return new SLogLatencyMetrics(registry, properties.getLatency());
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class UserAgentMetricsConfiguration {
+
+        /**
+         * User-Agent 解析缓存的命中次数、未命中次数、命中率和缓存数量
+         * @return 指标绑定
+         */
+        @Bean
+        public MeterBinder userAgentCacheMetrics() {
+            return registry -> {
+                FunctionCounter.builder("su.useragent.cache.hits", UserAgents.class, k -> UserAgents.hits())
+                        .description("User-Agent 解析缓存命中次数").register(registry);
+                FunctionCounter.builder("su.useragent.cache.misses", UserAgents.class, k -> UserAgents.misses())
+                        .description("User-Agent 解析缓存未命中次数").register(registry);
+                Gauge.builder("su.useragent.cache.hit.rate", UserAgents.class, k -> UserAgents.hitRate())
+                        .description("User-Agent 解析缓存命中率").register(registry);
+                Gauge.builder("su.useragent.cache.size", UserAgents.class, k -> UserAgents.size())
+                        .description("User-Agent 解析缓存数量").register(registry);
+            };
+        }
+    }
 }
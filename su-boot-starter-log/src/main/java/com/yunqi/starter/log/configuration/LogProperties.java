@@ -1,9 +1,16 @@
 package com.yunqi.starter.log.configuration;
 
+import com.yunqi.starter.log.enums.OverflowPolicy;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 注解日志配置属性
  * Created by @author CHQ on 2022/2/16
@@ -21,4 +28,112 @@ public class LogProperties {
 
     /** 是否打印操作日志 */
     private Boolean log = false;
+
+    /** 日志缓冲区 */
+    private Buffer buffer = new Buffer();
+
+    /** 方法耗时统计 */
+    private Latency latency = new Latency();
+
+    /** IP 归属地 */
+    private Ip ip = new Ip();
+
+    /** User-Agent 解析缓存数量 */
+    private int userAgentCacheSize = 2048;
+
+    /** 请求参数最大记录长度, 0 表示不限制 */
+    private int paramLength = 5000;
+
+    /** 执行结果最大记录长度, 0 表示不限制 */
+    private int resultLength = 5000;
+
+    /** 抽样比例(0~1), 失败的调用始终记录 */
+    private double sampleRate = 1.0;
+
+    /** 每个方法每秒最多记录的条数, 0 表示不限制 */
+    private int maxPerSecond = 0;
+
+    /** 按标签覆盖抽样比例和每秒上限, 优先于注解 */
+    private Map<String, Limit> tags = new LinkedHashMap<>();
+
+    /** 记录参数和结果时输出为掩码的字段(忽略大小写) */
+    private List<String> maskFields = new ArrayList<>(Arrays.asList("password", "pwd", "oldPassword", "newPassword", "token", "secret"));
+
+
+    @Getter
+    @Setter
+    public static class Buffer {
+
+        /** 是否开启(开启后请求线程只负责入队, 由消费线程批量保存) */
+        boolean enabled = false;
+
+        /** 队列容量, 取不小于该值的 2 的幂 */
+        private int capacity = 8192;
+
+        /** 每批最多保存的日志数量 */
+        private int batchSize = 100;
+
+        /** 最长刷新间隔, 单位毫秒 */
+        private long flushInterval = 1000;
+
+        /** 队列已满时的处理方式 */
+        private OverflowPolicy overflow = OverflowPolicy.DROP;
+
+        /** 抽样模式下开始抽样的队列使用率 */
+        private double sampleWatermark = 0.8;
+
+        /** 抽样模式下保留的比例 */
+        private double sampleRate = 0.1;
+
+        /** 等待模式下最长等待时间, 单位毫秒 */
+        private long blockTimeout = 100;
+
+        /** 是否输出队列指标(需要 micrometer) */
+        private boolean metrics = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Latency {
+
+        /** 是否开启(需要 micrometer) */
+        private boolean enabled = false;
+
+        /** 输出和运行时查询的百分位 */
+        private double[] percentiles = {0.5, 0.9, 0.95, 0.99};
+
+        /** 是否输出直方图桶, 用于在监控系统中聚合多个实例的百分位 */
+        private boolean histogram = false;
+
+        /** 百分位统计窗口, 单位毫秒 */
+        private long expiry = 2 * 60 * 1000L;
+    }
+
+    @Getter
+    @Setter
+    public static class Ip {
+
+        /** 本地 IP 归属地库文件路径, 支持 classpath: 前缀 */
+        private String database;
+
+        /** 检查数据文件是否修改的间隔, 单位毫秒, 小于等于 0 时不重新加载 */
+        private long reloadInterval = 60 * 1000L;
+
+        /** 查询结果的缓存数量, 达到上限后不再缓存新的地址 */
+        private int cacheSize = 4096;
+
+        /** 没有本地库时是否调用第三方接口查询 */
+        private boolean online = false;
+    }
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        /** 抽样比例(0~1), 为空时不覆盖 */
+        private Double sampleRate;
+
+        /** 每秒最多记录的条数, 0 表示不限制, 为空时不覆盖 */
+        private Integer maxPerSecond;
+    }
 }
@@ -0,0 +1,17 @@
+package com.yunqi.starter.log.enums;
+
+/**
+ * 日志缓冲区已满(或接近已满)时的处理方式
+ * Created by @author CHQ on 2026/10/19
+ */
+public enum OverflowPolicy {
+
+    /** 丢弃新日志 */
+    DROP,
+
+    /** 缓冲区使用量超过水位后按比例抽样, 失败日志不抽样; 已满时丢弃 */
+    SAMPLE,
+
+    /** 等待缓冲区有空位, 超时后丢弃 */
+    BLOCK
+}
@@ -0,0 +1,47 @@
+package com.yunqi.starter.log.metrics;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 操作日志方法耗时统计
+ * <p>
+ * 按 src(类名#方法名) 和 tag 统计 @SLog 方法的实际执行耗时, 不受抽样和限流影响。
+ * Created by @author CHQ on 2026/10/19
+ */
+public interface SLogLatency {
+
+    /**
+     * 记录一次调用
+     *
+     * @param src       类名#方法名
+     * @param tag       日志标签
+     * @param success   是否成功
+     * @param nanos     执行耗时, 单位纳秒
+     */
+    void record(String src, String tag, boolean success, long nanos);
+
+    /**
+     * 已记录的方法
+     *
+     * @return 类名#方法名
+     */
+    Set<String> sources();
+
+    /**
+     * 查询方法耗时百分位, 同一方法记录了多个标签时取调用次数最多的标签
+     *
+     * @param src   类名#方法名
+     * @return      百分位 -> 耗时(毫秒), 没有记录时为空
+     */
+    Map<Double, Double> percentiles(String src);
+
+    /**
+     * 查询方法在指定标签下的耗时百分位
+     *
+     * @param src   类名#方法名
+     * @param tag   日志标签
+     * @return      百分位 -> 耗时(毫秒), 没有记录时为空
+     */
+    Map<Double, Double> percentiles(String src, String tag);
+}
@@ -0,0 +1,122 @@
+package com.yunqi.starter.log.metrics;
+
+import com.yunqi.starter.log.configuration.LogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 micrometer 的方法耗时统计
+ * <p>
+ * 每个方法和标签一个 su.log.method 计时器(标签 src、tag), 失败次数记录在 su.log.method.failures 中。
+ * 计时器注册在应用的 MeterRegistry 上, 没有时使用本地的 SimpleMeterRegistry, 百分位始终可以在运行时查询。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SLogLatencyMetrics implements SLogLatency {
+
+    private static final String NAME = "su.log.method";
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+
+    private final LogProperties.Latency config;
+
+    /** 第一次记录时获取, 此时容器已经完成刷新 */
+    private volatile MeterRegistry registry;
+
+    /** src -> tag -> 计时器 */
+    private final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+    /** src -> tag -> 失败次数 */
+    private final Map<String, Map<String, Counter>> failures = new ConcurrentHashMap<>();
+
+    public SLogLatencyMetrics(ObjectProvider<MeterRegistry> registryProvider, LogProperties.Latency config) {
+        this.registryProvider = registryProvider;
+        this.config = config;
+    }
+
+    @Override
+    public void record(String src, String tag, boolean success, long nanos) {
+        timers.computeIfAbsent(src, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(tag, k -> timer(src, tag)).record(nanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            failures.computeIfAbsent(src, k -> new ConcurrentHashMap<>()).computeIfAbsent(tag, k -> Counter.builder(NAME + ".failures")
+                    .tags("src", src, "tag", tag)
+                    .description("@SLog 方法失败次数")
+                    .register(registry())).increment();
+        }
+    }
+
+    @Override
+    public Set<String> sources() {
+        return Collections.unmodifiableSet(timers.keySet());
+    }
+
+    @Override
+    public Map<Double, Double> percentiles(String src) {
+        Map<String, Timer> tags = timers.get(src);
+        if (tags == null) {
+            return Collections.emptyMap();
+        }
+        Timer busiest = null;
+        for (Timer timer : tags.values()) {
+            if (busiest == null || timer.count() > busiest.count()) {
+                busiest = timer;
+            }
+        }
+        return percentiles(busiest);
+    }
+
+    @Override
+    public Map<Double, Double> percentiles(String src, String tag) {
+        Map<String, Timer> tags = timers.get(src);
+        return percentiles(tags == null ? null : tags.get(tag));
+    }
+
+    private static Map<Double, Double> percentiles(Timer timer) {
+        if (timer == null) {
+            return Collections.emptyMap();
+        }
+        Map<Double, Double> values = new LinkedHashMap<>();
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            values.put(value.percentile(), value.value(TimeUnit.MILLISECONDS));
+        }
+        return values;
+    }
+
+    /**
+     * 方法计时器
+     */
+    private Timer timer(String src, String tag) {
+        return Timer.builder(NAME)
+                .tags("src", src, "tag", tag)
+                .description("@SLog 方法执行耗时")
+                .publishPercentiles(config.getPercentiles())
+                .publishPercentileHistogram(config.isHistogram())
+                .distributionStatisticExpiry(Duration.ofMillis(config.getExpiry()))
+                .register(registry());
+    }
+
+    private MeterRegistry registry() {
+        MeterRegistry current = registry;
+        if (current == null) {
+            synchronized (this) {
+                current = registry;
+                if (current == null) {
+                    registry = current = registryProvider.getIfAvailable(SimpleMeterRegistry::new);
+                }
+            }
+        }
+        return current;
+    }
+}
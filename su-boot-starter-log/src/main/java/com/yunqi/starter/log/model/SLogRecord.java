@@ -56,4 +56,7 @@ public class SLogRecord {
     /** 操作人 */
     private String operateUserName;
 
+    /** 上一条记录之后因抽样或限流未记录的次数 */
+    private Long suppressed;
+
 }
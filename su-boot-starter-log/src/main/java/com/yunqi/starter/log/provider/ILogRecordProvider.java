@@ -2,6 +2,8 @@ package com.yunqi.starter.log.provider;
 
 import com.yunqi.starter.log.model.SLogRecord;
 
+import java.util.List;
+
 /**
  * 持久层接口
  * Created by @author CHQ on 2022/2/18
@@ -13,4 +15,16 @@ public  interface ILogRecordProvider {
      * @param sysLog 日志实体
      */
     void record(SLogRecord sysLog);
+
+    /**
+     * 批量保存日志, 开启日志缓冲区(su.log.buffer.enabled)时由缓冲区的消费线程调用
+     * <p>
+     * 默认逐条调用 {@link #record(SLogRecord)}, 可按需改为批量写入数据库或批量发送到 MQ
+     * @param records 日志实体
+     */
+    default void recordBatch(List<SLogRecord> records) {
+        for (SLogRecord record : records) {
+            record(record);
+        }
+    }
 }
@@ -6,6 +6,8 @@ import com.yunqi.starter.log.provider.ILogRecordProvider;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Async;
 
+import java.util.List;
+
 /**
  * 接收操作日志，可根据情况存储到数据库或发送到MQ
  * Created by @author CHQ on 2022/5/6
@@ -18,4 +20,12 @@ public class LogRecordProviderDefaultImpl implements ILogRecordProvider {
     public void record(SLogRecord sLog) {
         log.info("【SLog】 log={}", Json.toJson(sLog));
     }
+
+    @Override
+    public void recordBatch(List<SLogRecord> records) {
+        // 已在缓冲区的消费线程中执行, 不再异步
+        for (SLogRecord sLog : records) {
+            log.info("【SLog】 log={}", Json.toJson(sLog));
+        }
+    }
 }
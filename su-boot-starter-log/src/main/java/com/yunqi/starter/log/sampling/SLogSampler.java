@@ -0,0 +1,102 @@
+package com.yunqi.starter.log.sampling;
+
+import com.yunqi.starter.log.annotation.SLog;
+import com.yunqi.starter.log.configuration.LogProperties;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作日志抽样与限流
+ * <p>
+ * 按方法抽样和限流, 参数优先级: 按标签配置(su.log.tags) > 注解 > 全局配置。
+ * 失败的调用始终记录且不占用令牌; 被丢弃的次数累计到该方法下一条记录的 suppressed 中, 便于还原调用总数。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SLogSampler {
+
+    private final LogProperties properties;
+
+    private final Map<Method, Gate> gates = new ConcurrentHashMap<>();
+
+    public SLogSampler(LogProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 判断本次调用是否记录
+     *
+     * @param method    方法
+     * @param slog      注解
+     * @param failure   是否失败
+     * @return          -1 不记录, 否则为上一条记录之后被丢弃的次数
+     */
+    public long admit(Method method, SLog slog, boolean failure) {
+        Gate gate = gates.computeIfAbsent(method, k -> gate(slog));
+        if (gate == Gate.ALL) {
+            return 0;
+        }
+        if (!failure && !gate.tryPass()) {
+            gate.suppressed.incrementAndGet();
+            return -1;
+        }
+        return gate.suppressed.getAndSet(0);
+    }
+
+    /**
+     * 按优先级确定抽样比例和每秒上限
+     */
+    private Gate gate(SLog slog) {
+        double sampleRate = properties.getSampleRate();
+        int maxPerSecond = properties.getMaxPerSecond();
+        if (slog.sampleRate() >= 0) {
+            sampleRate = slog.sampleRate();
+        }
+        if (slog.maxPerSecond() >= 0) {
+            maxPerSecond = slog.maxPerSecond();
+        }
+        LogProperties.Limit limit = properties.getTags().get(slog.tag());
+        if (limit != null) {
+            if (limit.getSampleRate() != null) {
+                sampleRate = limit.getSampleRate();
+            }
+            if (limit.getMaxPerSecond() != null) {
+                maxPerSecond = limit.getMaxPerSecond();
+            }
+        }
+        if (sampleRate >= 1 && maxPerSecond <= 0) {
+            return Gate.ALL;
+        }
+        return new Gate(sampleRate, maxPerSecond > 0 ? new TokenBucket(maxPerSecond) : null);
+    }
+
+    /**
+     * 单个方法的抽样比例、令牌桶和丢弃次数
+     */
+    private static class Gate {
+
+        /** 全部记录 */
+        static final Gate ALL = new Gate(1, null);
+
+        private final double sampleRate;
+
+        private final TokenBucket bucket;
+
+        private final AtomicLong suppressed = new AtomicLong();
+
+        Gate(double sampleRate, TokenBucket bucket) {
+            this.sampleRate = sampleRate;
+            this.bucket = bucket;
+        }
+
+        boolean tryPass() {
+            if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                return false;
+            }
+            return bucket == null || bucket.tryAcquire();
+        }
+    }
+}
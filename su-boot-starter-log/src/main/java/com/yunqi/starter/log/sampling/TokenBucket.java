@@ -0,0 +1,50 @@
+package com.yunqi.starter.log.sampling;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无锁令牌桶
+ * <p>
+ * 用一个 AtomicLong 保存"下一个令牌的理论发放时间"(GCRA), 每次获取令牌时通过 CAS 向后推进一个发放间隔,
+ * 推进后超出当前时间一秒以上表示桶已空。桶容量等于每秒令牌数, 允许一秒内的突发。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class TokenBucket {
+
+    /** 每个令牌的发放间隔, 单位纳秒 */
+    private final long interval;
+
+    /** 允许的突发时长, 单位纳秒 */
+    private final long burst;
+
+    private final AtomicLong next;
+
+    /**
+     * @param permitsPerSecond 每秒令牌数
+     */
+    public TokenBucket(int permitsPerSecond) {
+        this.interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, permitsPerSecond);
+        this.burst = TimeUnit.SECONDS.toNanos(1);
+        this.next = new AtomicLong(System.nanoTime() - burst);
+    }
+
+    /**
+     * 获取一个令牌
+     *
+     * @return  false 没有令牌
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        for (;;) {
+            long current = next.get();
+            long updated = Math.max(current, now - burst) + interval;
+            if (updated - now > 0) {
+                return false;
+            }
+            if (next.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+}
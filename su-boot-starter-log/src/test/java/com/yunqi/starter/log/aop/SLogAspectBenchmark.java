@@ -0,0 +1,190 @@
+package com.yunqi.starter.log.aop;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.spring.SaTokenContextForSpring;
+import com.yunqi.starter.common.utils.UserAgents;
+import com.yunqi.starter.log.annotation.SLog;
+import com.yunqi.starter.log.configuration.LogProperties;
+import com.yunqi.starter.log.model.SLogRecord;
+import com.yunqi.starter.log.provider.ILogRecordProvider;
+import com.yunqi.starter.log.sampling.SLogSampler;
+import com.yunqi.starter.security.spi.SecurityUtil;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 开启 User-Agent 缓存前后 @SLog 切面的开销
+ * <p>
+ * 在模拟的请求和登录会话中直接调用 SLogAspect.execute 和 terminal, 缓存上限设为 0 时每次都由 hutool 解析 User-Agent,
+ * 即开启缓存之前的行为。请求的 User-Agent 在若干个浏览器版本之间轮换。
+ * 用法: java -cp target/test-classes:target/classes:&lt;测试依赖&gt; com.yunqi.starter.log.aop.SLogAspectBenchmark [User-Agent 数量=300] [每轮调用次数=20000] [轮数=5]
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SLogAspectBenchmark {
+
+    private static String userAgent;
+
+    private static long sink;
+
+    public static void main(String[] args) throws Throwable {
+        int distinct = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        String[] userAgents = new String[distinct];
+        for (int i = 0; i < distinct; i++) {
+            userAgents[i] = "Mozilla/5.0 (Windows NT 10." + (i % 3) + "; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/"
+                    + (90 + i / 10) + ".0." + (4000 + i) + ".0 Safari/537.36";
+        }
+
+        // 模拟请求和登录会话
+        Map<String, Object> attributes = new HashMap<>();
+        HttpServletRequest req = proxy(HttpServletRequest.class, (method, args1) -> {
+            switch (method.getName()) {
+                case "getHeader":
+                    return "User-Agent".equalsIgnoreCase((String) args1[0]) ? userAgent : null;
+                case "getRequestURI":
+                    return "/order/save";
+                case "getMethod":
+                    return "POST";
+                case "getRemoteAddr":
+                    return "127.0.0.1";
+                case "getAttribute":
+                    return attributes.get(args1[0]);
+                case "setAttribute":
+                    return attributes.put((String) args1[0], args1[1]);
+                case "removeAttribute":
+                    return attributes.remove(args1[0]);
+                default:
+                    return null;
+            }
+        });
+        HttpServletResponse resp = proxy(HttpServletResponse.class, (method, args1) -> null);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(req, resp));
+        SaManager.setSaTokenContext(new SaTokenContextForSpring());
+        SecurityUtil.login("1");
+
+        SLogAspect aspect = aspect();
+        JoinPoint joinPoint = joinPoint(OrderService.class.getMethod("save", Map.class));
+        MethodHandle terminal = MethodHandles.lookup().unreflect(declared(SLogAspect.class.getDeclaredMethod("terminal", SLogRecord.class)));
+
+        int[] sizes = {0, Math.max(UserAgents.MAX_SIZE, distinct)};
+        String[] names = {"parse ", "cached"};
+        long[] execute = new long[2];
+        long[] terminals = new long[2];
+        for (int round = -3; round < rounds; round++) {
+            for (int i = 0; i < 2; i++) {
+                UserAgents.MAX_SIZE = sizes[i];
+                UserAgents.clear();
+                long e = execute(aspect, joinPoint, userAgents, count);
+                long t = terminal(aspect, terminal, userAgents, count);
+                // 前三轮预热
+                if (round >= 0) {
+                    execute[i] += e;
+                    terminals[i] += t;
+                }
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            System.out.printf("%s execute : %10.1f ns/op%n", names[i], (double) execute[i] / rounds / count);
+            System.out.printf("%s terminal: %10.1f ns/op%n", names[i], (double) terminals[i] / rounds / count);
+        }
+        System.out.println(sink == 42 ? "" : "hit rate: " + UserAgents.hitRate());
+        // sa-token 的数据清理线程不是守护线程
+        System.exit(0);
+    }
+
+    private static long execute(SLogAspect aspect, JoinPoint joinPoint, String[] userAgents, int count) {
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            userAgent = userAgents[i % userAgents.length];
+            aspect.execute(joinPoint, null, "OK", 1000);
+        }
+        return System.nanoTime() - begin;
+    }
+
+    private static long terminal(SLogAspect aspect, MethodHandle terminal, String[] userAgents, int count) throws Throwable {
+        long begin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            userAgent = userAgents[i % userAgents.length];
+            SLogRecord record = new SLogRecord();
+            terminal.invoke(aspect, record);
+            sink += record.getBrowser().length();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * 按容器注入的方式设置切面依赖, 未开启缓冲区和耗时统计
+     */
+    private static SLogAspect aspect() throws Exception {
+        LogProperties properties = new LogProperties();
+        ILogRecordProvider provider = record -> sink += record.getSrc().length();
+        SLogAspect aspect = new SLogAspect();
+        declared(SLogAspect.class.getDeclaredField("properties")).set(aspect, properties);
+        declared(SLogAspect.class.getDeclaredField("logRecordProvider")).set(aspect, provider);
+        declared(SLogAspect.class.getDeclaredField("sampler")).set(aspect, new SLogSampler(properties));
+        return aspect;
+    }
+
+    private static JoinPoint joinPoint(Method method) {
+        MethodSignature signature = proxy(MethodSignature.class, (m, args) -> {
+            switch (m.getName()) {
+                case "getMethod":
+                    return method;
+                case "getDeclaringTypeName":
+                    return method.getDeclaringClass().getName();
+                case "getName":
+                    return method.getName();
+                default:
+                    return null;
+            }
+        });
+        Object[] args = {Collections.singletonMap("orderNo", "20261019000001")};
+        return proxy(JoinPoint.class, (m, a) -> "getSignature".equals(m.getName()) ? signature : "getArgs".equals(m.getName()) ? args : null);
+    }
+
+    private static <T extends java.lang.reflect.AccessibleObject> T declared(T member) {
+        member.setAccessible(true);
+        return member;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            Object value = handler.invoke(method, args);
+            if (value == null && method.getReturnType() == boolean.class) {
+                return false;
+            }
+            if (value == null && method.getReturnType().isPrimitive() && method.getReturnType() != void.class) {
+                return 0;
+            }
+            return value;
+        });
+    }
+
+    private interface Handler {
+
+        Object invoke(Method method, Object[] args);
+    }
+
+    public static class OrderService {
+
+        @SLog(tag = "订单", value = "保存订单")
+        public String save(Map<String, Object> order) {
+            return "OK";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.yunqi.starter.log.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 无锁环形队列的容量、顺序和多生产者多消费者下的完整性
+ * Created by @author CHQ on 2026/10/19
+ */
+class RingBufferTest {
+
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(2, new RingBuffer<>(0).capacity());
+        assertEquals(2, new RingBuffer<>(2).capacity());
+        assertEquals(8, new RingBuffer<>(5).capacity());
+        assertEquals(1024, new RingBuffer<>(1024).capacity());
+    }
+
+    @Test
+    void rejectsWhenFullAndReturnsNullWhenEmpty() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        assertNull(buffer.poll());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertEquals(4, buffer.size());
+    }
+
+    @Test
+    void keepsFifoOrderAcrossWraps() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 1000; round++) {
+            // 每轮写入 1~4 个再全部读出, 写入位置反复绕过数组末尾
+            int count = round % 4 + 1;
+            for (int i = 0; i < count; i++) {
+                assertTrue(buffer.offer(next++));
+            }
+            for (int i = 0; i < count; i++) {
+                assertEquals(expected++, buffer.poll());
+            }
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        }
+    }
+
+    @Test
+    void deliversEveryItemOnceWithConcurrentProducersAndConsumers() throws InterruptedException {
+        int producers = 4;
+        int consumers = 3;
+        int perProducer = 50000;
+        int total = producers * perProducer;
+        RingBuffer<Integer> buffer = new RingBuffer<>(64);
+        BitSet seen = new BitSet(total);
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        for (int c = 0; c < consumers; c++) {
+            new Thread(() -> {
+                while (received.get() < total) {
+                    Integer item = buffer.poll();
+                    if (item == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    synchronized (seen) {
+                        if (seen.get(item)) {
+                            duplicates.incrementAndGet();
+                        }
+                        seen.set(item);
+                    }
+                    received.incrementAndGet();
+                }
+                done.countDown();
+            }).start();
+        }
+
+        assertTrue(done.await(60, TimeUnit.SECONDS), "生产或消费未在时限内完成");
+        assertEquals(0, duplicates.get());
+        assertEquals(total, seen.cardinality());
+        assertNull(buffer.poll());
+    }
+}
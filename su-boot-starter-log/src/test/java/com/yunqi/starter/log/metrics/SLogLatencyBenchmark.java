@@ -0,0 +1,87 @@
+package com.yunqi.starter.log.metrics;
+
+import com.yunqi.starter.log.configuration.LogProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 方法耗时统计的记录开销
+ * <p>
+ * 分别统计单线程和多线程下每次 record 的平均耗时, 开启直方图时额外统计一次。
+ * 记录的耗时在 1~100ms 之间均匀分布, 结束后输出第一个方法的百分位用于核对。
+ * Created by @author CHQ on 2026/10/19
+ */
+public class SLogLatencyBenchmark {
+
+    /**
+     * @param args 方法数、每个线程每轮记录次数、轮数、线程数, 省略时为 16、1000000、5、4
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int methods = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        String[] sources = new String[methods];
+        for (int i = 0; i < methods; i++) {
+            sources[i] = "com.example.OrderService#method" + i;
+        }
+
+        for (boolean histogram : new boolean[]{false, true}) {
+            LogProperties.Latency config = new LogProperties.Latency();
+            config.setHistogram(histogram);
+            // 没有 MeterRegistry 时使用本地的 SimpleMeterRegistry
+            SLogLatency latency = new SLogLatencyMetrics(
+                    new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class), config);
+
+            // 预热
+            run(latency, sources, count, 1);
+            run(latency, sources, count, threads);
+
+            long single = 0, multi = 0;
+            for (int i = 0; i < rounds; i++) {
+                single += run(latency, sources, count, 1);
+                multi += run(latency, sources, count, threads);
+            }
+            System.out.printf("histogram=%-5s 1 thread : %8.1f ns/op%n", histogram, (double) single / rounds / count);
+            System.out.printf("histogram=%-5s %d threads: %8.1f ns/op%n", histogram, threads, (double) multi / rounds / count);
+            System.out.println("percentiles(ms): " + latency.percentiles(sources[0]));
+        }
+    }
+
+    /**
+     * 每个线程记录 count 次
+     *
+     * @return  总耗时(纳秒), 多线程时为最慢线程的耗时
+     */
+    private static long run(SLogLatency latency, String[] sources, int count, int threads) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicLong slowest = new AtomicLong();
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    long begin = System.nanoTime();
+                    for (int i = 0; i < count; i++) {
+                        latency.record(sources[i % sources.length], "订单", (i & 1023) != 0,
+                                random.nextLong(1_000_000L, 100_000_000L));
+                    }
+                    slowest.accumulateAndGet(System.nanoTime() - begin, Math::max);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        return slowest.get();
+    }
+}
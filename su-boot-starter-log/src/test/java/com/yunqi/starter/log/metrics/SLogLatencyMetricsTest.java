@@ -0,0 +1,46 @@
+package com.yunqi.starter.log.metrics;
+
+import com.yunqi.starter.log.configuration.LogProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 同一方法的不同标签分别计时和统计失败次数
+ * Created by @author CHQ on 2026/10/19
+ */
+class SLogLatencyMetricsTest {
+
+    private static final String SRC = "com.example.OrderService#save";
+
+    @Test
+    void keepsTagsApart() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+        factory.registerSingleton("registry", registry);
+        SLogLatency latency = new SLogLatencyMetrics(factory.getBeanProvider(MeterRegistry.class), new LogProperties.Latency());
+
+        for (int i = 0; i < 3; i++) {
+            latency.record(SRC, "下单", true, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        latency.record(SRC, "补单", false, TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertEquals(3, registry.get("su.log.method").tags("src", SRC, "tag", "下单").timer().count());
+        assertEquals(1, registry.get("su.log.method").tags("src", SRC, "tag", "补单").timer().count());
+        assertEquals(1, registry.get("su.log.method.failures").tags("src", SRC, "tag", "补单").counter().count());
+        assertNull(registry.find("su.log.method.failures").tags("tag", "下单").counter());
+
+        assertEquals(Collections.singleton(SRC), latency.sources());
+        assertTrue(latency.percentiles(SRC, "补单").get(0.5) > 100);
+        // 不指定标签时取调用次数最多的标签
+        assertTrue(latency.percentiles(SRC).get(0.5) < 100);
+        assertTrue(latency.percentiles(SRC, "退单").isEmpty());
+        assertTrue(latency.percentiles("com.example.OrderService#cancel").isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package com.yunqi.starter.log.sampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌桶的突发容量、按速率补充以及并发获取时不超发
+ * Created by @author CHQ on 2026/10/19
+ */
+class TokenBucketTest {
+
+    @Test
+    void burstEqualsPermitsPerSecond() {
+        long begin = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(100);
+        int granted = drain(bucket);
+        // 取令牌期间按每 10ms 一个补充
+        long refilled = (System.nanoTime() - begin) / TimeUnit.MILLISECONDS.toNanos(10);
+        assertTrue(granted >= 100 && granted <= 100 + refilled, "granted " + granted);
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void atLeastOnePermitPerSecond() {
+        TokenBucket bucket = new TokenBucket(0);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void refillsAtConfiguredRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1000);
+        drain(bucket);
+        long begin = System.nanoTime();
+        Thread.sleep(100);
+        int granted = drain(bucket);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        // 每毫秒补充一个令牌, 不会超过经过的毫秒数
+        assertTrue(granted >= 90 && granted <= elapsed + 1, "granted " + granted + " in " + elapsed + "ms");
+    }
+
+    @Test
+    void neverOverGrantsUnderContention() throws InterruptedException {
+        int permits = 100_000;
+        int threads = 8;
+        TokenBucket bucket = new TokenBucket(permits);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    granted.addAndGet(drain(bucket));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        long refilled = (System.nanoTime() - begin) / (TimeUnit.SECONDS.toNanos(1) / permits);
+        assertTrue(granted.get() >= permits && granted.get() <= permits + refilled + 1,
+                "granted " + granted.get() + ", refilled " + refilled);
+    }
+
+    /**
+     * 取完桶内令牌
+     */
+    private static int drain(TokenBucket bucket) {
+        int granted = 0;
+        while (bucket.tryAcquire()) {
+            granted++;
+        }
+        return granted;
+    }
+}
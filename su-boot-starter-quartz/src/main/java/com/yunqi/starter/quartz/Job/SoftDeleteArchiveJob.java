@@ -0,0 +1,29 @@
+package com.yunqi.starter.quartz.Job;
+
+import com.yunqi.starter.database.archive.SoftDeleteArchiver;
+import lombok.extern.slf4j.Slf4j;
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+
+import javax.annotation.Resource;
+
+/**
+ * 伪删除数据归档任务
+ * <p>
+ * 集群模式下同一时间只有一个节点执行
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+@DisallowConcurrentExecution
+public class SoftDeleteArchiveJob implements Job {
+
+    @Resource
+    private SoftDeleteArchiver softDeleteArchiver;
+
+    @Override
+    public void execute(JobExecutionContext context) throws JobExecutionException {
+        softDeleteArchiver.run();
+    }
+}
@@ -0,0 +1,44 @@
+package com.yunqi.starter.quartz.configuration;
+
+import com.yunqi.starter.database.archive.SoftDeleteArchiver;
+import com.yunqi.starter.database.configuration.DataBaseProperties;
+import com.yunqi.starter.quartz.Job.SoftDeleteArchiveJob;
+import com.yunqi.starter.quartz.provider.QuartzManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+/**
+ * 注册伪删除数据归档定时任务
+ * Created by @author CHQ on 2026/10/19
+ */
+@Slf4j
+@Configuration
+@ConditionalOnClass(SoftDeleteArchiver.class)
+@ConditionalOnExpression("${su.quartz.enabled:true} && ${su.database.archive.enabled:false} && '${su.database.archive.cron:}' != ''")
+@AutoConfigureAfter(QuartzAutoConfiguration.class)
+public class ArchiveJobInitializer {
+
+    /** 任务名称 */
+    public static final String JOB_NAME = "SoftDeleteArchive";
+
+    /** 任务分组 */
+    public static final String JOB_GROUP = "su-database";
+
+    @Resource
+    private QuartzManager quartzManager;
+
+    @Resource
+    private DataBaseProperties properties;
+
+    @PostConstruct
+    public void init() {
+        quartzManager.cron(properties.getArchive().getCron(), SoftDeleteArchiveJob.class, JOB_NAME, JOB_GROUP);
+        log.info("伪删除数据归档 -> 注册定时任务 {}", properties.getArchive().getCron());
+    }
+}
@@ -0,0 +1,44 @@
+package com.yunqi.starter.web.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 导出格式
+ * Created by @author CHQ on 2026/10/19
+ */
+public enum ExportFormat {
+
+    CSV("text/csv;charset=UTF-8", "csv") {
+        @Override
+        RowWriter open(OutputStream out) throws IOException {
+            return new CsvRowWriter(out);
+        }
+    },
+
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx") {
+        @Override
+        RowWriter open(OutputStream out) throws IOException {
+            return new XlsxRowWriter(out);
+        }
+    };
+
+    private final String contentType;
+
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    abstract RowWriter open(OutputStream out) throws IOException;
+}
@@ -0,0 +1,28 @@
+package com.yunqi.starter.web.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 逐行写出
+ * Created by @author CHQ on 2026/10/19
+ */
+public interface RowWriter {
+
+    /**
+     * 写出一行
+     *
+     * @param values 单元格的值
+     */
+    void write(List<?> values) throws IOException;
+
+    /**
+     * 将已写出的内容刷新到输出流
+     */
+    void flush() throws IOException;
+
+    /**
+     * 写出结尾并刷新, 不关闭输出流
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,199 @@
+package com.yunqi.starter.web.export;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 流式导出
+ * <p>
+ * 数据源逐行回调(例如 BaseService.stream 的游标查询), 每行经过转换后立即写出,
+ * 按行数定期刷新到客户端, 内存占用与行数无关, 下载在第一批数据写出后即开始。
+ * <pre>
+ *     return StreamingExport.&lt;User&gt;of(ExportFormat.CSV)
+ *             .filename("用户")
+ *             .column("用户名", User::getUsername)
+ *             .column("创建时间", User::getCreatedAt)
+ *             .source(consumer -&gt; userService.stream(cnd, consumer))
+ *             .toResponse();
+ * </pre>
+ * Created by @author CHQ on 2026/10/19
+ */
+public class StreamingExport<T> {
+
+    /** 输出缓冲区大小 */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExportFormat format;
+
+    private final List<String> titles = new ArrayList<>();
+
+    private final List<Function<T, ?>> getters = new ArrayList<>();
+
+    private Consumer<Consumer<T>> source;
+
+    private Function<T, T> transformer = Function.identity();
+
+    private String filename = "export";
+
+    private boolean gzip = false;
+
+    private int flushRows = 1000;
+
+    private StreamingExport(ExportFormat format) {
+        this.format = format;
+    }
+
+    public static <T> StreamingExport<T> of(ExportFormat format) {
+        return new StreamingExport<>(format);
+    }
+
+    /**
+     * 增加一列
+     *
+     * @param title     列标题
+     * @param getter    取值
+     * @return          this
+     */
+    public StreamingExport<T> column(String title, Function<T, ?> getter) {
+        titles.add(title);
+        getters.add(getter);
+        return this;
+    }
+
+    /**
+     * 数据源, 逐行回调
+     *
+     * @param source    数据源
+     * @return          this
+     */
+    public StreamingExport<T> source(Consumer<Consumer<T>> source) {
+        this.source = source;
+        return this;
+    }
+
+    /**
+     * 行转换, 返回 null 时跳过该行
+     *
+     * @param transformer   行转换
+     * @return              this
+     */
+    public StreamingExport<T> transform(Function<T, T> transformer) {
+        this.transformer = transformer;
+        return this;
+    }
+
+    /**
+     * 文件名(不含扩展名)
+     *
+     * @param filename  文件名
+     * @return          this
+     */
+    public StreamingExport<T> filename(String filename) {
+        this.filename = filename;
+        return this;
+    }
+
+    /**
+     * 是否使用 gzip 压缩传输
+     *
+     * @param gzip  是否压缩
+     * @return      this
+     */
+    public StreamingExport<T> gzip(boolean gzip) {
+        this.gzip = gzip;
+        return this;
+    }
+
+    /**
+     * 每写出多少行刷新一次
+     *
+     * @param flushRows 行数
+     * @return          this
+     */
+    public StreamingExport<T> flushRows(int flushRows) {
+        this.flushRows = Math.max(1, flushRows);
+        return this;
+    }
+
+    /**
+     * 生成响应
+     *
+     * @return 响应
+     */
+    public ResponseEntity<StreamingResponseBody> toResponse() {
+        String name = filename + "." + format.getExtension();
+        String encoded;
+        try {
+            encoded = URLEncoder.encode(name, StandardCharsets.UTF_8.name()).replace("+", "%20");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename*=UTF-8''" + encoded);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(this::write);
+    }
+
+    /**
+     * 写出到输出流
+     *
+     * @param out   输出流
+     */
+    public void write(OutputStream out) throws IOException {
+        if (source == null) {
+            throw new IllegalStateException("未设置数据源");
+        }
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        OutputStream stream = new BufferedOutputStream(gzipStream != null ? gzipStream : out, BUFFER_SIZE);
+        RowWriter writer = format.open(stream);
+        writer.write(titles);
+
+        int[] rows = {0};
+        try {
+            source.accept(row -> {
+                T value = transformer.apply(row);
+                if (value == null) {
+                    return;
+                }
+                List<Object> values = new ArrayList<>(getters.size());
+                for (Function<T, ?> getter : getters) {
+                    values.add(getter.apply(value));
+                }
+                try {
+                    writer.write(values);
+                    if (++rows[0] % flushRows == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    // 客户端断开时中断数据源的遍历
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        stream.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        out.flush();
+    }
+}